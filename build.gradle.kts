@@ -6,6 +6,7 @@ plugins {
     id("org.checkerframework") version "0.5.9"
     `maven-publish`
     id("com.jfrog.bintray") version "1.8.5"
+    id("me.champeau.gradle.jmh") version "0.5.0"
 }
 
 group = "com.proximyst"
@@ -25,6 +26,12 @@ java {
     withJavadocJar()
 }
 
+jmh {
+    jmhVersion = "1.25"
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+}
+
 tasks {
     compileJava {
         sourceCompatibility = JavaVersion.VERSION_1_8.toString()
@@ -36,6 +43,11 @@ tasks {
         targetCompatibility = sourceCompatibility
     }
 
+    named<JavaCompile>("compileJmhJava") {
+        sourceCompatibility = JavaVersion.VERSION_1_8.toString()
+        targetCompatibility = sourceCompatibility
+    }
+
     javadoc {
         val opt = options as StandardJavadocDocletOptions
         opt.addStringOption("Xdoclint:none", "-quiet")
@@ -1,2 +1,7 @@
 rootProject.name = "sewer"
 
+// The java.util.concurrent.Flow adapter requires Java 9; the core stays on Java 8. Releases are built on a newer JDK
+// such that both are published.
+if (JavaVersion.current().isJava9Compatible) {
+    include("sewer-flow")
+}
@@ -0,0 +1,395 @@
+package com.proximyst.sewer.flow;
+
+import com.proximyst.sewer.SewerSystem;
+import com.proximyst.sewer.piping.NamedPipeResult;
+import com.proximyst.sewer.piping.PipeResult;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A {@link Flow.Processor} which {@link SewerSystem#pump(Object) pumps} every item it receives through a {@link
+ * SewerSystem}, and publishes the results.
+ * <p>
+ * At most {@code prefetch} items are requested from upstream which have not yet been published downstream, such that
+ * the processor never buffers more than its prefetch window regardless of how slow the subscriber is. Results are
+ * published in the order of the items if the processor is ordered, and as their pumps complete otherwise.
+ * <p>
+ * Only a single subscriber is supported. Completion and errors from upstream are published once every pump in flight
+ * has been published. A pump failing outright rather than resulting in a {@link NamedPipeResult} terminates downstream
+ * with its throwable, and cancels upstream.
+ *
+ * @param <Input>  The input type of the system.
+ * @param <Output> The output type of the system.
+ * @since 0.8.0
+ */
+public final class SewerProcessor<Input, Output>
+    implements Flow.Processor<Input, NamedPipeResult<Output, ? extends PipeResult<Output>>> {
+  /**
+   * The prefetch window used by {@link #of(SewerSystem)}.
+   */
+  public static final int DEFAULT_PREFETCH = 32;
+
+  private final @NonNull SewerSystem<Input, Output> system;
+  private final int prefetch;
+  private final boolean ordered;
+
+  /**
+   * The amount of published items after which upstream is requested for more.
+   */
+  private final int replenishThreshold;
+
+  /**
+   * The pumps which are waiting to be published.
+   * <p>
+   * If this is ordered, every pump is queued as it starts; otherwise pumps are queued as they complete.
+   */
+  private final @NonNull Queue<CompletableFuture<NamedPipeResult<Output, ? extends PipeResult<Output>>>> queue =
+      new ConcurrentLinkedQueue<>();
+
+  private final @NonNull AtomicReference<Flow.Subscriber<? super NamedPipeResult<Output, ? extends PipeResult<Output>>>>
+      downstream = new AtomicReference<>();
+  private volatile Flow.@MonotonicNonNull Subscription upstream;
+  private final @NonNull AtomicBoolean started = new AtomicBoolean();
+
+  /**
+   * The outstanding demand of the downstream subscriber.
+   */
+  private final @NonNull AtomicLong requested = new AtomicLong();
+
+  /**
+   * The amount of items received which have not yet been published.
+   */
+  private final @NonNull AtomicInteger pending = new AtomicInteger();
+
+  /**
+   * The amount of times {@link #drain()} has been requested but not yet run.
+   */
+  private final @NonNull AtomicInteger workInProgress = new AtomicInteger();
+
+  /**
+   * The amount of items published since upstream was last requested for more.
+   * <p>
+   * This is only accessed while draining.
+   */
+  private int published;
+
+  private volatile boolean done;
+  private volatile @Nullable Throwable failure;
+  private volatile boolean cancelled;
+
+  /**
+   * The failure to terminate with immediately, as downstream broke the specification by requesting a non-positive
+   * amount.
+   */
+  private volatile @Nullable Throwable invalidRequest;
+
+  /**
+   * Whether downstream has been terminated.
+   * <p>
+   * This is only accessed while draining.
+   */
+  private boolean terminated;
+
+  private SewerProcessor(@NonNull SewerSystem<Input, Output> system, int prefetch, boolean ordered) {
+    if (prefetch < 1) {
+      throw new IllegalArgumentException("prefetch must be positive, but is " + prefetch);
+    }
+
+    this.system = system;
+    this.prefetch = prefetch;
+    this.ordered = ordered;
+    this.replenishThreshold = Math.max(1, prefetch - (prefetch >> 2));
+  }
+
+  /**
+   * Create a new ordered {@link SewerProcessor} with the {@link #DEFAULT_PREFETCH default prefetch window}.
+   *
+   * @param system   The system to pump items through.
+   * @param <Input>  The input type of the system.
+   * @param <Output> The output type of the system.
+   * @return A new {@link SewerProcessor}.
+   */
+  public static <Input, Output> @NonNull SewerProcessor<Input, Output> of(
+      @NonNull SewerSystem<Input, Output> system
+  ) {
+    return new SewerProcessor<>(system, DEFAULT_PREFETCH, true);
+  }
+
+  /**
+   * Create a new {@link SewerProcessor}.
+   *
+   * @param system   The system to pump items through.
+   * @param prefetch The maximum amount of items requested from upstream which have not yet been published.
+   * @param ordered  Whether results are published in the order of the items, rather than as their pumps complete.
+   * @param <Input>  The input type of the system.
+   * @param <Output> The output type of the system.
+   * @return A new {@link SewerProcessor}.
+   * @throws IllegalArgumentException If {@code prefetch} is not positive.
+   */
+  public static <Input, Output> @NonNull SewerProcessor<Input, Output> of(
+      @NonNull SewerSystem<Input, Output> system,
+      int prefetch,
+      boolean ordered
+  ) {
+    return new SewerProcessor<>(system, prefetch, ordered);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void subscribe(Flow.Subscriber<? super NamedPipeResult<Output, ? extends PipeResult<Output>>> subscriber) {
+    Objects.requireNonNull(subscriber, "subscriber");
+    if (!this.downstream.compareAndSet(null, subscriber)) {
+      subscriber.onSubscribe(new Flow.Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+      });
+      subscriber.onError(new IllegalStateException(getClass().getSimpleName() + " only supports a single subscriber"));
+      return;
+    }
+
+    subscriber.onSubscribe(new Flow.Subscription() {
+      @Override
+      public void request(long n) {
+        if (n <= 0) {
+          SewerProcessor.this.invalidRequest = new IllegalArgumentException("request must be positive, but is " + n);
+          SewerProcessor.this.drain();
+          return;
+        }
+
+        SewerProcessor.this.requested.getAndAccumulate(n, (current, added) -> {
+          final long sum = current + added;
+          return sum < 0 ? Long.MAX_VALUE : sum;
+        });
+        SewerProcessor.this.drain();
+      }
+
+      @Override
+      public void cancel() {
+        SewerProcessor.this.cancel();
+      }
+    });
+    this.start();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    Objects.requireNonNull(subscription, "subscription");
+    if (this.upstream != null) {
+      subscription.cancel();
+      return;
+    }
+
+    this.upstream = subscription;
+    this.start();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onNext(Input item) {
+    Objects.requireNonNull(item, "item");
+    if (this.done || this.cancelled) {
+      return;
+    }
+
+    this.pending.incrementAndGet();
+    final CompletableFuture<NamedPipeResult<Output, ? extends PipeResult<Output>>> future = this.pump(item);
+    if (this.ordered) {
+      this.queue.offer(future);
+      if (future.isDone()) {
+        this.drain();
+      } else {
+        future.whenComplete((result, throwable) -> this.drain());
+      }
+    } else if (future.isDone()) {
+      this.queue.offer(future);
+      this.drain();
+    } else {
+      future.whenComplete((result, throwable) -> {
+        this.queue.offer(future);
+        this.drain();
+      });
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onError(Throwable throwable) {
+    Objects.requireNonNull(throwable, "throwable");
+    this.failure = throwable;
+    this.done = true;
+    this.drain();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onComplete() {
+    this.done = true;
+    this.drain();
+  }
+
+  /**
+   * Pump an item through the system.
+   *
+   * @param item The item to pump.
+   * @return The future of the pump, which fails if the pump throws rather than returning one.
+   */
+  private @NonNull CompletableFuture<NamedPipeResult<Output, ? extends PipeResult<Output>>> pump(Input item) {
+    try {
+      return this.system.pump(item);
+    } catch (Throwable throwable) {
+      // onNext must never throw; the pump is published as a failed one instead, which terminates downstream.
+      final CompletableFuture<NamedPipeResult<Output, ? extends PipeResult<Output>>> future = new CompletableFuture<>();
+      future.completeExceptionally(throwable);
+      return future;
+    }
+  }
+
+  /**
+   * Request the initial prefetch window from upstream once both upstream and downstream are present.
+   */
+  private void start() {
+    final Flow.Subscription upstream = this.upstream;
+    if (upstream != null && this.downstream.get() != null && this.started.compareAndSet(false, true)) {
+      upstream.request(this.prefetch);
+    }
+  }
+
+  /**
+   * Cancel upstream and stop publishing downstream.
+   */
+  private void cancel() {
+    this.cancelled = true;
+    final Flow.Subscription upstream = this.upstream;
+    if (upstream != null) {
+      upstream.cancel();
+    }
+    this.drain();
+  }
+
+  /**
+   * Publish completed pumps for as long as there is demand, and terminate downstream once everything is published.
+   */
+  private void drain() {
+    if (this.workInProgress.getAndIncrement() != 0) {
+      return;
+    }
+
+    int missed = 1;
+    do {
+      final Flow.Subscriber<? super NamedPipeResult<Output, ? extends PipeResult<Output>>> subscriber =
+          this.downstream.get();
+      final Throwable invalidRequest = this.invalidRequest;
+      if (this.cancelled || this.terminated) {
+        this.queue.clear();
+      } else if (subscriber != null && invalidRequest != null) {
+        this.terminate(subscriber, invalidRequest);
+      } else if (subscriber != null) {
+        this.publish(subscriber);
+      }
+
+      missed = this.workInProgress.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  /**
+   * Publish completed pumps for as long as there is demand.
+   * <p>
+   * This must only be called while draining.
+   *
+   * @param subscriber The downstream subscriber.
+   */
+  private void publish(
+      Flow.@NonNull Subscriber<? super NamedPipeResult<Output, ? extends PipeResult<Output>>> subscriber
+  ) {
+    final long requested = this.requested.get();
+    long emitted = 0;
+    while (emitted != requested && !this.cancelled) {
+      final CompletableFuture<NamedPipeResult<Output, ? extends PipeResult<Output>>> future = this.queue.peek();
+      if (future == null || !future.isDone()) {
+        break;
+      }
+      this.queue.poll();
+
+      final NamedPipeResult<Output, ? extends PipeResult<Output>> result;
+      try {
+        result = future.join();
+      } catch (Throwable throwable) {
+        this.terminate(subscriber, throwable);
+        return;
+      }
+
+      subscriber.onNext(result);
+      this.pending.decrementAndGet();
+      ++emitted;
+
+      if (++this.published >= this.replenishThreshold && !this.done) {
+        final int amount = this.published;
+        this.published = 0;
+        this.upstream.request(amount);
+      }
+    }
+
+    if (emitted != 0 && requested != Long.MAX_VALUE) {
+      this.requested.addAndGet(-emitted);
+    }
+
+    if (this.done && this.pending.get() == 0 && !this.cancelled) {
+      this.terminate(subscriber, this.failure);
+    }
+  }
+
+  /**
+   * Terminate downstream, and upstream if it is still active.
+   * <p>
+   * This must only be called while draining.
+   *
+   * @param subscriber The downstream subscriber.
+   * @param failure    The failure to terminate with, or {@code null} to complete normally.
+   */
+  private void terminate(
+      Flow.@NonNull Subscriber<? super NamedPipeResult<Output, ? extends PipeResult<Output>>> subscriber,
+      @Nullable Throwable failure
+  ) {
+    this.terminated = true;
+    this.queue.clear();
+    if (!this.done) {
+      this.done = true;
+      final Flow.Subscription upstream = this.upstream;
+      if (upstream != null) {
+        upstream.cancel();
+      }
+    }
+
+    if (failure == null) {
+      subscriber.onComplete();
+    } else {
+      subscriber.onError(failure);
+    }
+  }
+}
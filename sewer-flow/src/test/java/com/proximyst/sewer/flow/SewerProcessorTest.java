@@ -0,0 +1,140 @@
+package com.proximyst.sewer.flow;
+
+import com.proximyst.sewer.Module;
+import com.proximyst.sewer.SewerSystem;
+import com.proximyst.sewer.piping.NamedPipeResult;
+import com.proximyst.sewer.piping.PipeResult;
+import com.proximyst.sewer.piping.SuccessfulResult;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SewerProcessorTest {
+  @Test
+  public void orderedDemand() {
+    SewerSystem<Long, Long> pipeline = SewerSystem
+        .<Long, Long>builder("multiply", Module.immediatelyWrapping(in -> in * 7))
+        .module("max amount", Module.filtering(in -> in < 100L))
+        .build();
+    SewerProcessor<Long, Long> processor = SewerProcessor.of(pipeline, 4, true);
+
+    List<NamedPipeResult<Long, ? extends PipeResult<Long>>> results = new ArrayList<>();
+    CompletableFuture<Void> completion = new CompletableFuture<>();
+    processor.subscribe(new Flow.Subscriber<NamedPipeResult<Long, ? extends PipeResult<Long>>>() {
+      private Flow.Subscription subscription;
+
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+      }
+
+      @Override
+      public void onNext(NamedPipeResult<Long, ? extends PipeResult<Long>> item) {
+        results.add(item);
+        this.subscription.request(1);
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+        completion.completeExceptionally(throwable);
+      }
+
+      @Override
+      public void onComplete() {
+        completion.complete(null);
+      }
+    });
+
+    try (SubmissionPublisher<Long> publisher = new SubmissionPublisher<>()) {
+      publisher.subscribe(processor);
+      for (long i = 0; i < 20; ++i) {
+        publisher.submit(i);
+      }
+    }
+    completion.join();
+
+    Assert.assertEquals(results.size(), 20);
+    for (int i = 0; i < 20; ++i) {
+      Assert.assertEquals(results.get(i).isSuccessful(), i * 7 < 100);
+    }
+    Assert.assertEquals(results.get(3).asOptional().get(), Long.valueOf(21L));
+  }
+
+  @Test
+  public void unorderedAsync() throws Exception {
+    List<CompletableFuture<PipeResult<Long>>> flows = new ArrayList<>();
+    SewerSystem<Long, Long> pipeline = SewerSystem
+        .<Long, Long>builder("async", in -> {
+          CompletableFuture<PipeResult<Long>> flow = new CompletableFuture<>();
+          flows.add(flow);
+          return flow;
+        })
+        .module("multiply", Module.immediatelyWrapping(in -> in * 7))
+        .build();
+    SewerProcessor<Long, Long> processor = SewerProcessor.of(pipeline, 4, false);
+
+    List<Long> results = new ArrayList<>();
+    CompletableFuture<Void> completion = new CompletableFuture<>();
+    processor.subscribe(new Flow.Subscriber<NamedPipeResult<Long, ? extends PipeResult<Long>>>() {
+      private Flow.Subscription subscription;
+
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+      }
+
+      @Override
+      public void onNext(NamedPipeResult<Long, ? extends PipeResult<Long>> item) {
+        results.add(item.asOptional().get());
+        this.subscription.request(1);
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+        completion.completeExceptionally(throwable);
+      }
+
+      @Override
+      public void onComplete() {
+        completion.complete(null);
+      }
+    });
+
+    AtomicLong upstreamRequested = new AtomicLong();
+    processor.onSubscribe(new Flow.Subscription() {
+      @Override
+      public void request(long n) {
+        upstreamRequested.addAndGet(n);
+      }
+
+      @Override
+      public void cancel() {
+      }
+    });
+    Assert.assertEquals(upstreamRequested.get(), 4L);
+    for (long i = 0; i < 4; ++i) {
+      processor.onNext(i);
+    }
+    Assert.assertEquals(flows.size(), 4);
+    Assert.assertTrue(results.isEmpty());
+
+    // Results are published as their pumps complete, and upstream is only asked for more as they are.
+    for (int i : new int[]{3, 1, 2, 0}) {
+      flows.get(i).complete(new SuccessfulResult<>((long) i));
+    }
+    Assert.assertEquals(results, Arrays.asList(21L, 7L, 14L, 0L));
+    Assert.assertEquals(upstreamRequested.get(), 7L);
+
+    processor.onComplete();
+    completion.get(1L, TimeUnit.SECONDS);
+  }
+}
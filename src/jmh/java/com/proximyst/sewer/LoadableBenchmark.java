@@ -0,0 +1,92 @@
+package com.proximyst.sewer;
+
+import com.proximyst.sewer.loadable.LoadPolicy;
+import com.proximyst.sewer.loadable.Loadable;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for loading {@link Loadable}s.
+ * <p>
+ * Run with {@code ./gradlew jmh}; the GC profiler reports the allocation rate alongside the throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoadableBenchmark {
+  private SewerSystem<Integer, String> toString;
+  private SewerSystem<String, Integer> length;
+
+  /**
+   * A {@link Loadable} shared between all benchmark threads, which is already loaded.
+   */
+  private Loadable<String> shared;
+
+  /**
+   * A {@link Loadable} shared between all benchmark threads, which is refreshed on nearly every call.
+   */
+  private Loadable<String> refreshing;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    this.toString = SewerSystem
+        .builder("toString", Module.immediatelyWrapping(Integer::toBinaryString))
+        .build();
+    this.length = SewerSystem
+        .builder("length", Module.immediatelyWrapping(String::length))
+        .build();
+
+    this.shared = Loadable.of(this.toString, 7);
+    this.shared.getOrLoad().join();
+
+    this.refreshing = Loadable.of(
+        this.toString,
+        7,
+        LoadPolicy.builder().refreshAfterWrite(Duration.ofNanos(1)).build()
+    );
+    this.refreshing.getOrLoad().join();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Object contendedLoaded() {
+    return this.shared.getOrLoad().join();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Object contendedLoadedResult() {
+    return this.shared.getOrLoadResult().join();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public Object contendedRefreshing() {
+    return this.refreshing.getOrLoadResult().join();
+  }
+
+  @Benchmark
+  public Object freshLoad() {
+    return Loadable.of(this.toString, 7).getOrLoad().join();
+  }
+
+  @Benchmark
+  public Object nestedLoad() {
+    return Loadable.of(this.length, Loadable.of(this.toString, 7)).getOrLoad().join();
+  }
+}
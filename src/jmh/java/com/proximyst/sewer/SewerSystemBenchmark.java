@@ -0,0 +1,151 @@
+package com.proximyst.sewer;
+
+import com.proximyst.sewer.piping.SuccessfulResult;
+import com.proximyst.sewer.primitive.LongModule;
+import com.proximyst.sewer.primitive.LongSewerSystem;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for pumping inputs through {@link SewerSystem}s of differing shapes.
+ * <p>
+ * Run with {@code ./gradlew jmh}; the GC profiler reports the allocation rate alongside the throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SewerSystemBenchmark {
+  /**
+   * The amount of pipes in the {@link #deep} system.
+   */
+  private static final int DEEP_PIPES = 16;
+
+  /**
+   * The amount of modules per pipe in the {@link #deep} system.
+   */
+  private static final int DEEP_MODULES = 4;
+
+  private SewerSystem<Long, Long> immediate;
+  private LongSewerSystem immediateLong;
+  private SewerSystem<Long, Long> filterHeavy;
+  private SewerSystem<Long, Long> deep;
+  private SewerSystem<Long, Long> async;
+  private SewerSystem<Long, Long> asyncTimed;
+  private ExecutorService executor;
+
+  /**
+   * A changing input, such that the JIT cannot fold the pipelines into constants.
+   */
+  private long input;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    this.immediate = SewerSystem
+        .<Long, Long>builder("multiply", Module.immediatelyWrapping(in -> in * 7))
+        .module("max amount", Module.filtering(in -> in < Long.MAX_VALUE / 8))
+        .module("modulo", Module.immediatelyWrapping(in -> in % 3))
+        .build();
+
+    this.immediateLong = LongSewerSystem
+        .builder("multiply", in -> in * 7)
+        .module("max amount", LongModule.filtering(in -> in < Long.MAX_VALUE / 8))
+        .module("modulo", in -> in % 3)
+        .build();
+
+    this.filterHeavy = SewerSystem
+        .<Long, Long>builder("even", Module.filtering(in -> (in & 1) == 0))
+        .module("not fourth", Module.filtering(in -> (in & 3) != 0))
+        .module("positive", Module.filtering(in -> in >= 0))
+        .module("halve", Module.immediatelyWrapping(in -> in >> 1))
+        .build();
+
+    SewerSystem.Builder<Long, Long> deepBuilder = SewerSystem.builder(this.deepPipe(0));
+    for (int i = 1; i < DEEP_PIPES; ++i) {
+      deepBuilder = deepBuilder.pipe(this.deepPipe(i));
+    }
+    this.deep = deepBuilder.build();
+
+    this.executor = Executors.newFixedThreadPool(2);
+    this.async = SewerSystem
+        .<Long, Long>builder("multiply", Module.immediatelyWrapping(in -> in * 7))
+        .module("async identity",
+            in -> CompletableFuture.supplyAsync(() -> new SuccessfulResult<>(in), this.executor))
+        .module("modulo", Module.immediatelyWrapping(in -> in % 3))
+        .build();
+
+    this.asyncTimed = SewerSystem
+        .<Long, Long>builder("multiply", Module.immediatelyWrapping(in -> in * 7))
+        .module("async identity",
+            in -> CompletableFuture.supplyAsync(() -> new SuccessfulResult<>(in), this.executor))
+        .module("modulo", Module.immediatelyWrapping(in -> in % 3))
+        .timeout(Duration.ofSeconds(10))
+        .build();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    this.executor.shutdownNow();
+  }
+
+  private SewerPipe<Long, Long> deepPipe(int index) {
+    SewerPipe.Builder<Long, Long> builder = SewerPipe
+        .builder("deep " + index, Module.immediatelyWrapping(in -> in + 1));
+    for (int i = 1; i < DEEP_MODULES; ++i) {
+      builder = builder.pipe(Module.immediatelyWrapping(in -> in ^ 1));
+    }
+    return builder.build();
+  }
+
+  @Benchmark
+  public Object immediatePump() {
+    return this.immediate.pump(++this.input).join();
+  }
+
+  @Benchmark
+  public Object immediatePumpSync() {
+    return this.immediate.pumpSync(++this.input);
+  }
+
+  @Benchmark
+  public long immediateLongPumpSync() {
+    return this.immediateLong.pumpSync(++this.input).orElse(-1L);
+  }
+
+  @Benchmark
+  public Object filterHeavyPump() {
+    return this.filterHeavy.pump(++this.input).join();
+  }
+
+  @Benchmark
+  public Object deepPump() {
+    return this.deep.pump(++this.input).join();
+  }
+
+  @Benchmark
+  public Object asyncPump() {
+    return this.async.pump(++this.input).join();
+  }
+
+  @Benchmark
+  public Object asyncTimedPump() {
+    return this.asyncTimed.pump(++this.input).join();
+  }
+}
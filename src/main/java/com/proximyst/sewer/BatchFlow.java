@@ -0,0 +1,301 @@
+package com.proximyst.sewer;
+
+import com.proximyst.sewer.metrics.PipeMetrics;
+import com.proximyst.sewer.piping.NamedPipeResult;
+import com.proximyst.sewer.piping.PipeResult;
+import com.proximyst.sewer.piping.ThrowingResult;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The state of a batch of inputs being {@link SewerSystem#pumpAll(List) pumped} through a system.
+ * <p>
+ * Inputs which are filtered or throw drop out of the batch, such that later modules only see the inputs which may
+ * still continue.
+ * <p>
+ * Nothing applied per pump, such as timeouts, concurrency limits, circuit breakers, or cancellation, is applied to a
+ * batch; see {@link SewerSystem#pumpAll(List)}.
+ *
+ * @since 0.8.0
+ */
+final class BatchFlow {
+  /**
+   * The current value of every input in the batch.
+   */
+  private final @Nullable Object @NonNull [] values;
+
+  /**
+   * The result of the latest module every input has flowed through.
+   */
+  private final @Nullable PipeResult<?> @NonNull [] moduleResults;
+
+  /**
+   * The named result of every input in the batch, set once an input stops or finishes a pipe.
+   */
+  private final @Nullable NamedPipeResult<?, ?> @NonNull [] results;
+
+  /**
+   * The indices of the inputs which may still continue; only the first {@link #aliveCount} are valid.
+   */
+  private final int @NonNull [] alive;
+
+  /**
+   * The amount of inputs which may still continue.
+   */
+  private int aliveCount;
+
+  /**
+   * The executor to flow {@link BlockingModule}s on.
+   */
+  private final @NonNull Executor blocking;
+
+  /**
+   * The context of every input in the batch, or {@code null} if the system has no {@link PipelineListener}.
+   */
+  private final @NonNull PumpContext @Nullable [] contexts;
+
+  /**
+   * @param inputs   The inputs to pump.
+   * @param blocking The executor to flow {@link BlockingModule}s on.
+   * @param listener The listener to dispatch the flow of every input to, or {@code null} if none.
+   */
+  BatchFlow(@NonNull List<?> inputs, @NonNull Executor blocking, @Nullable PipelineListener listener) {
+    this.blocking = blocking;
+    this.values = inputs.toArray();
+    this.moduleResults = new PipeResult<?>[this.values.length];
+    this.results = new NamedPipeResult<?, ?>[this.values.length];
+    this.alive = new int[this.values.length];
+    this.aliveCount = this.values.length;
+    for (int i = 0; i < this.aliveCount; ++i) {
+      this.alive[i] = i;
+    }
+
+    if (listener == null) {
+      this.contexts = null;
+    } else {
+      this.contexts = new PumpContext[this.values.length];
+      for (int i = 0; i < this.values.length; ++i) {
+        this.contexts[i] = new PumpContext(listener, this.values[i]);
+      }
+    }
+  }
+
+  /**
+   * Flow every input which may still continue through a pipe.
+   *
+   * @param pipe    The pipe to flow through.
+   * @param metrics The metrics to record the flow of every input in, or {@code null} if metrics are disabled.
+   * @return A future completed once every input has flowed through the pipe.
+   */
+  @NonNull CompletableFuture<Void> flow(@NonNull SewerPipe<?, ?> pipe, @Nullable PipeMetrics metrics) {
+    final boolean timed = metrics != null || this.contexts != null;
+    final int[] entered = timed ? Arrays.copyOf(this.alive, this.aliveCount) : null;
+    final long start = timed ? System.nanoTime() : 0L;
+    if (this.contexts != null) {
+      for (int index : entered) {
+        this.contexts[index].pipeStart(pipe.getPipeName(), this.values[index]);
+      }
+    }
+
+    return this.flowFrom(pipe, 0).thenRun(() -> {
+      for (int i = 0; i < this.aliveCount; ++i) {
+        final int index = this.alive[i];
+        this.results[index] = SewerPipe.named(pipe.getPipeName(), this.moduleResults[index]);
+      }
+
+      if (timed) {
+        final long nanos = System.nanoTime() - start;
+        for (int index : entered) {
+          if (metrics != null) {
+            metrics.record(this.results[index], nanos);
+          }
+          if (this.contexts != null) {
+            this.contexts[index].pipeEnd(pipe.getPipeName(), this.results[index], nanos);
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * Flow every input which may still continue through the modules of a pipe, starting at the module at the given
+   * index.
+   *
+   * @param pipe        The pipe to flow through.
+   * @param moduleIndex The index of the first module to flow through.
+   * @return A future completed once every input has flowed through the modules.
+   */
+  private @NonNull CompletableFuture<Void> flowFrom(@NonNull SewerPipe<?, ?> pipe, int moduleIndex) {
+    final Module<?, ?>[] modules = pipe.getModules();
+    final CompletableFuture<Void> future = this.flow(pipe.getPipeName(), moduleIndex, modules[moduleIndex]);
+    if (moduleIndex + 1 == modules.length) {
+      return future;
+    }
+
+    // The future may complete on any thread, so later modules hop back onto the executor of the pipe.
+    final Executor executor = pipe.getExecutor();
+    return executor == null || future.isDone()
+        ? future.thenCompose(ignored -> this.flowFrom(pipe, moduleIndex + 1))
+        : future.thenComposeAsync(ignored -> this.flowFrom(pipe, moduleIndex + 1), executor);
+  }
+
+  /**
+   * Finish the pump of the batch.
+   *
+   * @return The named result of every input, in the same order as the inputs.
+   */
+  @SuppressWarnings("unchecked")
+  <T> @NonNull List<T> finish() {
+    if (this.contexts != null) {
+      for (int i = 0; i < this.contexts.length; ++i) {
+        this.contexts[i].pumpEnd(this.results[i]);
+      }
+    }
+
+    return (List<T>) Arrays.asList(this.results);
+  }
+
+  /**
+   * Flow every input which may still continue through a module.
+   *
+   * @param pipeName    The name of the pipe the module is in.
+   * @param moduleIndex The index of the module within the pipe.
+   * @param module      The module to flow through.
+   * @return A future completed once every input has flowed through the module.
+   */
+  @SuppressWarnings("unchecked")
+  private @NonNull CompletableFuture<Void> flow(
+      @NonNull String pipeName,
+      int moduleIndex,
+      @NonNull Module<?, ?> module
+  ) {
+    if (this.aliveCount == 0) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    final long start = this.contexts == null ? 0L : System.nanoTime();
+
+    if (module instanceof BatchModule) {
+      final int count = this.aliveCount;
+      final List<Object> inputs = new ArrayList<>(count);
+      for (int i = 0; i < count; ++i) {
+        inputs.add(this.values[this.alive[i]]);
+      }
+
+      CompletableFuture<? extends List<? extends PipeResult<?>>> future;
+      try {
+        future = ((BatchModule<Object, ?>) module).flowAll(inputs);
+      } catch (Throwable throwable) {
+        future = new CompletableFuture<>();
+        future.completeExceptionally(throwable);
+      }
+
+      return future.handle((outputs, throwable) -> {
+        if (throwable == null && (outputs == null || outputs.size() != count)) {
+          throwable = new IllegalStateException(
+              "batch module returned " + (outputs == null ? "null" : outputs.size()) + " results for " + count
+                  + " inputs"
+          );
+        }
+        for (int i = 0; i < count; ++i) {
+          this.accept(pipeName, moduleIndex, start, i, throwable == null
+              ? SewerPipe.toResult(outputs.get(i), null)
+              : SewerPipe.toResult(null, throwable));
+        }
+        this.compact();
+        return null;
+      });
+    }
+
+    List<CompletableFuture<?>> pending = null;
+    for (int i = 0; i < this.aliveCount; ++i) {
+      final int position = i;
+      final Object value = this.values[this.alive[i]];
+      if (module instanceof ImmediateModule) {
+        PipeResult<?> result;
+        try {
+          result = ((ImmediateModule<Object, ?>) module).flowImmediately(value);
+        } catch (Throwable throwable) {
+          result = new ThrowingResult<>(throwable);
+        }
+        this.accept(pipeName, moduleIndex, start, position, SewerPipe.toResult(result, null));
+        continue;
+      }
+
+      final CompletableFuture<? extends PipeResult<?>> future;
+      try {
+        future = SewerPipe.flow(module, value, this.blocking, CancellationToken.none());
+      } catch (Throwable throwable) {
+        this.accept(pipeName, moduleIndex, start, position, new ThrowingResult<>(throwable));
+        continue;
+      }
+
+      if (future.isDone()) {
+        this.accept(pipeName, moduleIndex, start, position, SewerPipe.getDone(future));
+        continue;
+      }
+
+      if (pending == null) {
+        pending = new ArrayList<>();
+      }
+      pending.add(future.handle((result, throwable) -> {
+        this.accept(pipeName, moduleIndex, start, position, SewerPipe.toResult(result, throwable));
+        return null;
+      }));
+    }
+
+    if (pending == null) {
+      this.compact();
+      return CompletableFuture.completedFuture(null);
+    }
+
+    return CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).thenRun(this::compact);
+  }
+
+  /**
+   * Accept the result of a module for an input.
+   *
+   * @param pipeName    The name of the pipe the module is in.
+   * @param moduleIndex The index of the module within the pipe.
+   * @param start       The time the module started at, if the batch has {@link #contexts}.
+   * @param position    The position of the input in {@link #alive}.
+   * @param result      The result of the module.
+   */
+  private void accept(
+      @NonNull String pipeName,
+      int moduleIndex,
+      long start,
+      int position,
+      @NonNull PipeResult<?> result
+  ) {
+    final int index = this.alive[position];
+    this.moduleResults[index] = result;
+    if (this.contexts != null) {
+      this.contexts[index].moduleEnd(pipeName, moduleIndex, result, System.nanoTime() - start);
+    }
+    if (result.mayContinue()) {
+      this.values[index] = result.asOptional().orElse(null);
+    } else {
+      this.results[index] = SewerPipe.named(pipeName, result);
+    }
+  }
+
+  /**
+   * Drop every input which may no longer continue from {@link #alive}.
+   */
+  private void compact() {
+    int count = 0;
+    for (int i = 0; i < this.aliveCount; ++i) {
+      final int index = this.alive[i];
+      if (this.moduleResults[index].mayContinue()) {
+        this.alive[count++] = index;
+      }
+    }
+    this.aliveCount = count;
+  }
+}
@@ -0,0 +1,75 @@
+package com.proximyst.sewer;
+
+import com.proximyst.sewer.piping.PipeResult;
+import com.proximyst.sewer.piping.SuccessfulResult;
+import com.proximyst.sewer.util.SewerInternalUtilSneakyThrow;
+import com.proximyst.sewer.util.ThrowingFunction;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A module for a pipe which can process a whole batch of inputs at once.
+ * <p>
+ * When a batch is {@link SewerSystem#pumpAll(List) pumped}, every input still flowing is passed to {@link
+ * #flowAll(List)} in one call. When a single input is {@link SewerSystem#pump(Object) pumped}, it is passed as a batch
+ * of one.
+ *
+ * @param <Input>  The type to accept when flowing through the module.
+ * @param <Output> The type the module shall output.
+ * @see SewerSystem#pumpAll(List)
+ * @since 0.8.0
+ */
+@FunctionalInterface
+public interface BatchModule<Input, Output> extends Module<Input, Output> {
+  /**
+   * Create a new {@link BatchModule} that returns wrapped {@link Output}s immediately.
+   *
+   * @param function The function to apply to the batch of {@link Input}s. This may throw, and must return exactly one
+   *                 {@link Output} per {@link Input}, in the same order.
+   * @param <Input>  The input type to accept.
+   * @param <Output> The output type of the {@link ThrowingFunction}.
+   * @return A new {@link BatchModule} mapping its {@link Input}s through a {@link ThrowingFunction}.
+   */
+  @SuppressWarnings("deprecation") // Internal class warning.
+  static <Input, Output> @NonNull BatchModule<Input, Output> immediatelyWrapping(
+      @NonNull ThrowingFunction<@NonNull List<Input>, @NonNull List<Output>, ?> function
+  ) {
+    return inputs -> {
+      final List<Output> outputs;
+      try {
+        outputs = function.apply(inputs);
+      } catch (Throwable throwable) {
+        SewerInternalUtilSneakyThrow.sneakyThrow(throwable);
+        throw new RuntimeException();
+      }
+
+      final List<PipeResult<Output>> results = new ArrayList<>(outputs.size());
+      for (Output output : outputs) {
+        results.add(new SuccessfulResult<>(output));
+      }
+      return CompletableFuture.completedFuture(results);
+    };
+  }
+
+  /**
+   * Flow a batch of {@link Input inputs} through the module, resulting in one {@link Output} per input.
+   *
+   * @param inputs The inputs to this module.
+   * @return A future-wrapped list of results of an {@link Output}, with exactly one result per input in the same order
+   * as the inputs.
+   */
+  @NonNull CompletableFuture<@NonNull List<@NonNull PipeResult<Output>>> flowAll(@NonNull List<Input> inputs);
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * This flows the input as a batch of one.
+   */
+  @Override
+  default @NonNull CompletableFuture<PipeResult<Output>> flow(Input input) {
+    return this.flowAll(Collections.singletonList(input)).thenApply(results -> results.get(0));
+  }
+}
@@ -0,0 +1,92 @@
+package com.proximyst.sewer;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The default executor for {@link BlockingModule}s.
+ * <p>
+ * On Java 21 and newer, every blocking flow gets its own virtual thread. On older versions, blocking flows share a
+ * bounded pool of daemon threads.
+ *
+ * @since 0.8.0
+ */
+final class BlockingExecutor {
+  /**
+   * The maximum amount of threads in the fallback pool.
+   */
+  private static final int MAX_POOL_SIZE = Math.max(16, Runtime.getRuntime().availableProcessors() * 8);
+
+  private BlockingExecutor() throws IllegalAccessException {
+    throw new IllegalAccessException(getClass().getSimpleName() + " cannot be instantiated.");
+  }
+
+  /**
+   * @return The default executor for {@link BlockingModule}s.
+   */
+  static @NonNull ExecutorService getDefault() {
+    return Holder.INSTANCE;
+  }
+
+  /**
+   * Create a virtual thread per task executor, if the JVM supports virtual threads.
+   *
+   * @return A new virtual thread per task executor, or {@code null} if they are not supported.
+   */
+  private static @Nullable ExecutorService newVirtualThreadExecutor() {
+    try {
+      final MethodHandle factory = MethodHandles.publicLookup().findStatic(
+          Executors.class,
+          "newVirtualThreadPerTaskExecutor",
+          MethodType.methodType(ExecutorService.class)
+      );
+      return (ExecutorService) factory.invoke();
+    } catch (Throwable ignored) {
+      return null;
+    }
+  }
+
+  /**
+   * Create a bounded pool of daemon threads, whose threads time out when idle.
+   *
+   * @return A new bounded thread pool.
+   */
+  private static @NonNull ExecutorService newBoundedPool() {
+    final AtomicInteger threadId = new AtomicInteger();
+    final ThreadPoolExecutor pool = new ThreadPoolExecutor(
+        MAX_POOL_SIZE,
+        MAX_POOL_SIZE,
+        60L,
+        TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(),
+        runnable -> {
+          final Thread thread = new Thread(runnable, "sewer-blocking-" + threadId.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }
+    );
+    pool.allowCoreThreadTimeOut(true);
+    return pool;
+  }
+
+  /**
+   * Lazily creates the default executor on first use.
+   */
+  private static final class Holder {
+    private static final ExecutorService INSTANCE;
+
+    static {
+      final ExecutorService virtual = newVirtualThreadExecutor();
+      INSTANCE = virtual != null ? virtual : newBoundedPool();
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package com.proximyst.sewer;
+
+import com.proximyst.sewer.piping.PipeResult;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A module for a pipe which blocks the thread it flows on, such as one doing JDBC or HTTP calls.
+ * <p>
+ * Blocking modules never flow on the thread which pumps the system. Instead, they flow on the {@link
+ * SewerSystem.Builder#blockingExecutor(Executor) blocking executor} of the system, which by default uses virtual threads
+ * where available.
+ *
+ * @param <Input>  The type to accept when flowing through the module.
+ * @param <Output> The type the module shall output.
+ * @see Module#blocking(com.proximyst.sewer.util.ThrowingFunction)
+ * @since 0.8.0
+ */
+@FunctionalInterface
+public interface BlockingModule<Input, Output> extends Module<Input, Output> {
+  /**
+   * Flow the {@link Input input} through the module, blocking until it results in a {@link Output}.
+   *
+   * @param input The input to this module.
+   * @return The result of an {@link Output}.
+   * @throws Throwable Any throwable the module may throw.
+   */
+  @NonNull PipeResult<Output> flowBlocking(Input input) throws Throwable;
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * This flows on the default blocking executor.
+   *
+   * @see #flow(Object, Executor)
+   */
+  @Override
+  default @NonNull CompletableFuture<PipeResult<Output>> flow(Input input) {
+    return this.flow(input, BlockingExecutor.getDefault());
+  }
+
+  /**
+   * Flow the {@link Input input} through the module on the given executor, resulting in a {@link Output}.
+   *
+   * @param input    The input to this module.
+   * @param executor The executor to block on.
+   * @return A future-wrapped result of an {@link Output}.
+   */
+  default @NonNull CompletableFuture<PipeResult<Output>> flow(Input input, @NonNull Executor executor) {
+    final CompletableFuture<PipeResult<Output>> future = new CompletableFuture<>();
+    try {
+      executor.execute(() -> {
+        try {
+          future.complete(this.flowBlocking(input));
+        } catch (Throwable throwable) {
+          future.completeExceptionally(throwable);
+        }
+      });
+    } catch (Throwable throwable) {
+      future.completeExceptionally(throwable);
+    }
+    return future;
+  }
+}
@@ -0,0 +1,177 @@
+package com.proximyst.sewer;
+
+import com.proximyst.sewer.piping.NamedPipeResult;
+import com.proximyst.sewer.piping.PipeResult;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A stream of inputs being pumped through a {@link SewerSystem} with a bounded amount of pumps in flight.
+ * <p>
+ * Inputs are only pulled from the {@link Iterator} as earlier pumps complete. Pulling is serialised through a
+ * work-in-progress counter, such that the iterator is never used by more than one thread at a time, and that no thread
+ * blocks waiting on another.
+ *
+ * @param <Input>  The input type of the system.
+ * @param <Output> The output type of the system.
+ * @since 0.8.0
+ */
+final class BoundedPump<Input, Output> {
+  private final @NonNull SewerSystem<Input, Output> system;
+  private final @NonNull Iterator<? extends Input> inputs;
+  private final int maxInFlight;
+  private final @NonNull Consumer<? super NamedPipeResult<Output, ? extends PipeResult<Output>>> consumer;
+
+  /**
+   * The future completed once every input has been pumped and consumed.
+   */
+  private final @NonNull CompletableFuture<Void> completion = new CompletableFuture<>();
+
+  /**
+   * The amount of pumps currently in flight.
+   */
+  private final @NonNull AtomicInteger inFlight = new AtomicInteger();
+
+  /**
+   * The amount of times {@link #drain()} has been requested but not yet run.
+   */
+  private final @NonNull AtomicInteger workInProgress = new AtomicInteger();
+
+  /**
+   * Whether the inputs have been exhausted.
+   * <p>
+   * This is only accessed while draining.
+   */
+  private boolean exhausted;
+
+  /**
+   * The first failure of the iterator, the consumer, or a pump, if any.
+   */
+  private volatile @Nullable Throwable failure;
+
+  /**
+   * @param system      The system to pump the inputs through.
+   * @param inputs      The inputs to pump.
+   * @param maxInFlight The maximum amount of pumps in flight at any time.
+   * @param consumer    The consumer of every result.
+   */
+  BoundedPump(
+      @NonNull SewerSystem<Input, Output> system,
+      @NonNull Iterator<? extends Input> inputs,
+      int maxInFlight,
+      @NonNull Consumer<? super NamedPipeResult<Output, ? extends PipeResult<Output>>> consumer
+  ) {
+    if (maxInFlight < 1) {
+      throw new IllegalArgumentException("maxInFlight must be positive, but is " + maxInFlight);
+    }
+
+    this.system = system;
+    this.inputs = inputs;
+    this.maxInFlight = maxInFlight;
+    this.consumer = consumer;
+  }
+
+  /**
+   * Start pumping the inputs.
+   *
+   * @return A future completed once every input has been pumped and its result consumed.
+   */
+  @NonNull CompletableFuture<Void> start() {
+    this.drain();
+    return this.completion;
+  }
+
+  /**
+   * Pull and pump inputs for as long as there is room for more pumps in flight.
+   */
+  @SuppressWarnings("unchecked")
+  private void drain() {
+    if (this.workInProgress.getAndIncrement() != 0) {
+      return;
+    }
+
+    int missed = 1;
+    do {
+      while (!this.exhausted && this.inFlight.get() < this.maxInFlight) {
+        if (this.failure != null) {
+          this.exhausted = true;
+          break;
+        }
+
+        final Input input;
+        try {
+          if (!this.inputs.hasNext()) {
+            this.exhausted = true;
+            break;
+          }
+          input = this.inputs.next();
+        } catch (Throwable throwable) {
+          this.fail(throwable);
+          this.exhausted = true;
+          break;
+        }
+
+        this.inFlight.incrementAndGet();
+        final Object direct = this.system.pumpDirect(input);
+        if (direct instanceof CompletableFuture) {
+          ((CompletableFuture<NamedPipeResult<Output, ? extends PipeResult<Output>>>) direct)
+              .whenComplete(this::complete);
+        } else {
+          this.complete((NamedPipeResult<Output, ? extends PipeResult<Output>>) direct, null);
+        }
+      }
+
+      if (this.exhausted && this.inFlight.get() == 0) {
+        final Throwable failure = this.failure;
+        if (failure == null) {
+          this.completion.complete(null);
+        } else {
+          this.completion.completeExceptionally(failure);
+        }
+      }
+
+      missed = this.workInProgress.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  /**
+   * Consume the result of a pump, and make room for another.
+   *
+   * @param result    The result of the pump, if it did not fail.
+   * @param throwable The failure of the pump, if any.
+   */
+  private void complete(
+      @Nullable NamedPipeResult<Output, ? extends PipeResult<Output>> result,
+      @Nullable Throwable throwable
+  ) {
+    if (throwable != null) {
+      this.fail(throwable);
+    } else if (result != null) {
+      try {
+        synchronized (this) {
+          this.consumer.accept(result);
+        }
+      } catch (Throwable consumerThrowable) {
+        this.fail(consumerThrowable);
+      }
+    }
+
+    this.inFlight.decrementAndGet();
+    this.drain();
+  }
+
+  /**
+   * Record a failure, stopping any further inputs from being pulled.
+   *
+   * @param throwable The failure.
+   */
+  private void fail(@NonNull Throwable throwable) {
+    if (this.failure == null) {
+      this.failure = throwable;
+    }
+  }
+}
@@ -0,0 +1,287 @@
+package com.proximyst.sewer;
+
+import com.proximyst.sewer.cache.CacheStats;
+import com.proximyst.sewer.cache.SegmentedLruCache;
+import com.proximyst.sewer.piping.FilteredResult;
+import com.proximyst.sewer.piping.PipeResult;
+import com.proximyst.sewer.piping.ThrowingResult;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.common.returnsreceiver.qual.This;
+
+/**
+ * A module which memoizes the results of another module by its input, in a bounded {@link SegmentedLruCache}.
+ * <p>
+ * This is only meant for modules which are pure functions of their input, such as lookups and parsers. Inputs are
+ * compared by {@link Object#equals(Object)}. Concurrent flows of the same input which both miss the cache both flow
+ * through the module.
+ * <p>
+ * A cached {@link ImmediateModule} completes immediately itself, and is flowed as such by pipes.
+ *
+ * @param <Input>  The type to accept when flowing through the module.
+ * @param <Output> The type the module shall output.
+ * @see Module#cached(Module, int, Duration)
+ * @since 0.8.0
+ */
+public class CachedModule<Input, Output> extends DelegatingModule<Input, Output> {
+  private final @NonNull Module<Input, Output> module;
+  private final @NonNull SegmentedLruCache<Input, @NonNull PipeResult<Output>> cache;
+  private final boolean cacheFiltered;
+  private final boolean cacheThrowing;
+
+  private CachedModule(
+      @NonNull Module<Input, Output> module,
+      @NonNull SegmentedLruCache<Input, @NonNull PipeResult<Output>> cache,
+      boolean cacheFiltered,
+      boolean cacheThrowing
+  ) {
+    this.module = module;
+    this.cache = cache;
+    this.cacheFiltered = cacheFiltered;
+    this.cacheThrowing = cacheThrowing;
+  }
+
+  /**
+   * Create a new builder for a {@link CachedModule}.
+   *
+   * @param module   The module whose results to cache.
+   * @param <Input>  The input type of the module.
+   * @param <Output> The output type of the module.
+   * @return A new {@link Builder}.
+   */
+  public static <Input, Output> @NonNull Builder<Input, Output> builder(@NonNull Module<Input, Output> module) {
+    return new Builder<>(module);
+  }
+
+  /**
+   * Take a snapshot of the statistics of the cache.
+   *
+   * @return A snapshot of the statistics.
+   */
+  public @NonNull CacheStats getStats() {
+    return this.cache.stats();
+  }
+
+  /**
+   * Remove the cached result of an input, if any.
+   *
+   * @param input The input to remove the result of.
+   */
+  public void invalidate(Input input) {
+    this.cache.invalidate(input);
+  }
+
+  /**
+   * Remove every cached result.
+   */
+  public void invalidateAll() {
+    this.cache.invalidateAll();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * If the module is a {@link BlockingModule}, this flows on the default blocking executor.
+   */
+  @Override
+  public @NonNull CompletableFuture<PipeResult<Output>> flow(Input input) {
+    return this.flow(input, BlockingExecutor.getDefault(), CancellationToken.none());
+  }
+
+  /**
+   * Flow the {@link Input input} through the module, unless its result is already cached.
+   * <p>
+   * The module is never given the token, as its result is cached for other pumps too.
+   *
+   * @param input    The input to this module.
+   * @param blocking The executor to flow the module on if it is a {@link BlockingModule}.
+   * @param token    The token telling whether the pump has been cancelled.
+   * @return A future-wrapped result of an {@link Output}.
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  @NonNull CompletableFuture<PipeResult<Output>> flow(
+      Input input,
+      @NonNull Executor blocking,
+      @NonNull CancellationToken token
+  ) {
+    final PipeResult<Output> cached = this.cache.getIfPresent(input);
+    if (cached != null) {
+      return CompletableFuture.completedFuture(cached);
+    }
+
+    CompletableFuture<PipeResult<Output>> future;
+    try {
+      future = (CompletableFuture<PipeResult<Output>>) SewerPipe.flow(
+          this.module,
+          input,
+          blocking,
+          CancellationToken.none()
+      );
+    } catch (Throwable throwable) {
+      future = new CompletableFuture<>();
+      future.completeExceptionally(throwable);
+    }
+
+    if (future.isDone()) {
+      this.store(input, (PipeResult<Output>) SewerPipe.getDone(future));
+      return future;
+    }
+
+    future.whenComplete((result, throwable) ->
+        this.store(input, (PipeResult<Output>) SewerPipe.toResult(result, throwable)));
+    // Cancelling the pump must not cancel the module, as its result is cached for other pumps too.
+    return future.thenApply(Function.identity());
+  }
+
+  /**
+   * Flow the {@link Input input} through the module, which must be an {@link ImmediateModule}, unless its result is
+   * already cached.
+   *
+   * @param input The input to this module.
+   * @return The result of an {@link Output}.
+   */
+  @SuppressWarnings("unchecked")
+  private @NonNull PipeResult<Output> flowCached(Input input) {
+    final PipeResult<Output> cached = this.cache.getIfPresent(input);
+    if (cached != null) {
+      return cached;
+    }
+
+    PipeResult<Output> result;
+    try {
+      result = ((ImmediateModule<Input, Output>) this.module).flowImmediately(input);
+    } catch (Throwable throwable) {
+      result = new ThrowingResult<>(throwable);
+    }
+    this.store(input, result);
+    return result;
+  }
+
+  /**
+   * Cache the result of an input, if results of its kind are cached.
+   *
+   * @param input  The input to cache the result of.
+   * @param result The result of the input.
+   */
+  private void store(Input input, @NonNull PipeResult<Output> result) {
+    if (result.isSuccessful()
+        || (result instanceof ThrowingResult ? this.cacheThrowing : this.cacheFiltered)) {
+      this.cache.put(input, result);
+    }
+  }
+
+  /**
+   * A {@link CachedModule} of an {@link ImmediateModule}, which completes immediately itself.
+   *
+   * @param <Input>  The type to accept when flowing through the module.
+   * @param <Output> The type the module shall output.
+   */
+  private static final class Immediate<Input, Output> extends CachedModule<Input, Output>
+      implements ImmediateModule<Input, Output> {
+    private Immediate(
+        @NonNull ImmediateModule<Input, Output> module,
+        @NonNull SegmentedLruCache<Input, @NonNull PipeResult<Output>> cache,
+        boolean cacheFiltered,
+        boolean cacheThrowing
+    ) {
+      super(module, cache, cacheFiltered, cacheThrowing);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This only flows through the module if the result of the input is not already cached.
+     */
+    @Override
+    public @NonNull PipeResult<Output> flowImmediately(Input input) {
+      return super.flowCached(input);
+    }
+  }
+
+  /**
+   * A builder to create a new {@link CachedModule}.
+   *
+   * @param <Input>  The type to accept when flowing through the module.
+   * @param <Output> The type the module shall output.
+   */
+  public static final class Builder<Input, Output> {
+    private final @NonNull Module<Input, Output> module;
+    private int maxEntries = 1024;
+    private @Nullable Duration ttl;
+    private boolean cacheFiltered = true;
+    private boolean cacheThrowing;
+
+    private Builder(@NonNull Module<Input, Output> module) {
+      this.module = module;
+    }
+
+    /**
+     * Set the maximum amount of results to cache. This defaults to {@code 1024}.
+     *
+     * @param maxEntries The maximum amount of results to cache.
+     * @return This builder for chaining.
+     */
+    public @NonNull @This Builder<Input, Output> maxEntries(int maxEntries) {
+      this.maxEntries = maxEntries;
+      return this;
+    }
+
+    /**
+     * Set the time after which a cached result expires. By default, results never expire.
+     *
+     * @param ttl The time after which a result expires, or {@code null} if results never expire.
+     * @return This builder for chaining.
+     */
+    public @NonNull @This Builder<Input, Output> ttl(@Nullable Duration ttl) {
+      this.ttl = ttl;
+      return this;
+    }
+
+    /**
+     * Set whether {@link FilteredResult}s are cached. This defaults to {@code true}.
+     *
+     * @param cacheFiltered Whether filtered results are cached.
+     * @return This builder for chaining.
+     */
+    public @NonNull @This Builder<Input, Output> cacheFiltered(boolean cacheFiltered) {
+      this.cacheFiltered = cacheFiltered;
+      return this;
+    }
+
+    /**
+     * Set whether {@link ThrowingResult}s are cached. This defaults to {@code false}, as failures are often transient.
+     *
+     * @param cacheThrowing Whether throwing results are cached.
+     * @return This builder for chaining.
+     */
+    public @NonNull @This Builder<Input, Output> cacheThrowing(boolean cacheThrowing) {
+      this.cacheThrowing = cacheThrowing;
+      return this;
+    }
+
+    /**
+     * Build a new {@link CachedModule}.
+     *
+     * @return A new {@link CachedModule} caching the results of the module.
+     * @throws IllegalArgumentException If the maximum amount of results or the time to live is not positive.
+     */
+    public @NonNull CachedModule<Input, Output> build() {
+      final SegmentedLruCache<Input, @NonNull PipeResult<Output>> cache =
+          new SegmentedLruCache<>(this.maxEntries, this.ttl);
+      if (this.module instanceof ImmediateModule) {
+        return new Immediate<>(
+            (ImmediateModule<Input, Output>) this.module,
+            cache,
+            this.cacheFiltered,
+            this.cacheThrowing
+        );
+      }
+      return new CachedModule<>(this.module, cache, this.cacheFiltered, this.cacheThrowing);
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package com.proximyst.sewer;
+
+import com.proximyst.sewer.piping.PipeResult;
+import java.util.concurrent.CompletableFuture;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A module for a pipe which is told when the pump it flows in is cancelled.
+ * <p>
+ * Once a pump is cancelled, the future of the module flowing at the time is {@link CompletableFuture#cancel(boolean)
+ * cancelled}, and no later module or pipe is flowed through. A cancellable module may additionally use its {@link
+ * CancellationToken} to stop the work behind its future, such as an outgoing request.
+ *
+ * @param <Input>  The type to accept when flowing through the module.
+ * @param <Output> The type the module shall output.
+ * @since 0.8.0
+ */
+@FunctionalInterface
+public interface CancellableModule<Input, Output> extends Module<Input, Output> {
+  /**
+   * Flow the {@link Input input} through the module, resulting in a {@link Output}.
+   *
+   * @param input The input to this module.
+   * @param token The token telling whether the pump has been cancelled.
+   * @return A future-wrapped result of an {@link Output}.
+   */
+  @NonNull CompletableFuture<PipeResult<Output>> flow(Input input, @NonNull CancellationToken token);
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * This flows with a token which is {@link CancellationToken#none() never cancelled}.
+   */
+  @Override
+  default @NonNull CompletableFuture<PipeResult<Output>> flow(Input input) {
+    return this.flow(input, CancellationToken.none());
+  }
+}
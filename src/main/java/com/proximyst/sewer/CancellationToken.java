@@ -0,0 +1,70 @@
+package com.proximyst.sewer;
+
+import java.util.concurrent.CancellationException;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.dataflow.qual.Pure;
+
+/**
+ * A token telling a {@link CancellableModule} whether the pump it flows in has been cancelled.
+ * <p>
+ * A pump is cancelled once the future returned by {@link SewerSystem#pump(Object)} is {@link
+ * java.util.concurrent.CompletableFuture#cancel(boolean) cancelled}, or once it times out. Modules may check the token
+ * between steps of long work, or register a callback to abort work in flight, such as an outgoing request.
+ *
+ * @since 0.8.0
+ */
+public interface CancellationToken {
+  /**
+   * Get a token which is never cancelled, for modules flowing outside of a cancellable pump.
+   *
+   * @return A token which is never cancelled.
+   */
+  static @NonNull CancellationToken none() {
+    return NeverCancelled.INSTANCE;
+  }
+
+  /**
+   * @return Whether the pump has been cancelled.
+   */
+  boolean isCancelled();
+
+  /**
+   * Register a callback to run once the pump is cancelled.
+   * <p>
+   * If the pump has already been cancelled, the callback runs right away on the calling thread. Otherwise, it runs on
+   * the thread cancelling the pump, and must therefore be short and never block. Callbacks of pumps which are never
+   * cancelled never run, and are dropped with the pump.
+   *
+   * @param callback The callback to run.
+   */
+  void onCancel(@NonNull Runnable callback);
+
+  /**
+   * Throw if the pump has been cancelled, to abort a module at a convenient point.
+   *
+   * @throws CancellationException If the pump has been cancelled.
+   */
+  default void throwIfCancelled() throws CancellationException {
+    if (this.isCancelled()) {
+      throw new CancellationException("pump was cancelled");
+    }
+  }
+
+  /**
+   * The token of flows which can never be cancelled.
+   */
+  enum NeverCancelled implements CancellationToken {
+    INSTANCE;
+
+    @Override
+    @Pure
+    public boolean isCancelled() {
+      return false;
+    }
+
+    @Override
+    public void onCancel(@NonNull Runnable callback) {
+      // Never cancelled, so the callback never runs.
+    }
+  }
+}
@@ -0,0 +1,534 @@
+package com.proximyst.sewer;
+
+import com.proximyst.sewer.piping.PipeResult;
+import com.proximyst.sewer.piping.RejectedResult;
+import com.proximyst.sewer.piping.ThrowingResult;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.common.returnsreceiver.qual.This;
+
+/**
+ * A circuit breaker, which stops flowing through a failing {@link SewerPipe} or {@link Module} for a while, such that
+ * flows fail fast instead of waiting for a failing dependency.
+ * <p>
+ * While {@link State#CLOSED closed}, the outcome of every flow is counted in a sliding window of time. Once enough
+ * flows in the window have failed, the breaker {@link State#OPEN opens}, and every flow results in a {@link
+ * RejectedResult} right away, without flowing through anything. After the open duration, the breaker is {@link
+ * State#HALF_OPEN half-open}, letting a few probing flows through: if they all succeed, the breaker closes again, and
+ * if any fails, it opens again. Probes which have not all completed within another open duration are given up on, and
+ * the breaker opens again rather than waiting on them forever.
+ * <p>
+ * The window is a ring of buckets, each a single {@code long} updated with compare-and-set, and the state is swapped
+ * with compare-and-set, so no flow ever takes a lock. A breaker may be shared by several pipes or modules, which then
+ * open and close together.
+ *
+ * @see SewerPipe.Builder#circuitBreaker(CircuitBreaker)
+ * @see Module#circuitBreaking(Module, CircuitBreaker)
+ * @since 0.8.0
+ */
+public final class CircuitBreaker {
+  /**
+   * The result of every flow while the breaker is open. Rejected results are immutable, so this is shared.
+   */
+  private static final @NonNull RejectedResult<?> OPEN_RESULT = new RejectedResult<>("circuit breaker is open");
+
+  /**
+   * The bits of a bucket counting either successes or failures, saturating at their maximum.
+   */
+  private static final int COUNT_BITS = 22;
+  private static final long COUNT_MASK = (1L << COUNT_BITS) - 1L;
+
+  /**
+   * The bits of a bucket holding the epoch it counts, being the index of its span of time. Only the lowest bits of the
+   * epoch are kept, which is enough to tell whether a bucket is within the window.
+   */
+  private static final int EPOCH_SHIFT = 2 * COUNT_BITS;
+  private static final long EPOCH_MASK = (1L << (Long.SIZE - EPOCH_SHIFT)) - 1L;
+
+  private final double failureRateThreshold;
+  private final int minimumFlows;
+  private final long bucketNanos;
+  private final int buckets;
+  private final long openNanos;
+  private final int probes;
+  private final @NonNull Predicate<? super PipeResult<?>> failureIf;
+
+  /**
+   * The time epochs of the window are counted from.
+   */
+  private final long originNanos = System.nanoTime();
+
+  private final @NonNull AtomicReference<@NonNull Phase> phase;
+
+  private final @NonNull LongAdder shortCircuited = new LongAdder();
+
+  private CircuitBreaker(
+      double failureRateThreshold,
+      int minimumFlows,
+      long bucketNanos,
+      int buckets,
+      long openNanos,
+      int probes,
+      @NonNull Predicate<? super PipeResult<?>> failureIf
+  ) {
+    this.failureRateThreshold = failureRateThreshold;
+    this.minimumFlows = minimumFlows;
+    this.bucketNanos = bucketNanos;
+    this.buckets = buckets;
+    this.openNanos = openNanos;
+    this.probes = probes;
+    this.failureIf = failureIf;
+    this.phase = new AtomicReference<>(new Phase(State.CLOSED, this.originNanos, buckets));
+  }
+
+  /**
+   * Create a new builder for a {@link CircuitBreaker}.
+   *
+   * @return A new {@link Builder}.
+   */
+  public static @NonNull Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * @return The current state of the breaker.
+   */
+  public @NonNull State getState() {
+    final Phase phase = this.phase.get();
+    if (phase.state == State.OPEN && System.nanoTime() - phase.sinceNanos >= this.openNanos) {
+      // The next flow will probe.
+      return State.HALF_OPEN;
+    }
+    if (phase.state == State.HALF_OPEN && this.isStuck(phase, System.nanoTime())) {
+      // The next flow will open the breaker again.
+      return State.OPEN;
+    }
+    return phase.state;
+  }
+
+  /**
+   * @return The fraction of flows in the sliding window which failed, or {@code 0} if the breaker is not closed or no
+   * flows are in the window.
+   */
+  public double getFailureRate() {
+    final Phase phase = this.phase.get();
+    if (phase.window == null) {
+      return 0.0;
+    }
+
+    final long window = this.sum(phase.window, this.epoch(System.nanoTime()));
+    final long failures = CircuitBreaker.failures(window);
+    final long flows = failures + CircuitBreaker.successes(window);
+    return flows == 0L ? 0.0 : (double) failures / flows;
+  }
+
+  /**
+   * @return The amount of flows which were rejected without flowing, as the breaker was open.
+   */
+  public long getShortCircuited() {
+    return this.shortCircuited.sum();
+  }
+
+  /**
+   * Ask the breaker to let a flow through.
+   * <p>
+   * A flow which is let through must {@link #release(Object, PipeResult) release} the returned permit once done.
+   *
+   * @return The permit of the flow, or {@code null} if the breaker is open and the flow must be rejected.
+   */
+  @Nullable Object tryAcquire() {
+    for (; ; ) {
+      Phase phase = this.phase.get();
+      if (phase.state == State.CLOSED) {
+        return phase;
+      }
+
+      if (phase.state == State.OPEN) {
+        final long now = System.nanoTime();
+        if (now - phase.sinceNanos < this.openNanos) {
+          this.shortCircuited.increment();
+          return null;
+        }
+
+        final Phase halfOpen = new Phase(State.HALF_OPEN, now, 0);
+        if (!this.phase.compareAndSet(phase, halfOpen)) {
+          continue;
+        }
+        phase = halfOpen;
+      }
+
+      int probing = phase.probing.get();
+      while (probing < this.probes) {
+        if (phase.probing.compareAndSet(probing, probing + 1)) {
+          return phase;
+        }
+        probing = phase.probing.get();
+      }
+
+      final long now = System.nanoTime();
+      if (this.isStuck(phase, now)) {
+        this.phase.compareAndSet(phase, new Phase(State.OPEN, now, 0));
+      }
+      this.shortCircuited.increment();
+      return null;
+    }
+  }
+
+  /**
+   * Check whether a half-open phase has waited on its probes for too long, such that it must open again. Probes which
+   * never complete would otherwise keep the breaker half-open forever.
+   *
+   * @param phase The half-open phase.
+   * @param now   The current time, in {@link System#nanoTime() nanoseconds}.
+   * @return Whether every probe has been let through, and the phase is older than the open duration.
+   */
+  private boolean isStuck(@NonNull Phase phase, long now) {
+    return phase.probing.get() >= this.probes && now - phase.sinceNanos >= this.openNanos;
+  }
+
+  /**
+   * Release the permit of a flow, and count its outcome.
+   * <p>
+   * Cancelled flows count as neither a success nor a failure, and flows let through before the last change of state
+   * are not counted at all.
+   *
+   * @param permit The permit of the flow, as returned by {@link #tryAcquire()}.
+   * @param result The result of the flow.
+   */
+  void release(@NonNull Object permit, @NonNull PipeResult<?> result) {
+    final Phase phase = (Phase) permit;
+    if (this.phase.get() != phase) {
+      return;
+    }
+
+    if (result instanceof ThrowingResult
+        && ((ThrowingResult<?>) result).getThrowable() instanceof CancellationException) {
+      if (phase.state == State.HALF_OPEN) {
+        // Let another flow probe in its place.
+        phase.probing.decrementAndGet();
+      }
+      return;
+    }
+
+    final boolean failed = this.failureIf.test(result);
+    final long now = System.nanoTime();
+    if (phase.state == State.HALF_OPEN) {
+      if (failed) {
+        this.phase.compareAndSet(phase, new Phase(State.OPEN, now, 0));
+      } else if (phase.succeeded.incrementAndGet() >= this.probes) {
+        this.phase.compareAndSet(phase, new Phase(State.CLOSED, now, this.buckets));
+      }
+      return;
+    }
+
+    final AtomicLongArray window = phase.window;
+    if (window == null) {
+      return;
+    }
+    final long epoch = this.epoch(now);
+    this.count(window, epoch, failed);
+    if (!failed) {
+      return;
+    }
+
+    final long sum = this.sum(window, epoch);
+    final long failures = CircuitBreaker.failures(sum);
+    final long flows = failures + CircuitBreaker.successes(sum);
+    if (flows >= this.minimumFlows && failures >= this.failureRateThreshold * flows) {
+      this.phase.compareAndSet(phase, new Phase(State.OPEN, now, 0));
+    }
+  }
+
+  /**
+   * Get the result of a flow rejected by the breaker.
+   *
+   * @param <T> The output type of the flow.
+   * @return The result of a flow rejected as the breaker is open.
+   */
+  @SuppressWarnings("unchecked")
+  static <T> @NonNull RejectedResult<T> rejected() {
+    return (RejectedResult<T>) OPEN_RESULT;
+  }
+
+  /**
+   * @param nanos A time, in {@link System#nanoTime() nanoseconds}.
+   * @return The epoch of the bucket counting flows at the time.
+   */
+  private long epoch(long nanos) {
+    return (nanos - this.originNanos) / this.bucketNanos;
+  }
+
+  /**
+   * Count the outcome of a flow in the bucket of an epoch, resetting the bucket if it last counted an older epoch.
+   *
+   * @param window The buckets of the window.
+   * @param epoch  The epoch of the flow.
+   * @param failed Whether the flow failed.
+   */
+  private void count(@NonNull AtomicLongArray window, long epoch, boolean failed) {
+    final int index = (int) (epoch % this.buckets);
+    final long tag = (epoch & EPOCH_MASK) << EPOCH_SHIFT;
+    for (; ; ) {
+      final long bucket = window.get(index);
+      long failures = 0L;
+      long successes = 0L;
+      // A bucket of an older epoch is started over.
+      if ((bucket >>> EPOCH_SHIFT) == (epoch & EPOCH_MASK)) {
+        failures = CircuitBreaker.failures(bucket);
+        successes = CircuitBreaker.successes(bucket);
+      }
+      if (failed) {
+        failures = Math.min(COUNT_MASK, failures + 1L);
+      } else {
+        successes = Math.min(COUNT_MASK, successes + 1L);
+      }
+
+      if (window.compareAndSet(index, bucket, tag | failures << COUNT_BITS | successes)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Sum the buckets of a window within the current span of time.
+   *
+   * @param window The buckets of the window.
+   * @param epoch  The current epoch.
+   * @return The summed failures and successes, packed like a bucket without an epoch.
+   */
+  private long sum(@NonNull AtomicLongArray window, long epoch) {
+    long failures = 0L;
+    long successes = 0L;
+    for (int i = 0; i < this.buckets; ++i) {
+      final long bucket = window.get(i);
+      final long age = ((epoch & EPOCH_MASK) - (bucket >>> EPOCH_SHIFT)) & EPOCH_MASK;
+      if (bucket != 0L && age < this.buckets) {
+        failures += CircuitBreaker.failures(bucket);
+        successes += CircuitBreaker.successes(bucket);
+      }
+    }
+    return Math.min(COUNT_MASK, failures) << COUNT_BITS | Math.min(COUNT_MASK, successes);
+  }
+
+  private static long failures(long bucket) {
+    return (bucket >>> COUNT_BITS) & COUNT_MASK;
+  }
+
+  private static long successes(long bucket) {
+    return bucket & COUNT_MASK;
+  }
+
+  /**
+   * Check whether a result is a {@link ThrowingResult}.
+   *
+   * @param result The result to check.
+   * @return Whether the result counts as a failure by default.
+   */
+  private static boolean isThrowing(@NonNull PipeResult<?> result) {
+    return result instanceof ThrowingResult;
+  }
+
+  /**
+   * Convert a duration to nanoseconds.
+   *
+   * @param name     The name of the duration, for errors.
+   * @param duration The duration to convert.
+   * @return The duration in nanoseconds.
+   * @throws IllegalArgumentException If the duration is not positive.
+   */
+  private static long toNanos(@NonNull String name, @NonNull Duration duration) {
+    if (duration.isNegative() || duration.isZero()) {
+      throw new IllegalArgumentException(name + " must be positive, but is " + duration);
+    }
+
+    return SewerPipe.toNanos(duration);
+  }
+
+  /**
+   * The state of a {@link CircuitBreaker}.
+   */
+  public enum State {
+    /**
+     * Every flow is let through, and its outcome is counted.
+     */
+    CLOSED,
+
+    /**
+     * Every flow is rejected right away.
+     */
+    OPEN,
+
+    /**
+     * A few flows are let through to probe whether the failures have passed.
+     */
+    HALF_OPEN
+  }
+
+  /**
+   * A state of the breaker, along with what is counted while in it. Every change of state swaps in a new phase, such
+   * that flows let through in an earlier one are not counted.
+   */
+  private static final class Phase {
+    private final @NonNull State state;
+    private final long sinceNanos;
+
+    /**
+     * The sliding window of outcomes, if {@link State#CLOSED closed}.
+     */
+    private final @Nullable AtomicLongArray window;
+
+    /**
+     * The amount of probing flows let through, and which succeeded, if {@link State#HALF_OPEN half-open}.
+     */
+    private final @NonNull AtomicInteger probing = new AtomicInteger();
+    private final @NonNull AtomicInteger succeeded = new AtomicInteger();
+
+    private Phase(@NonNull State state, long sinceNanos, int buckets) {
+      this.state = state;
+      this.sinceNanos = sinceNanos;
+      this.window = buckets == 0 ? null : new AtomicLongArray(buckets);
+    }
+  }
+
+  /**
+   * A builder to create a new {@link CircuitBreaker}.
+   */
+  public static final class Builder {
+    private double failureRateThreshold = 0.5;
+    private int minimumFlows = 20;
+    private long windowNanos = Duration.ofSeconds(10L).toNanos();
+    private int buckets = 10;
+    private long openNanos = Duration.ofSeconds(5L).toNanos();
+    private int probes = 3;
+    private @NonNull Predicate<? super PipeResult<?>> failureIf = CircuitBreaker::isThrowing;
+
+    private Builder() {
+    }
+
+    /**
+     * Set the fraction of flows in the window which must fail for the breaker to open. This defaults to {@code 0.5}.
+     *
+     * @param failureRateThreshold The fraction of failed flows to open at.
+     * @return This builder for chaining.
+     * @throws IllegalArgumentException If {@code failureRateThreshold} is not more than {@code 0} and at most {@code
+     *                                  1}.
+     */
+    public @NonNull @This Builder failureRateThreshold(double failureRateThreshold) {
+      if (!(failureRateThreshold > 0.0 && failureRateThreshold <= 1.0)) {
+        throw new IllegalArgumentException(
+            "failureRateThreshold must be more than 0 and at most 1, but is " + failureRateThreshold
+        );
+      }
+
+      this.failureRateThreshold = failureRateThreshold;
+      return this;
+    }
+
+    /**
+     * Set the amount of flows which must be in the window before the breaker may open. This defaults to {@code 20}.
+     *
+     * @param minimumFlows The least amount of flows to judge the failure rate by.
+     * @return This builder for chaining.
+     * @throws IllegalArgumentException If {@code minimumFlows} is not positive.
+     */
+    public @NonNull @This Builder minimumFlows(int minimumFlows) {
+      if (minimumFlows < 1) {
+        throw new IllegalArgumentException("minimumFlows must be positive, but is " + minimumFlows);
+      }
+
+      this.minimumFlows = minimumFlows;
+      return this;
+    }
+
+    /**
+     * Set the sliding window of time failures are counted in. This defaults to 10 seconds, in 10 buckets.
+     * <p>
+     * The window slides by one bucket at a time; more buckets make it slide more smoothly, at the cost of summing more
+     * of them on every failure.
+     *
+     * @param window  The span of time to count failures in.
+     * @param buckets The amount of buckets to split the window into.
+     * @return This builder for chaining.
+     * @throws IllegalArgumentException If the window is shorter than the amount of buckets in nanoseconds, or {@code
+     *                                  buckets} is not positive.
+     */
+    public @NonNull @This Builder window(@NonNull Duration window, int buckets) {
+      if (buckets < 1) {
+        throw new IllegalArgumentException("buckets must be positive, but is " + buckets);
+      }
+      final long windowNanos = CircuitBreaker.toNanos("window", window);
+      if (windowNanos < buckets) {
+        throw new IllegalArgumentException("window must be at least " + buckets + " nanoseconds, but is " + window);
+      }
+
+      this.windowNanos = windowNanos;
+      this.buckets = buckets;
+      return this;
+    }
+
+    /**
+     * Set how long the breaker stays open before probing. This defaults to 5 seconds.
+     *
+     * @param openDuration The time to reject flows for once open.
+     * @return This builder for chaining.
+     * @throws IllegalArgumentException If {@code openDuration} is not positive.
+     */
+    public @NonNull @This Builder openDuration(@NonNull Duration openDuration) {
+      this.openNanos = CircuitBreaker.toNanos("openDuration", openDuration);
+      return this;
+    }
+
+    /**
+     * Set the amount of probing flows let through while half-open, all of which must succeed to close the breaker.
+     * This defaults to {@code 3}.
+     *
+     * @param probes The amount of probing flows.
+     * @return This builder for chaining.
+     * @throws IllegalArgumentException If {@code probes} is not positive.
+     */
+    public @NonNull @This Builder probes(int probes) {
+      if (probes < 1) {
+        throw new IllegalArgumentException("probes must be positive, but is " + probes);
+      }
+
+      this.probes = probes;
+      return this;
+    }
+
+    /**
+     * Set which results count as failures. By default, {@link ThrowingResult}s do, including timeouts; cancelled flows
+     * are never counted.
+     *
+     * @param failureIf The predicate of the results which are failures.
+     * @return This builder for chaining.
+     */
+    public @NonNull @This Builder failureIf(@NonNull Predicate<? super PipeResult<?>> failureIf) {
+      this.failureIf = failureIf;
+      return this;
+    }
+
+    /**
+     * Build a new {@link CircuitBreaker}.
+     *
+     * @return A new {@link CircuitBreaker}.
+     */
+    public @NonNull CircuitBreaker build() {
+      return new CircuitBreaker(
+          this.failureRateThreshold,
+          this.minimumFlows,
+          this.windowNanos / this.buckets,
+          this.buckets,
+          this.openNanos,
+          this.probes,
+          this.failureIf
+      );
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package com.proximyst.sewer;
+
+import com.proximyst.sewer.piping.PipeResult;
+import com.proximyst.sewer.piping.RejectedResult;
+import com.proximyst.sewer.piping.ThrowingResult;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A module which flows through another module only while its {@link CircuitBreaker} lets it, and otherwise results in
+ * a {@link RejectedResult} right away.
+ *
+ * @param <Input>  The type to accept when flowing through the module.
+ * @param <Output> The type the module shall output.
+ * @see Module#circuitBreaking(Module, CircuitBreaker)
+ * @since 0.8.0
+ */
+public final class CircuitBreakingModule<Input, Output> extends DelegatingModule<Input, Output> {
+  private final @NonNull Module<Input, Output> module;
+  private final @NonNull CircuitBreaker breaker;
+
+  /**
+   * @param module  The module to flow through.
+   * @param breaker The breaker guarding the module.
+   */
+  CircuitBreakingModule(@NonNull Module<Input, Output> module, @NonNull CircuitBreaker breaker) {
+    this.module = module;
+    this.breaker = breaker;
+  }
+
+  /**
+   * @return The module guarded by this module.
+   */
+  public @NonNull Module<Input, Output> getModule() {
+    return this.module;
+  }
+
+  /**
+   * @return The breaker guarding the module.
+   */
+  public @NonNull CircuitBreaker getBreaker() {
+    return this.breaker;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * If the module is a {@link BlockingModule}, it flows on the default blocking executor.
+   */
+  @Override
+  public @NonNull CompletableFuture<PipeResult<Output>> flow(Input input) {
+    return this.flow(input, BlockingExecutor.getDefault(), CancellationToken.none());
+  }
+
+  /**
+   * Flow the {@link Input input} through the module, unless the breaker is open.
+   *
+   * @param input    The input to the module.
+   * @param blocking The executor to flow the module on if it is a {@link BlockingModule}.
+   * @param token    The token telling whether the pump has been cancelled.
+   * @return A future-wrapped result of an {@link Output}, which is a {@link RejectedResult} if the breaker is open.
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  @NonNull CompletableFuture<PipeResult<Output>> flow(
+      Input input,
+      @NonNull Executor blocking,
+      @NonNull CancellationToken token
+  ) {
+    final Object permit = this.breaker.tryAcquire();
+    if (permit == null) {
+      return CompletableFuture.completedFuture(CircuitBreaker.rejected());
+    }
+
+    CompletableFuture<PipeResult<Output>> future;
+    try {
+      future = (CompletableFuture<PipeResult<Output>>) SewerPipe.flow(this.module, input, blocking, token);
+    } catch (Throwable throwable) {
+      future = CompletableFuture.completedFuture(new ThrowingResult<>(throwable));
+    }
+
+    if (future.isDone()) {
+      this.breaker.release(permit, SewerPipe.getDone(future));
+    } else {
+      future.whenComplete((result, throwable) -> this.breaker.release(permit, SewerPipe.toResult(result, throwable)));
+    }
+    return future;
+  }
+}
@@ -0,0 +1,106 @@
+package com.proximyst.sewer;
+
+import com.proximyst.sewer.piping.NamedPipeResult;
+import com.proximyst.sewer.piping.PipeResult;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A {@link PipelineListener} dispatching to several listeners, each with their own correlation token.
+ *
+ * @since 0.8.0
+ */
+final class CompositePipelineListener implements PipelineListener {
+  private final @NonNull PipelineListener @NonNull [] listeners;
+
+  /**
+   * @param listeners The listeners to dispatch to, in order.
+   */
+  CompositePipelineListener(@NonNull PipelineListener @NonNull [] listeners) {
+    this.listeners = listeners;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @return The correlation tokens of every listener, in order.
+   */
+  @Override
+  public @NonNull Object onPumpStart(@Nullable Object input) {
+    final Object[] tokens = new Object[this.listeners.length];
+    for (int i = 0; i < this.listeners.length; ++i) {
+      try {
+        tokens[i] = this.listeners[i].onPumpStart(input);
+      } catch (Throwable ignored) {
+      }
+    }
+    return tokens;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onPipeStart(@Nullable Object token, @NonNull String pipeName, @Nullable Object input) {
+    final Object[] tokens = (Object[]) token;
+    for (int i = 0; i < this.listeners.length; ++i) {
+      try {
+        this.listeners[i].onPipeStart(tokens[i], pipeName, input);
+      } catch (Throwable ignored) {
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onModuleEnd(
+      @Nullable Object token,
+      @NonNull String pipeName,
+      int moduleIndex,
+      @NonNull PipeResult<?> result,
+      long nanos
+  ) {
+    final Object[] tokens = (Object[]) token;
+    for (int i = 0; i < this.listeners.length; ++i) {
+      try {
+        this.listeners[i].onModuleEnd(tokens[i], pipeName, moduleIndex, result, nanos);
+      } catch (Throwable ignored) {
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onPipeEnd(
+      @Nullable Object token,
+      @NonNull String pipeName,
+      @NonNull NamedPipeResult<?, ?> result,
+      long nanos
+  ) {
+    final Object[] tokens = (Object[]) token;
+    for (int i = 0; i < this.listeners.length; ++i) {
+      try {
+        this.listeners[i].onPipeEnd(tokens[i], pipeName, result, nanos);
+      } catch (Throwable ignored) {
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onPumpEnd(@Nullable Object token, @NonNull NamedPipeResult<?, ?> result, long nanos) {
+    final Object[] tokens = (Object[]) token;
+    for (int i = 0; i < this.listeners.length; ++i) {
+      try {
+        this.listeners[i].onPumpEnd(tokens[i], result, nanos);
+      } catch (Throwable ignored) {
+      }
+    }
+  }
+}
@@ -0,0 +1,384 @@
+package com.proximyst.sewer;
+
+import com.proximyst.sewer.piping.PipeResult;
+import com.proximyst.sewer.piping.RejectedResult;
+import com.proximyst.sewer.piping.ThrowingResult;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.common.returnsreceiver.qual.This;
+
+/**
+ * An adaptive limit on the amount of flows through a {@link SewerPipe} in flight at once, driven by their latency.
+ * <p>
+ * The limit follows a gradient of latencies: the latency of every flow is compared to a slowly moving baseline of
+ * latencies. While flows are about as fast as the baseline, the limit grows by about its square root, probing for
+ * more throughput; once flows slow down, as a downstream service starts queueing, the limit shrinks in proportion.
+ * Flows resulting in a {@link ThrowingResult}, such as timeouts, shrink the limit by a fixed ratio. This keeps the
+ * amount of flows in flight close to the knee of the latency curve, where throughput is high and latency has not yet
+ * collapsed.
+ * <p>
+ * Permits are taken and returned with compare-and-set on a single counter. Flows over the limit wait in a lock-free
+ * queue of a bounded size, and are started as permits are returned; once the queue is full, flows are rejected right
+ * away with a {@link RejectedResult}. A limit is stateful, and must only be used by a single pipe.
+ *
+ * @see SewerPipe.Builder#concurrencyLimit(ConcurrencyLimit)
+ * @since 0.8.0
+ */
+public final class ConcurrencyLimit {
+  private final int minLimit;
+  private final int maxLimit;
+  private final double tolerance;
+  private final double backoffRatio;
+  private final double smoothing;
+  private final int maxQueued;
+
+  /**
+   * The current limit, as the bits of a {@code double}, such that it can adapt by fractions.
+   */
+  private final @NonNull AtomicLong limit;
+
+  /**
+   * The baseline latency flows are compared to, in nanoseconds, or {@code 0} before the first sample.
+   * <p>
+   * This is an approximate average; racing samples may overwrite each other.
+   */
+  private volatile long baselineNanos;
+
+  private final @NonNull AtomicInteger inFlight = new AtomicInteger();
+
+  /**
+   * The flows waiting for a permit.
+   */
+  private final @NonNull ConcurrentLinkedQueue<@NonNull Runnable> queue = new ConcurrentLinkedQueue<>();
+  private final @NonNull AtomicInteger queued = new AtomicInteger();
+
+  /**
+   * The amount of threads which asked to {@link #drain()} the queue. Only the thread raising it from {@code 0} drains.
+   */
+  private final @NonNull AtomicInteger draining = new AtomicInteger();
+
+  private final @NonNull LongAdder rejected = new LongAdder();
+
+  private ConcurrencyLimit(
+      int initialLimit,
+      int minLimit,
+      int maxLimit,
+      double tolerance,
+      double backoffRatio,
+      double smoothing,
+      int maxQueued
+  ) {
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.tolerance = tolerance;
+    this.backoffRatio = backoffRatio;
+    this.smoothing = smoothing;
+    this.maxQueued = maxQueued;
+    this.limit = new AtomicLong(Double.doubleToRawLongBits(initialLimit));
+  }
+
+  /**
+   * Create a new builder for a {@link ConcurrencyLimit}.
+   *
+   * @return A new {@link Builder}.
+   */
+  public static @NonNull Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * @return The current amount of flows allowed in flight at once.
+   */
+  public int getLimit() {
+    return (int) Double.longBitsToDouble(this.limit.get());
+  }
+
+  /**
+   * @return The amount of flows in flight.
+   */
+  public int getInFlight() {
+    return this.inFlight.get();
+  }
+
+  /**
+   * @return The amount of flows waiting for a permit.
+   */
+  public int getQueued() {
+    return this.queued.get();
+  }
+
+  /**
+   * @return The amount of flows rejected as both the limit and the queue were full.
+   */
+  public long getRejected() {
+    return this.rejected.sum();
+  }
+
+  /**
+   * Take a permit, unless the limit has been reached.
+   *
+   * @return Whether a permit was taken.
+   */
+  boolean tryAcquire() {
+    final int limit = this.getLimit();
+    int inFlight = this.inFlight.get();
+    while (inFlight < limit) {
+      if (this.inFlight.compareAndSet(inFlight, inFlight + 1)) {
+        return true;
+      }
+      inFlight = this.inFlight.get();
+    }
+    return false;
+  }
+
+  /**
+   * Queue a flow to start once it gets a permit, unless the queue is full.
+   * <p>
+   * The flow is run holding a permit, which it must {@link #release(long, PipeResult) release} once done.
+   *
+   * @param flow The flow to start.
+   * @return Whether the flow was queued; if not, it was rejected.
+   */
+  boolean enqueue(@NonNull Runnable flow) {
+    for (; ; ) {
+      final int queued = this.queued.get();
+      if (queued >= this.maxQueued) {
+        this.rejected.increment();
+        return false;
+      }
+      if (this.queued.compareAndSet(queued, queued + 1)) {
+        break;
+      }
+    }
+
+    this.queue.add(flow);
+    // A permit may have been returned before the flow was queued.
+    this.drain();
+    return true;
+  }
+
+  /**
+   * Return a permit, adapting the limit to the outcome of its flow, and start a queued flow if there is one.
+   *
+   * @param startNanos The time the flow started at, in {@link System#nanoTime() nanoseconds}.
+   * @param result     The result of the flow, or {@code null} if it failed without one.
+   */
+  void release(long startNanos, @Nullable PipeResult<?> result) {
+    this.sample(System.nanoTime() - startNanos, result == null || result instanceof ThrowingResult);
+    this.inFlight.decrementAndGet();
+    if (!this.queue.isEmpty()) {
+      this.drain();
+    }
+  }
+
+  /**
+   * Return a permit without adapting the limit, such as for a queued flow which was cancelled before it started.
+   */
+  void releaseUnsampled() {
+    this.inFlight.decrementAndGet();
+    if (!this.queue.isEmpty()) {
+      this.drain();
+    }
+  }
+
+  /**
+   * Start queued flows for as long as there are permits.
+   * <p>
+   * Flows which release their permit while being started do not drain recursively, but make the draining thread loop
+   * again instead.
+   */
+  private void drain() {
+    if (this.draining.getAndIncrement() != 0) {
+      return;
+    }
+
+    int missed = 1;
+    do {
+      while (!this.queue.isEmpty() && this.tryAcquire()) {
+        final Runnable flow = this.queue.poll();
+        if (flow == null) {
+          this.inFlight.decrementAndGet();
+          break;
+        }
+
+        this.queued.decrementAndGet();
+        try {
+          flow.run();
+        } catch (Throwable ignored) {
+          // Queued flows handle their own failures; this only guards the draining thread.
+        }
+      }
+      missed = this.draining.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  /**
+   * Adapt the limit to the latency of a flow.
+   *
+   * @param nanos   The latency of the flow, in nanoseconds.
+   * @param dropped Whether the flow failed, in which case the limit shrinks regardless of its latency.
+   */
+  private void sample(long nanos, boolean dropped) {
+    final long rtt = Math.max(1L, nanos);
+    final long baseline = this.baselineNanos;
+    if (baseline == 0L) {
+      // Nothing to compare the first flow to.
+      this.baselineNanos = rtt;
+      return;
+    }
+    if (!dropped) {
+      // The baseline follows faster flows quickly, and slower ones slowly, such that load does not become the norm.
+      this.baselineNanos = baseline + (rtt - baseline) / (rtt < baseline ? 8 : 128);
+    }
+
+    for (; ; ) {
+      final long bits = this.limit.get();
+      final double limit = Double.longBitsToDouble(bits);
+      double next;
+      if (dropped) {
+        next = limit * this.backoffRatio;
+      } else {
+        final double gradient = Math.max(0.5, Math.min(1.0, this.tolerance * baseline / rtt));
+        next = limit * gradient + Math.sqrt(limit);
+        next = limit * (1.0 - this.smoothing) + next * this.smoothing;
+        // A limit which is not being used tells nothing about the capacity downstream.
+        if (next > limit && this.inFlight.get() < limit / 2.0) {
+          return;
+        }
+      }
+
+      next = Math.max(this.minLimit, Math.min(this.maxLimit, next));
+      if (next == limit || this.limit.compareAndSet(bits, Double.doubleToRawLongBits(next))) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * A builder to create a new {@link ConcurrencyLimit}.
+   */
+  public static final class Builder {
+    private int initialLimit = 20;
+    private int minLimit = 1;
+    private int maxLimit = 1_000;
+    private double tolerance = 1.5;
+    private double backoffRatio = 0.9;
+    private double smoothing = 0.2;
+    private int maxQueued;
+
+    private Builder() {
+    }
+
+    /**
+     * Set the bounds of the limit, and the limit to start at. This defaults to starting at {@code 20}, between {@code
+     * 1} and {@code 1000}.
+     *
+     * @param initialLimit The limit to start at.
+     * @param minLimit     The lowest the limit may shrink to.
+     * @param maxLimit     The highest the limit may grow to.
+     * @return This builder for chaining.
+     * @throws IllegalArgumentException If {@code minLimit} is not positive, or the limits are not in order.
+     */
+    public @NonNull @This Builder limits(int initialLimit, int minLimit, int maxLimit) {
+      if (minLimit < 1) {
+        throw new IllegalArgumentException("minLimit must be positive, but is " + minLimit);
+      }
+      if (initialLimit < minLimit || initialLimit > maxLimit) {
+        throw new IllegalArgumentException(
+            "initialLimit must be between " + minLimit + " and " + maxLimit + ", but is " + initialLimit
+        );
+      }
+
+      this.initialLimit = initialLimit;
+      this.minLimit = minLimit;
+      this.maxLimit = maxLimit;
+      return this;
+    }
+
+    /**
+     * Set how much slower than the baseline flows may be before the limit shrinks. This defaults to {@code 1.5}.
+     *
+     * @param tolerance The ratio of the latency of a flow to the baseline latency which is tolerated.
+     * @return This builder for chaining.
+     * @throws IllegalArgumentException If {@code tolerance} is less than {@code 1}.
+     */
+    public @NonNull @This Builder tolerance(double tolerance) {
+      if (!(tolerance >= 1.0)) {
+        throw new IllegalArgumentException("tolerance must be at least 1, but is " + tolerance);
+      }
+
+      this.tolerance = tolerance;
+      return this;
+    }
+
+    /**
+     * Set the ratio the limit shrinks by when a flow fails. This defaults to {@code 0.9}.
+     *
+     * @param backoffRatio The ratio to multiply the limit by for every failed flow.
+     * @return This builder for chaining.
+     * @throws IllegalArgumentException If {@code backoffRatio} is not between {@code 0.5} and {@code 1}.
+     */
+    public @NonNull @This Builder backoffRatio(double backoffRatio) {
+      if (!(backoffRatio >= 0.5 && backoffRatio <= 1.0)) {
+        throw new IllegalArgumentException("backoffRatio must be between 0.5 and 1, but is " + backoffRatio);
+      }
+
+      this.backoffRatio = backoffRatio;
+      return this;
+    }
+
+    /**
+     * Set how far the limit moves towards the gradient of every flow. This defaults to {@code 0.2}.
+     *
+     * @param smoothing The fraction of the change suggested by a flow to apply, where {@code 1} applies all of it.
+     * @return This builder for chaining.
+     * @throws IllegalArgumentException If {@code smoothing} is not more than {@code 0} and at most {@code 1}.
+     */
+    public @NonNull @This Builder smoothing(double smoothing) {
+      if (!(smoothing > 0.0 && smoothing <= 1.0)) {
+        throw new IllegalArgumentException("smoothing must be more than 0 and at most 1, but is " + smoothing);
+      }
+
+      this.smoothing = smoothing;
+      return this;
+    }
+
+    /**
+     * Set the maximum amount of flows waiting for a permit. This defaults to {@code 0}, rejecting every flow over the
+     * limit right away.
+     *
+     * @param maxQueued The maximum amount of waiting flows.
+     * @return This builder for chaining.
+     * @throws IllegalArgumentException If {@code maxQueued} is negative.
+     */
+    public @NonNull @This Builder maxQueued(int maxQueued) {
+      if (maxQueued < 0) {
+        throw new IllegalArgumentException("maxQueued must not be negative, but is " + maxQueued);
+      }
+
+      this.maxQueued = maxQueued;
+      return this;
+    }
+
+    /**
+     * Build a new {@link ConcurrencyLimit}.
+     *
+     * @return A new {@link ConcurrencyLimit}.
+     */
+    public @NonNull ConcurrencyLimit build() {
+      return new ConcurrencyLimit(
+          this.initialLimit,
+          this.minLimit,
+          this.maxLimit,
+          this.tolerance,
+          this.backoffRatio,
+          this.smoothing,
+          this.maxQueued
+      );
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package com.proximyst.sewer;
+
+import com.proximyst.sewer.piping.PipeResult;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A module which flows inputs through other modules, and therefore needs the blocking executor and cancellation token
+ * of the pipe flowing it to hand on to them.
+ * <p>
+ * This is the single extension point {@link SewerPipe} dispatches to for such modules, rather than checking for every
+ * kind of them. It is a class rather than an interface so that the flow stays internal to the package.
+ *
+ * @param <Input>  The type to accept when flowing through the module.
+ * @param <Output> The type the module shall output.
+ * @since 0.8.0
+ */
+abstract class DelegatingModule<Input, Output> implements Module<Input, Output> {
+  /**
+   * Flow the {@link Input input} through the module, handing the executor and token on to the modules it flows.
+   *
+   * @param input    The input to the module.
+   * @param blocking The executor to flow modules on if they are {@link BlockingModule}s.
+   * @param token    The token telling whether the pump has been cancelled.
+   * @return A future-wrapped result of an {@link Output}.
+   */
+  abstract @NonNull CompletableFuture<PipeResult<Output>> flow(
+      Input input,
+      @NonNull Executor blocking,
+      @NonNull CancellationToken token
+  );
+}
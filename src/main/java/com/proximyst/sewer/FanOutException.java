@@ -0,0 +1,50 @@
+package com.proximyst.sewer;
+
+import com.proximyst.sewer.piping.PipeResult;
+import com.proximyst.sewer.piping.ThrowingResult;
+import java.util.Collections;
+import java.util.List;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.dataflow.qual.Pure;
+
+/**
+ * The exception of a {@link FanOutModule} whose branches could not be joined into a result.
+ * <p>
+ * The result of every branch is kept, and the throwable of every {@link ThrowingResult throwing} branch is {@link
+ * #getSuppressed() suppressed} by this exception.
+ *
+ * @see FanOutJoin
+ * @since 0.8.0
+ */
+public final class FanOutException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The result of every branch, in branch order, or {@code null} for branches which had not completed.
+   */
+  private final transient @NonNull List<@Nullable PipeResult<?>> branchResults;
+
+  /**
+   * @param message       The message of the exception.
+   * @param branchResults The result of every branch, in branch order, or {@code null} for branches which had not
+   *                      completed.
+   */
+  public FanOutException(@NonNull String message, @NonNull List<? extends @Nullable PipeResult<?>> branchResults) {
+    super(message);
+    this.branchResults = Collections.unmodifiableList(branchResults);
+    for (PipeResult<?> result : branchResults) {
+      if (result instanceof ThrowingResult) {
+        this.addSuppressed(((ThrowingResult<?>) result).getThrowable());
+      }
+    }
+  }
+
+  /**
+   * @return The result of every branch, in branch order, or {@code null} for branches which had not completed.
+   */
+  @Pure
+  public @NonNull List<@Nullable PipeResult<?>> getBranchResults() {
+    return this.branchResults;
+  }
+}
@@ -0,0 +1,149 @@
+package com.proximyst.sewer;
+
+import com.proximyst.sewer.piping.PipeResult;
+import com.proximyst.sewer.piping.SuccessfulResult;
+import com.proximyst.sewer.piping.ThrowingResult;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A strategy to join the results of the branches of a {@link FanOutModule} into a single result.
+ * <p>
+ * The strategy is asked to join every time a branch completes, and may complete the module before every branch has
+ * completed. Once it returns a result, it is not asked again, and the results of later branches are discarded. Calls
+ * for the same flow never overlap.
+ *
+ * @param <Branch> The output type of the branches.
+ * @param <Output> The output type of the joined result.
+ * @see Module#fanOut(FanOutJoin, Module[])
+ * @since 0.8.0
+ */
+@FunctionalInterface
+public interface FanOutJoin<Branch, Output> {
+  /**
+   * Create a join which waits for every branch, and succeeds with all of their outputs if every branch succeeded.
+   * <p>
+   * If some branch threw, the result is a {@link ThrowingResult} of a {@link FanOutException} with the result of every
+   * branch. If no branch threw but some branch was filtered, the result is a {@link
+   * com.proximyst.sewer.piping.FilteredResult FilteredResult}.
+   *
+   * @param <Branch> The output type of the branches.
+   * @return A new join of every branch.
+   */
+  static <Branch> @NonNull FanOutJoin<Branch, @NonNull List<Branch>> all() {
+    return (results, completed) -> {
+      if (completed < results.size()) {
+        return null;
+      }
+
+      final List<Branch> outputs = new ArrayList<>(results.size());
+      for (PipeResult<Branch> result : results) {
+        if (!result.isSuccessful()) {
+          return FanOutModule.failure("not every branch succeeded", results);
+        }
+        outputs.add(result.asOptional().orElse(null));
+      }
+      return new SuccessfulResult<>(outputs);
+    };
+  }
+
+  /**
+   * Create a join which succeeds with the output of the first branch to succeed, without waiting for the others.
+   * <p>
+   * If no branch succeeds, the result is as per {@link #all()}.
+   *
+   * @param <Branch> The output type of the branches.
+   * @return A new join of the first successful branch.
+   */
+  static <Branch> @NonNull FanOutJoin<Branch, Branch> firstSuccess() {
+    return (results, completed) -> {
+      for (PipeResult<Branch> result : results) {
+        if (result != null && result.isSuccessful()) {
+          return result;
+        }
+      }
+
+      return completed < results.size() ? null : FanOutModule.failure("no branch succeeded", results);
+    };
+  }
+
+  /**
+   * Create a join which succeeds once a quorum of branches have succeeded, without waiting for the others.
+   * <p>
+   * The output holds the output of every branch which had succeeded by then, in branch order. If too many branches
+   * fail for a quorum to be reached, the result is as per {@link #all()}.
+   *
+   * @param quorum   The amount of branches which must succeed.
+   * @param <Branch> The output type of the branches.
+   * @return A new join of a quorum of branches.
+   * @throws IllegalArgumentException If the quorum is not positive.
+   */
+  static <Branch> @NonNull FanOutJoin<Branch, @NonNull List<Branch>> quorum(int quorum) {
+    if (quorum < 1) {
+      throw new IllegalArgumentException("quorum must be positive, but is " + quorum);
+    }
+
+    return (results, completed) -> {
+      int succeeded = 0;
+      for (PipeResult<Branch> result : results) {
+        if (result != null && result.isSuccessful()) {
+          ++succeeded;
+        }
+      }
+
+      if (succeeded >= quorum) {
+        final List<Branch> outputs = new ArrayList<>(succeeded);
+        for (PipeResult<Branch> result : results) {
+          if (result != null && result.isSuccessful()) {
+            outputs.add(result.asOptional().orElse(null));
+          }
+        }
+        return new SuccessfulResult<>(outputs);
+      }
+
+      // The branches which have not completed may still reach the quorum.
+      if (succeeded + results.size() - completed >= quorum) {
+        return null;
+      }
+      return FanOutModule.failure("only " + succeeded + " of " + quorum + " branches succeeded", results);
+    };
+  }
+
+  /**
+   * Create a join which waits for every branch, and combines their results with a function.
+   *
+   * @param combiner The function to combine the result of every branch, in branch order. This may throw.
+   * @param <Branch> The output type of the branches.
+   * @param <Output> The output type of the combined result.
+   * @return A new join combining every branch.
+   */
+  static <Branch, Output> @NonNull FanOutJoin<Branch, Output> combining(
+      @NonNull Function<? super @NonNull List<@NonNull PipeResult<Branch>>, ? extends PipeResult<Output>> combiner
+  ) {
+    return (results, completed) -> {
+      if (completed < results.size()) {
+        return null;
+      }
+
+      try {
+        return combiner.apply(results);
+      } catch (Throwable throwable) {
+        return new ThrowingResult<>(throwable);
+      }
+    };
+  }
+
+  /**
+   * Try to join the results of the branches which have completed so far.
+   *
+   * @param results   The result of every branch, in branch order, or {@code null} for branches which have not
+   *                  completed. This is a live view, and must be copied to be kept.
+   * @param completed The amount of branches which have completed.
+   * @return The joined result, or {@code null} to wait for more branches. This must not be {@code null} once every
+   * branch has completed.
+   */
+  @Nullable PipeResult<Output> join(@NonNull List<@Nullable PipeResult<Branch>> results, int completed);
+}
@@ -0,0 +1,201 @@
+package com.proximyst.sewer;
+
+import com.proximyst.sewer.piping.FilteredResult;
+import com.proximyst.sewer.piping.PipeResult;
+import com.proximyst.sewer.piping.ThrowingResult;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A module which flows its input through several branch modules at once, and joins their results with a {@link
+ * FanOutJoin}.
+ * <p>
+ * Every branch is started before any is waited for, so a flow takes as long as the branches the join waits for, rather
+ * than the sum of every branch. Branches which complete immediately are called directly on the flowing thread.
+ * Cancelling the flow cancels the futures of every branch still in flight.
+ *
+ * @param <Input>  The type to accept when flowing through the module.
+ * @param <Branch> The output type of the branches.
+ * @param <Output> The type the module shall output.
+ * @see Module#fanOut(FanOutJoin, Module[])
+ * @see Module#parallel(Module[])
+ * @since 0.8.0
+ */
+public final class FanOutModule<Input, Branch, Output> extends DelegatingModule<Input, Output> {
+  private final @NonNull List<@NonNull Module<Input, ? extends Branch>> branches;
+  private final @NonNull FanOutJoin<Branch, Output> join;
+
+  /**
+   * @param join     The strategy to join the results of the branches with.
+   * @param branches The modules to flow every input through, which is owned by the module from now on.
+   * @throws IllegalArgumentException If there are no branches.
+   */
+  FanOutModule(
+      @NonNull FanOutJoin<Branch, Output> join,
+      @NonNull List<@NonNull Module<Input, ? extends Branch>> branches
+  ) {
+    if (branches.isEmpty()) {
+      throw new IllegalArgumentException("a fan-out needs at least one branch");
+    }
+
+    this.join = join;
+    this.branches = Collections.unmodifiableList(branches);
+  }
+
+  /**
+   * @return The modules every input flows through, in branch order.
+   */
+  public @NonNull List<@NonNull Module<Input, ? extends Branch>> getBranches() {
+    return this.branches;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Branches which are {@link BlockingModule}s flow on the default blocking executor.
+   */
+  @Override
+  public @NonNull CompletableFuture<PipeResult<Output>> flow(Input input) {
+    return this.flow(input, BlockingExecutor.getDefault(), CancellationToken.none());
+  }
+
+  /**
+   * Flow the {@link Input input} through every branch, and join their results.
+   *
+   * @param input    The input to every branch.
+   * @param blocking The executor to flow branches on if they are {@link BlockingModule}s.
+   * @param token    The token to give branches which are {@link CancellableModule}s.
+   * @return A future-wrapped joined result of an {@link Output}.
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  @NonNull CompletableFuture<PipeResult<Output>> flow(
+      Input input,
+      @NonNull Executor blocking,
+      @NonNull CancellationToken token
+  ) {
+    final Flow flow = new Flow();
+    CompletableFuture<?> @Nullable [] inFlight = null;
+    final int branches = this.branches.size();
+    for (int i = 0; i < branches && !flow.future.isDone(); ++i) {
+      CompletableFuture<? extends PipeResult<?>> future;
+      try {
+        future = SewerPipe.flow(this.branches.get(i), input, blocking, token);
+      } catch (Throwable throwable) {
+        flow.complete(i, new ThrowingResult<>(throwable));
+        continue;
+      }
+
+      final int branch = i;
+      if (future.isDone()) {
+        flow.complete(branch, (PipeResult<Branch>) SewerPipe.getDone(future));
+      } else {
+        if (inFlight == null) {
+          inFlight = new CompletableFuture<?>[branches];
+        }
+        inFlight[branch] = future;
+        future.whenComplete((result, throwable) ->
+            flow.complete(branch, (PipeResult<Branch>) SewerPipe.toResult(result, throwable)));
+      }
+    }
+
+    if (inFlight != null && !flow.future.isDone()) {
+      final CompletableFuture<?>[] branchFutures = inFlight;
+      flow.future.whenComplete((result, throwable) -> {
+        if (throwable instanceof CancellationException) {
+          for (CompletableFuture<?> future : branchFutures) {
+            if (future != null) {
+              future.cancel(true);
+            }
+          }
+        }
+      });
+    }
+    return flow.future;
+  }
+
+  /**
+   * Create the result of branches which could not be joined.
+   *
+   * @param message  The message of the exception, if some branch threw.
+   * @param results  The result of every branch, or {@code null} for branches which have not completed.
+   * @param <Output> The output type of the joined result.
+   * @return A {@link ThrowingResult} of a {@link FanOutException} if some branch threw, or a {@link FilteredResult}.
+   */
+  static <Output> @NonNull PipeResult<Output> failure(
+      @NonNull String message,
+      @NonNull List<? extends @Nullable PipeResult<?>> results
+  ) {
+    for (PipeResult<?> result : results) {
+      if (result instanceof ThrowingResult) {
+        return new ThrowingResult<>(new FanOutException(message, new ArrayList<>(results)));
+      }
+    }
+    return new FilteredResult<>();
+  }
+
+  /**
+   * The state of a single flow, collecting the results of its branches until they are joined.
+   */
+  private final class Flow {
+    private final @NonNull CompletableFuture<PipeResult<Output>> future = new CompletableFuture<>();
+
+    /**
+     * The result of every branch, or {@code null} for those which have not completed.
+     * <p>
+     * This is guarded by its own monitor, as branches complete on any thread.
+     */
+    private final @NonNull List<@Nullable PipeResult<Branch>> results;
+
+    /**
+     * The read-only view of {@link #results} given to the join.
+     */
+    private final @NonNull List<@Nullable PipeResult<Branch>> view;
+
+    private int completed;
+    private boolean joined;
+
+    private Flow() {
+      this.results = new ArrayList<>(Collections.nCopies(FanOutModule.this.branches.size(), null));
+      this.view = Collections.unmodifiableList(this.results);
+    }
+
+    /**
+     * Record the result of a branch, and complete the flow if the join has a result.
+     *
+     * @param branch The index of the branch.
+     * @param result The result of the branch.
+     */
+    private void complete(int branch, @NonNull PipeResult<Branch> result) {
+      PipeResult<Output> joinedResult;
+      synchronized (this.results) {
+        if (this.joined) {
+          return;
+        }
+
+        this.results.set(branch, result);
+        ++this.completed;
+        try {
+          joinedResult = FanOutModule.this.join.join(this.view, this.completed);
+        } catch (Throwable throwable) {
+          joinedResult = new ThrowingResult<>(throwable);
+        }
+        if (joinedResult == null && this.completed == this.results.size()) {
+          joinedResult = new ThrowingResult<>(new NullPointerException("join returned no result for every branch"));
+        }
+        if (joinedResult == null) {
+          return;
+        }
+        this.joined = true;
+      }
+
+      this.future.complete(joinedResult);
+    }
+  }
+}
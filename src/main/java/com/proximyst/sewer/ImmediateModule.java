@@ -0,0 +1,47 @@
+package com.proximyst.sewer;
+
+import com.proximyst.sewer.piping.PipeResult;
+import com.proximyst.sewer.util.SewerInternalUtilSneakyThrow;
+import java.util.concurrent.CompletableFuture;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A module for a pipe which always completes immediately.
+ * <p>
+ * Pipes and systems call {@link #flowImmediately(Object)} directly rather than going through a {@link
+ * CompletableFuture}, which lets pipelines consisting of only immediate modules run as plain method calls.
+ *
+ * @param <Input>  The type to accept when flowing through the module.
+ * @param <Output> The type the module shall output.
+ * @see Module#immediately(com.proximyst.sewer.util.ThrowingFunction)
+ * @see Module#immediatelyWrapping(com.proximyst.sewer.util.ThrowingFunction)
+ * @see Module#filtering(java.util.function.Predicate)
+ * @since 0.8.0
+ */
+@FunctionalInterface
+public interface ImmediateModule<Input, Output> extends Module<Input, Output> {
+  /**
+   * Flow the {@link Input input} through the module, immediately resulting in a {@link Output}.
+   *
+   * @param input The input to this module.
+   * @return The result of an {@link Output}.
+   * @throws Throwable Any throwable the module may throw.
+   */
+  @NonNull PipeResult<Output> flowImmediately(Input input) throws Throwable;
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * This always returns a {@link CompletableFuture#completedFuture completed future}.
+   */
+  @Override
+  @SuppressWarnings("deprecation") // Internal class warning.
+  default @NonNull CompletableFuture<PipeResult<Output>> flow(Input input) {
+    try {
+      return CompletableFuture.completedFuture(this.flowImmediately(input));
+    } catch (Throwable throwable) {
+      SewerInternalUtilSneakyThrow.sneakyThrow(throwable);
+      throw new RuntimeException();
+    }
+  }
+}
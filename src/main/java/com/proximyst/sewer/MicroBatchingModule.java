@@ -0,0 +1,262 @@
+package com.proximyst.sewer;
+
+import com.proximyst.sewer.piping.PipeResult;
+import com.proximyst.sewer.util.SewerInternalUtilTimer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A module which collects the inputs of separate flows into batches, and flows every batch through a {@link
+ * BatchModule} at once.
+ * <p>
+ * A batch is flushed once it holds {@link #getMaxSize() enough inputs}, on the thread adding the last input, or once
+ * the {@link #getMaxDelay() delay} since it was started has passed, on the {@link ForkJoinPool#commonPool() common
+ * pool}. Every flow then completes with the result of its own input.
+ * <p>
+ * Inputs are added to a batch without locking: every flow claims a slot of the batch with a single atomic increment,
+ * and the last flow to finish writing its slot after the batch is closed flushes it.
+ *
+ * @param <Input>  The type to accept when flowing through the module.
+ * @param <Output> The type the module shall output.
+ * @see Module#microBatched(BatchModule, int, Duration)
+ * @since 0.8.0
+ */
+public final class MicroBatchingModule<Input, Output> implements Module<Input, Output> {
+  private final @NonNull BatchModule<Input, Output> batchModule;
+  private final int maxSize;
+  private final @NonNull Duration maxDelay;
+  private final long maxDelayNanos;
+
+  /**
+   * The batch collecting inputs, or {@code null} if no flow has started one since the last was closed.
+   */
+  private final @NonNull AtomicReference<@Nullable Batch> collecting = new AtomicReference<>();
+
+  private final @NonNull LongAdder batches = new LongAdder();
+
+  /**
+   * @param batchModule The module to flow every batch through.
+   * @param maxSize     The maximum amount of inputs in a batch.
+   * @param maxDelay    The maximum time an input waits for its batch to be flushed.
+   * @throws IllegalArgumentException If {@code maxSize} or {@code maxDelay} is not positive.
+   */
+  MicroBatchingModule(@NonNull BatchModule<Input, Output> batchModule, int maxSize, @NonNull Duration maxDelay) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("maxSize must be positive, but is " + maxSize);
+    }
+    if (maxDelay.isNegative() || maxDelay.isZero()) {
+      throw new IllegalArgumentException("maxDelay must be positive, but is " + maxDelay);
+    }
+
+    this.batchModule = batchModule;
+    this.maxSize = maxSize;
+    this.maxDelay = maxDelay;
+    this.maxDelayNanos = SewerPipe.toNanos(maxDelay);
+  }
+
+  /**
+   * @return The module every batch is flowed through.
+   */
+  public @NonNull BatchModule<Input, Output> getBatchModule() {
+    return this.batchModule;
+  }
+
+  /**
+   * @return The maximum amount of inputs in a batch.
+   */
+  public int getMaxSize() {
+    return this.maxSize;
+  }
+
+  /**
+   * @return The maximum time an input waits for its batch to be flushed.
+   */
+  public @NonNull Duration getMaxDelay() {
+    return this.maxDelay;
+  }
+
+  /**
+   * @return The amount of batches flushed so far.
+   */
+  public long getFlushedBatches() {
+    return this.batches.sum();
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The input is added to the batch being collected, and the returned future completes once the batch has flowed.
+   */
+  @Override
+  public @NonNull CompletableFuture<PipeResult<Output>> flow(Input input) {
+    final Entry<Input, Output> entry = new Entry<>(input);
+    for (; ; ) {
+      Batch batch = this.collecting.get();
+      if (batch == null) {
+        batch = new Batch(this.maxSize);
+        if (!this.collecting.compareAndSet(null, batch)) {
+          continue;
+        }
+        this.schedule(batch);
+      }
+
+      final int slot = batch.claimed.getAndIncrement();
+      if (slot >= this.maxSize) {
+        // The batch is closed; make room for a new one.
+        this.collecting.compareAndSet(batch, null);
+        continue;
+      }
+
+      batch.entries[slot] = entry;
+      if (batch.unwritten.decrementAndGet() == 0) {
+        this.flush(batch);
+      }
+      if (slot == this.maxSize - 1) {
+        this.close(batch);
+      }
+      return entry.future;
+    }
+  }
+
+  /**
+   * Close a batch once the delay since it was started has passed, unless it has been closed already.
+   *
+   * @param batch The batch which was just started.
+   */
+  @SuppressWarnings("deprecation") // Internal class warning.
+  private void schedule(@NonNull Batch batch) {
+    // The timer thread must not flow, so the batch is closed on the common pool.
+    SewerInternalUtilTimer.schedule(
+        () -> {
+          if (batch.closed.get()) {
+            return;
+          }
+          try {
+            ForkJoinPool.commonPool().execute(() -> this.close(batch));
+          } catch (RejectedExecutionException ex) {
+            this.close(batch);
+          }
+        },
+        this.maxDelayNanos,
+        TimeUnit.NANOSECONDS
+    );
+  }
+
+  /**
+   * Stop a batch from collecting any more inputs, and flush it if every claimed slot has been written.
+   *
+   * @param batch The batch to close.
+   */
+  private void close(@NonNull Batch batch) {
+    if (!batch.closed.compareAndSet(false, true)) {
+      return;
+    }
+
+    this.collecting.compareAndSet(batch, null);
+    // Every later claim is past the end of the batch.
+    final int size = Math.min(this.maxSize, batch.claimed.getAndAdd(this.maxSize));
+    batch.size = size;
+    if (batch.unwritten.addAndGet(size) == 0) {
+      this.flush(batch);
+    }
+  }
+
+  /**
+   * Flow a closed batch through the batch module, and complete the future of every input with its own result.
+   *
+   * @param batch The batch to flush, whose slots have all been written.
+   */
+  @SuppressWarnings("unchecked")
+  private void flush(@NonNull Batch batch) {
+    final int size = batch.size;
+    if (size == 0) {
+      return;
+    }
+
+    this.batches.increment();
+    final List<Input> inputs = new ArrayList<>(size);
+    for (int i = 0; i < size; ++i) {
+      inputs.add(((Entry<Input, Output>) batch.entries[i]).input);
+    }
+
+    CompletableFuture<? extends List<? extends PipeResult<Output>>> future;
+    try {
+      future = this.batchModule.flowAll(inputs);
+    } catch (Throwable throwable) {
+      future = new CompletableFuture<>();
+      future.completeExceptionally(throwable);
+    }
+
+    future.whenComplete((outputs, throwable) -> {
+      if (throwable == null && (outputs == null || outputs.size() != size)) {
+        throwable = new IllegalStateException(
+            "batch module returned " + (outputs == null ? "null" : outputs.size()) + " results for " + size + " inputs"
+        );
+      }
+      for (int i = 0; i < size; ++i) {
+        ((Entry<Input, Output>) batch.entries[i]).future.complete((PipeResult<Output>) (throwable == null
+            ? SewerPipe.toResult(outputs.get(i), null)
+            : SewerPipe.toResult(null, throwable)));
+      }
+    });
+  }
+
+  /**
+   * An input waiting in a batch, along with the future of its result.
+   *
+   * @param <Input>  The type of the input.
+   * @param <Output> The type the module shall output.
+   */
+  private static final class Entry<Input, Output> {
+    private final Input input;
+    private final @NonNull CompletableFuture<PipeResult<Output>> future = new CompletableFuture<>();
+
+    private Entry(Input input) {
+      this.input = input;
+    }
+  }
+
+  /**
+   * A batch of inputs being collected.
+   */
+  private static final class Batch {
+    /**
+     * The entries of the batch, by slot. Writes are published by decrementing {@link #unwritten}.
+     */
+    private final @Nullable Object @NonNull [] entries;
+
+    /**
+     * The amount of slots claimed, which may exceed the size of the batch once it is closed.
+     */
+    private final @NonNull AtomicInteger claimed = new AtomicInteger();
+
+    /**
+     * The amount of claimed slots not yet written, less the size of the batch until it is closed. The batch is flushed
+     * by whichever thread brings this to {@code 0}.
+     */
+    private final @NonNull AtomicInteger unwritten = new AtomicInteger();
+
+    private final @NonNull AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * The amount of inputs in the batch, set once it is closed.
+     */
+    private volatile int size;
+
+    private Batch(int maxSize) {
+      this.entries = new Object[maxSize];
+    }
+  }
+}
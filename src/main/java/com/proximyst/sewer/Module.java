@@ -3,12 +3,15 @@ package com.proximyst.sewer;
 import com.proximyst.sewer.piping.FilteredResult;
 import com.proximyst.sewer.piping.PipeResult;
 import com.proximyst.sewer.piping.SuccessfulResult;
-import com.proximyst.sewer.util.SewerInternalUtilSneakyThrow;
 import com.proximyst.sewer.util.ThrowingFunction;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * A module for a pipe.
@@ -27,18 +30,10 @@ public interface Module<Input, Output> {
    * @param <Output> The output type of the {@link ThrowingFunction}.
    * @return A new {@link Module} mapping its {@link Input} through a {@link ThrowingFunction}.
    */
-  @SuppressWarnings("deprecation") // Internal class warning.
   static <Input, Output> @NonNull Module<Input, Output> immediately(
       @NonNull ThrowingFunction<Input, @NonNull PipeResult<Output>, ?> function
   ) {
-    return in -> {
-      try {
-        return CompletableFuture.completedFuture(function.apply(in));
-      } catch (Throwable throwable) {
-        SewerInternalUtilSneakyThrow.sneakyThrow(throwable);
-        throw new RuntimeException();
-      }
-    };
+    return (ImmediateModule<Input, Output>) function::apply;
   }
 
   /**
@@ -49,18 +44,174 @@ public interface Module<Input, Output> {
    * @param <Output> The output type of the {@link ThrowingFunction}.
    * @return A new {@link Module} mapping its {@link Input} through a {@link ThrowingFunction}.
    */
-  @SuppressWarnings("deprecation") // Internal class warning.
   static <Input, Output> @NonNull Module<Input, Output> immediatelyWrapping(
       @NonNull ThrowingFunction<Input, Output, ?> function
   ) {
-    return in -> {
-      try {
-        return CompletableFuture.completedFuture(new SuccessfulResult<>(function.apply(in)));
-      } catch (Throwable throwable) {
-        SewerInternalUtilSneakyThrow.sneakyThrow(throwable);
-        throw new RuntimeException();
-      }
-    };
+    return (ImmediateModule<Input, Output>) in -> new SuccessfulResult<>(function.apply(in));
+  }
+
+  /**
+   * Create a new {@link Module} that returns a wrapped {@link Output} from a function which blocks.
+   * <p>
+   * The function never runs on the thread which pumps the system, but on the {@link
+   * SewerSystem.Builder#blockingExecutor(java.util.concurrent.Executor) blocking executor} of the system. By default,
+   * that runs every call on its own virtual thread on Java 21 and newer, and on a bounded pool of threads otherwise.
+   *
+   * @param function The blocking function to apply to the {@link Input}. This may throw.
+   * @param <Input>  The input type to accept.
+   * @param <Output> The output type of the {@link ThrowingFunction}.
+   * @return A new {@link BlockingModule} mapping its {@link Input} through a {@link ThrowingFunction}.
+   * @since 0.8.0
+   */
+  static <Input, Output> @NonNull BlockingModule<Input, Output> blocking(
+      @NonNull ThrowingFunction<Input, Output, ?> function
+  ) {
+    return in -> new SuccessfulResult<>(function.apply(in));
+  }
+
+  /**
+   * Create a new {@link Module} that caches the results of another module by its input.
+   * <p>
+   * Successful and filtered results are cached, while throwing results are not. Use {@link
+   * CachedModule#builder(Module)} to change this.
+   *
+   * @param module     The module whose results to cache. This must be a pure function of its input.
+   * @param maxEntries The maximum amount of results to cache.
+   * @param ttl        The time after which a cached result expires, or {@code null} if results never expire.
+   * @param <Input>    The input type to accept.
+   * @param <Output>   The output type of the module.
+   * @return A new {@link CachedModule} caching the results of the module.
+   * @throws IllegalArgumentException If {@code maxEntries} or {@code ttl} is not positive.
+   * @since 0.8.0
+   */
+  static <Input, Output> @NonNull CachedModule<Input, Output> cached(
+      @NonNull Module<Input, Output> module,
+      int maxEntries,
+      @Nullable Duration ttl
+  ) {
+    return CachedModule.builder(module)
+        .maxEntries(maxEntries)
+        .ttl(ttl)
+        .build();
+  }
+
+  /**
+   * Create a new {@link Module} that attempts another module again when it fails.
+   * <p>
+   * Retries wait for an exponential backoff with jitter on a shared timer, so no thread blocks, and are bounded by the
+   * {@link RetryBudget} of the policy. A flow which was attempted more than once results in a {@link
+   * com.proximyst.sewer.piping.RetriedResult RetriedResult} recording its attempt count, which is only reported by
+   * pumps whose final result it is.
+   *
+   * @param module   The module to attempt.
+   * @param policy   The policy for when and how to attempt the module again.
+   * @param <Input>  The input type to accept.
+   * @param <Output> The output type of the module.
+   * @return A new {@link RetryingModule} attempting the module.
+   * @see RetryPolicy#builder()
+   * @since 0.8.0
+   */
+  static <Input, Output> @NonNull RetryingModule<Input, Output> retrying(
+      @NonNull Module<Input, Output> module,
+      @NonNull RetryPolicy policy
+  ) {
+    return new RetryingModule<>(module, policy);
+  }
+
+  /**
+   * Create a new {@link Module} that collects the inputs of separate flows into batches, and flows every batch through
+   * a {@link BatchModule} at once.
+   * <p>
+   * A batch is flushed once it holds {@code maxSize} inputs, or once {@code maxDelay} has passed since its first input.
+   * Every flow completes with the result of its own input. This suits modules which are far cheaper per input in bulk,
+   * such as writes to a database, when inputs are {@link SewerSystem#pump(Object) pumped} one at a time.
+   *
+   * @param batchModule The module to flow every batch through.
+   * @param maxSize     The maximum amount of inputs in a batch.
+   * @param maxDelay    The maximum time an input waits for its batch to be flushed.
+   * @param <Input>     The input type to accept.
+   * @param <Output>    The output type of the module.
+   * @return A new {@link MicroBatchingModule} collecting inputs for the batch module.
+   * @throws IllegalArgumentException If {@code maxSize} or {@code maxDelay} is not positive.
+   * @see BatchModule#immediatelyWrapping(ThrowingFunction)
+   * @since 0.8.0
+   */
+  static <Input, Output> @NonNull MicroBatchingModule<Input, Output> microBatched(
+      @NonNull BatchModule<Input, Output> batchModule,
+      int maxSize,
+      @NonNull Duration maxDelay
+  ) {
+    return new MicroBatchingModule<>(batchModule, maxSize, maxDelay);
+  }
+
+  /**
+   * Create a new {@link Module} that stops flowing through another module while it keeps failing.
+   * <p>
+   * While the breaker is open, flows result in a {@link com.proximyst.sewer.piping.RejectedResult RejectedResult}
+   * right away, without flowing through the module.
+   *
+   * @param module   The module to guard.
+   * @param breaker  The breaker guarding the module.
+   * @param <Input>  The input type to accept.
+   * @param <Output> The output type of the module.
+   * @return A new {@link CircuitBreakingModule} guarding the module.
+   * @see CircuitBreaker#builder()
+   * @since 0.8.0
+   */
+  static <Input, Output> @NonNull CircuitBreakingModule<Input, Output> circuitBreaking(
+      @NonNull Module<Input, Output> module,
+      @NonNull CircuitBreaker breaker
+  ) {
+    return new CircuitBreakingModule<>(module, breaker);
+  }
+
+  /**
+   * Create a new {@link Module} that flows its input through several modules at once, and joins their results.
+   * <p>
+   * Every branch is started before any is waited for. The join decides when the flow completes, and how failures of
+   * single branches are reported.
+   *
+   * @param join     The strategy to join the results of the branches with.
+   * @param branches The modules to flow every input through.
+   * @param <Input>  The input type to accept.
+   * @param <Branch> The output type of the branches.
+   * @param <Output> The output type of the joined result.
+   * @return A new {@link FanOutModule} flowing through every branch.
+   * @throws IllegalArgumentException If there are no branches.
+   * @see FanOutJoin
+   * @since 0.8.0
+   */
+  @SafeVarargs
+  static <Input, Branch, Output> @NonNull FanOutModule<Input, Branch, Output> fanOut(
+      @NonNull FanOutJoin<Branch, Output> join,
+      @NonNull Module<Input, ? extends Branch> @NonNull ... branches
+  ) {
+    // The branches are only read, so the array of a generic type never escapes.
+    final List<Module<Input, ? extends Branch>> list = new ArrayList<>(branches.length);
+    for (Module<Input, ? extends Branch> branch : branches) {
+      list.add(branch);
+    }
+    return new FanOutModule<>(join, list);
+  }
+
+  /**
+   * Create a new {@link Module} that flows its input through several modules at once, and succeeds with all of their
+   * outputs if every one succeeds.
+   *
+   * @param branches The modules to flow every input through.
+   * @param <Input>  The input type to accept.
+   * @param <Branch> The output type of the branches.
+   * @return A new {@link FanOutModule} flowing through every branch.
+   * @throws IllegalArgumentException If there are no branches.
+   * @see FanOutJoin#all()
+   * @since 0.8.0
+   */
+  @SafeVarargs
+  @SuppressWarnings("varargs") // Only handed on to fanOut, which only reads the branches.
+  static <Input, Branch> @NonNull FanOutModule<Input, Branch, @NonNull List<Branch>> parallel(
+      @NonNull Module<Input, ? extends Branch> @NonNull ... branches
+  ) {
+    return Module.fanOut(FanOutJoin.all(), branches);
   }
 
   /**
@@ -77,12 +228,12 @@ public interface Module<Input, Output> {
   static <Input> @NonNull Module<Input, Input> filtering(
       @NonNull Predicate<Input> predicate
   ) {
-    return in -> {
+    return (ImmediateModule<Input, Input>) in -> {
       if (!predicate.test(in)) {
-        return CompletableFuture.completedFuture(new FilteredResult<>());
+        return new FilteredResult<>();
       }
 
-      return CompletableFuture.completedFuture(new SuccessfulResult<>(in));
+      return new SuccessfulResult<>(in);
     };
   }
 
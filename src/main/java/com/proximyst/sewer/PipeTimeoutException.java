@@ -0,0 +1,49 @@
+package com.proximyst.sewer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.dataflow.qual.Pure;
+
+/**
+ * The exception of a pipe or system whose flow did not complete within its timeout.
+ * <p>
+ * This is the throwable of the {@link com.proximyst.sewer.piping.ThrowingResult ThrowingResult} a timed out flow
+ * results in.
+ *
+ * @see SewerPipe.Builder#timeout(Duration)
+ * @see SewerSystem.Builder#timeout(Duration)
+ * @since 0.8.0
+ */
+public final class PipeTimeoutException extends TimeoutException {
+  private static final long serialVersionUID = 1L;
+
+  private final @NonNull String pipeName;
+  private final @NonNull Duration timeout;
+
+  /**
+   * @param pipeName The name of the pipe which was flowing when the timeout passed.
+   * @param timeout  The timeout which passed.
+   */
+  public PipeTimeoutException(@NonNull String pipeName, @NonNull Duration timeout) {
+    super("pipe " + pipeName + " timed out after " + timeout);
+    this.pipeName = pipeName;
+    this.timeout = timeout;
+  }
+
+  /**
+   * @return The name of the pipe which was flowing when the timeout passed.
+   */
+  @Pure
+  public @NonNull String getPipeName() {
+    return this.pipeName;
+  }
+
+  /**
+   * @return The timeout which passed.
+   */
+  @Pure
+  public @NonNull Duration getTimeout() {
+    return this.timeout;
+  }
+}
@@ -0,0 +1,85 @@
+package com.proximyst.sewer;
+
+import com.proximyst.sewer.piping.NamedPipeResult;
+import com.proximyst.sewer.piping.PipeResult;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A listener to the flow of inputs through a {@link SewerSystem}, for tracing individual pumps.
+ * <p>
+ * Listeners are registered through {@link SewerSystem.Builder#listener(PipelineListener)}. Every pump starts with
+ * {@link #onPumpStart(Object)}, whose returned correlation token is passed to every later callback of the same pump.
+ * Callbacks may be called on any thread, but callbacks of the same pump are never called concurrently, and none are
+ * called after {@link #onPumpEnd(Object, NamedPipeResult, long)}. If a pump times out or is cancelled, the module in
+ * flight may still end after the end of its pipe. Throwables thrown by a listener are ignored.
+ * <p>
+ * Every callback does nothing by default, such that listeners only implement what they need.
+ *
+ * @since 0.8.0
+ */
+public interface PipelineListener {
+  /**
+   * Called when an input is pumped into the system.
+   *
+   * @param input The input being pumped.
+   * @return A correlation token passed to every later callback of this pump, or {@code null}.
+   */
+  default @Nullable Object onPumpStart(@Nullable Object input) {
+    return null;
+  }
+
+  /**
+   * Called when an input starts flowing through a pipe.
+   *
+   * @param token    The correlation token of the pump.
+   * @param pipeName The name of the pipe.
+   * @param input    The input to the pipe.
+   */
+  default void onPipeStart(@Nullable Object token, @NonNull String pipeName, @Nullable Object input) {
+  }
+
+  /**
+   * Called when a module of a pipe has produced a result.
+   *
+   * @param token       The correlation token of the pump.
+   * @param pipeName    The name of the pipe the module is in.
+   * @param moduleIndex The index of the module within the pipe.
+   * @param result      The result of the module.
+   * @param nanos       The time the module took, in nanoseconds.
+   */
+  default void onModuleEnd(
+      @Nullable Object token,
+      @NonNull String pipeName,
+      int moduleIndex,
+      @NonNull PipeResult<?> result,
+      long nanos
+  ) {
+  }
+
+  /**
+   * Called when an input has flowed through a pipe.
+   *
+   * @param token    The correlation token of the pump.
+   * @param pipeName The name of the pipe.
+   * @param result   The result of the pipe.
+   * @param nanos    The time the pipe took, in nanoseconds.
+   */
+  default void onPipeEnd(
+      @Nullable Object token,
+      @NonNull String pipeName,
+      @NonNull NamedPipeResult<?, ?> result,
+      long nanos
+  ) {
+  }
+
+  /**
+   * Called when a pump has finished.
+   *
+   * @param token  The correlation token of the pump.
+   * @param result The final result of the pump.
+   * @param nanos  The time the pump took, in nanoseconds.
+   */
+  default void onPumpEnd(@Nullable Object token, @NonNull NamedPipeResult<?, ?> result, long nanos) {
+  }
+}
@@ -0,0 +1,104 @@
+package com.proximyst.sewer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * The pumps in flight of a {@link SewerSystem} which coalesces concurrent pumps of the same key.
+ * <p>
+ * The first pump of a key registers a shared {@link CompletableFuture}, which every pump of the same key started
+ * before it completes depends on instead of pumping again. Every caller gets a future of its own, such that no caller
+ * can complete or cancel the pump of another. The key is removed as soon as the pump completes, such that results are
+ * never cached past their pump.
+ *
+ * @param <Input> The input type of the system.
+ * @since 0.8.0
+ */
+final class PumpCoalescer<Input> {
+  /**
+   * The key standing in for {@code null} keys, which {@link ConcurrentHashMap} does not permit.
+   */
+  private static final @NonNull Object NULL_KEY = new Object();
+
+  private final @NonNull Function<? super Input, ?> keyExtractor;
+
+  /**
+   * The shared future of every pump in flight, keyed by its key. These are never handed out to callers.
+   */
+  private final @NonNull ConcurrentMap<@NonNull Object, @NonNull CompletableFuture<Object>> inFlight =
+      new ConcurrentHashMap<>();
+
+  /**
+   * The amount of pumps which joined a pump in flight.
+   */
+  private final @NonNull LongAdder coalesced = new LongAdder();
+
+  /**
+   * @param keyExtractor The function to extract the key to coalesce pumps by from their input.
+   */
+  PumpCoalescer(@NonNull Function<? super Input, ?> keyExtractor) {
+    this.keyExtractor = keyExtractor;
+  }
+
+  /**
+   * Pump an input, unless a pump of the same key is already in flight.
+   *
+   * @param input The input to pump.
+   * @param pump  The function to pump an input directly.
+   * @return Either the final result, or a {@link CompletableFuture} of it depending on a pump possibly shared with
+   * other pumps.
+   */
+  @SuppressWarnings("unchecked")
+  @NonNull Object pump(Input input, @NonNull Function<Input, @NonNull Object> pump) {
+    final Object extracted = this.keyExtractor.apply(input);
+    final Object key = extracted == null ? NULL_KEY : extracted;
+    CompletableFuture<Object> shared = this.inFlight.get(key);
+    if (shared != null) {
+      this.coalesced.increment();
+      return shared.thenApply(Function.identity());
+    }
+
+    final CompletableFuture<Object> registered = new CompletableFuture<>();
+    shared = this.inFlight.putIfAbsent(key, registered);
+    if (shared != null) {
+      this.coalesced.increment();
+      return shared.thenApply(Function.identity());
+    }
+
+    final Object direct;
+    try {
+      direct = pump.apply(input);
+    } catch (Throwable throwable) {
+      this.inFlight.remove(key, registered);
+      registered.completeExceptionally(throwable);
+      throw throwable;
+    }
+
+    if (direct instanceof CompletableFuture) {
+      ((CompletableFuture<Object>) direct).whenComplete((result, throwable) -> {
+        this.inFlight.remove(key, registered);
+        if (throwable == null) {
+          registered.complete(result);
+        } else {
+          registered.completeExceptionally(throwable);
+        }
+      });
+      return registered.thenApply(Function.identity());
+    }
+
+    this.inFlight.remove(key, registered);
+    registered.complete(direct);
+    return direct;
+  }
+
+  /**
+   * @return The amount of pumps which joined a pump in flight.
+   */
+  long getCoalesced() {
+    return this.coalesced.sum();
+  }
+}
@@ -0,0 +1,267 @@
+package com.proximyst.sewer;
+
+import com.proximyst.sewer.piping.NamedPipeResult;
+import com.proximyst.sewer.piping.PipeResult;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The state of a single pump through a {@link SewerSystem}.
+ * <p>
+ * A context is only created when a pump needs one, such that pumps through systems without {@link PipelineListener}s,
+ * a timeout, or modules which may complete asynchronously allocate nothing for it.
+ * <p>
+ * The context is also the {@link CancellationToken} of the pump. Cancelling it cancels the future of the module in
+ * flight, and stops pipes and modules from flowing any further.
+ *
+ * @since 0.8.0
+ */
+final class PumpContext implements CancellationToken {
+  /**
+   * The listener to dispatch to, or {@code null} if none.
+   */
+  private final @Nullable PipelineListener listener;
+
+  /**
+   * The correlation token returned by the {@link #listener}.
+   */
+  private final @Nullable Object token;
+
+  /**
+   * The time the pump started at, in {@link System#nanoTime() nanoseconds}.
+   */
+  private final long start;
+
+  /**
+   * The name of the pipe which started flowing last, or {@code null} if none has.
+   */
+  private volatile @Nullable String pipeName;
+
+  /**
+   * Whether the pump has been cancelled.
+   */
+  private volatile boolean cancelled;
+
+  /**
+   * The future of the module which went asynchronous last, or {@code null} if none has.
+   */
+  private volatile @Nullable CompletableFuture<?> inFlight;
+
+  /**
+   * The callbacks to run once the pump is cancelled, or {@code null} if none have been registered.
+   * <p>
+   * This is guarded by the monitor of this context.
+   */
+  private @Nullable List<@NonNull Runnable> callbacks;
+
+  /**
+   * Whether the {@link #listener} has been told the pump ended, after which it is told nothing more.
+   * <p>
+   * This is guarded by the monitor of this context, which is also held while dispatching to the listener, such that
+   * a timeout ending the pump never races the module in flight.
+   */
+  private boolean ended;
+
+  /**
+   * @param listener The listener to dispatch to, or {@code null} if none.
+   * @param input    The input being pumped.
+   */
+  PumpContext(@Nullable PipelineListener listener, @Nullable Object input) {
+    this.listener = listener;
+    Object token = null;
+    if (listener != null) {
+      try {
+        token = listener.onPumpStart(input);
+      } catch (Throwable ignored) {
+      }
+    }
+    this.token = token;
+    this.start = System.nanoTime();
+  }
+
+  /**
+   * @return Whether this context dispatches to a listener.
+   */
+  boolean isListening() {
+    return this.listener != null;
+  }
+
+  /**
+   * @return The name of the pipe which started flowing last, or an empty string if none has.
+   */
+  @NonNull String getPipeName() {
+    final String pipeName = this.pipeName;
+    return pipeName == null ? "" : pipeName;
+  }
+
+  /**
+   * @return The time since the pump started, in nanoseconds.
+   */
+  long getElapsedNanos() {
+    return System.nanoTime() - this.start;
+  }
+
+  @Override
+  public boolean isCancelled() {
+    return this.cancelled;
+  }
+
+  @Override
+  public void onCancel(@NonNull Runnable callback) {
+    synchronized (this) {
+      if (!this.cancelled) {
+        if (this.callbacks == null) {
+          this.callbacks = new ArrayList<>(2);
+        }
+        this.callbacks.add(callback);
+        return;
+      }
+    }
+
+    PumpContext.run(callback);
+  }
+
+  /**
+   * Cancel the pump, unless it already is.
+   * <p>
+   * This cancels the future of the module in flight, and runs every {@link #onCancel(Runnable) callback}.
+   */
+  void cancel() {
+    final List<Runnable> callbacks;
+    synchronized (this) {
+      if (this.cancelled) {
+        return;
+      }
+      this.cancelled = true;
+      callbacks = this.callbacks;
+      this.callbacks = null;
+    }
+
+    final CompletableFuture<?> inFlight = this.inFlight;
+    if (inFlight != null) {
+      inFlight.cancel(true);
+    }
+    if (callbacks != null) {
+      callbacks.forEach(PumpContext::run);
+    }
+  }
+
+  /**
+   * Cancel the pump once a future returned to the caller is cancelled.
+   *
+   * @param future The future of the pump returned to the caller.
+   */
+  void cancelWith(@NonNull CompletableFuture<?> future) {
+    future.whenComplete((result, throwable) -> {
+      if (throwable instanceof CancellationException) {
+        this.cancel();
+      }
+    });
+  }
+
+  /**
+   * @return The future of the module which went asynchronous last, or {@code null} if none has.
+   */
+  @Nullable CompletableFuture<?> getInFlight() {
+    return this.inFlight;
+  }
+
+  /**
+   * Record the future of a module which went asynchronous, to cancel it if the pump is cancelled.
+   *
+   * @param future The future of the module.
+   */
+  void inFlight(@NonNull CompletableFuture<?> future) {
+    this.inFlight = future;
+    // Either #cancel sees the future, or we see the cancellation.
+    if (this.cancelled) {
+      future.cancel(true);
+    }
+  }
+
+  /**
+   * @see PipelineListener#onPipeStart(Object, String, Object)
+   */
+  void pipeStart(@NonNull String pipeName, @Nullable Object input) {
+    this.pipeName = pipeName;
+    if (this.listener != null) {
+      synchronized (this) {
+        if (this.ended) {
+          return;
+        }
+        try {
+          this.listener.onPipeStart(this.token, pipeName, input);
+        } catch (Throwable ignored) {
+        }
+      }
+    }
+  }
+
+  /**
+   * @see PipelineListener#onModuleEnd(Object, String, int, PipeResult, long)
+   */
+  void moduleEnd(@NonNull String pipeName, int moduleIndex, @NonNull PipeResult<?> result, long nanos) {
+    if (this.listener != null) {
+      synchronized (this) {
+        if (this.ended) {
+          return;
+        }
+        try {
+          this.listener.onModuleEnd(this.token, pipeName, moduleIndex, result, nanos);
+        } catch (Throwable ignored) {
+        }
+      }
+    }
+  }
+
+  /**
+   * @see PipelineListener#onPipeEnd(Object, String, NamedPipeResult, long)
+   */
+  void pipeEnd(@NonNull String pipeName, @NonNull NamedPipeResult<?, ?> result, long nanos) {
+    if (this.listener != null) {
+      synchronized (this) {
+        if (this.ended) {
+          return;
+        }
+        try {
+          this.listener.onPipeEnd(this.token, pipeName, result, nanos);
+        } catch (Throwable ignored) {
+        }
+      }
+    }
+  }
+
+  /**
+   * @see PipelineListener#onPumpEnd(Object, NamedPipeResult, long)
+   */
+  void pumpEnd(@NonNull NamedPipeResult<?, ?> result) {
+    if (this.listener != null) {
+      synchronized (this) {
+        if (this.ended) {
+          return;
+        }
+        this.ended = true;
+        try {
+          this.listener.onPumpEnd(this.token, result, System.nanoTime() - this.start);
+        } catch (Throwable ignored) {
+        }
+      }
+    }
+  }
+
+  /**
+   * Run a callback, ignoring anything it throws.
+   *
+   * @param callback The callback to run.
+   */
+  private static void run(@NonNull Runnable callback) {
+    try {
+      callback.run();
+    } catch (Throwable ignored) {
+    }
+  }
+}
@@ -0,0 +1,165 @@
+package com.proximyst.sewer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.dataflow.qual.Pure;
+
+/**
+ * A budget bounding the retries of {@link RetryingModule}s relative to the flows through them, such that retries cannot
+ * snowball into a retry storm when a backend fails.
+ * <p>
+ * The budget is a bucket of tokens: every first attempt of a flow deposits a fraction of a token, and every retry
+ * withdraws a whole token. Once the bucket is empty, failures are returned as they are rather than retried. Sharing one
+ * budget between every {@link RetryPolicy} of a system bounds the retries of the system as a whole.
+ * <p>
+ * The bucket is a single atomic counter; depositing into a full bucket is a plain read.
+ *
+ * @see RetryPolicy.Builder#budget(RetryBudget)
+ * @since 0.8.0
+ */
+public final class RetryBudget {
+  /**
+   * The amount of units in a single token, such that fractions of tokens can be deposited.
+   */
+  private static final long TOKEN = 1_000L;
+
+  /**
+   * The budget which never runs out.
+   */
+  private static final @NonNull RetryBudget UNLIMITED = new RetryBudget(0L, Long.MAX_VALUE);
+
+  /**
+   * The budget of every {@link RetryPolicy} which is not given one, allowing 1 retry per 5 flows and bursts of up to 10
+   * retries.
+   */
+  private static final @NonNull RetryBudget SHARED = RetryBudget.ratio(0.2, 10);
+
+  /**
+   * The units deposited for every first attempt.
+   */
+  private final long deposit;
+
+  /**
+   * The maximum amount of units in the bucket.
+   */
+  private final long capacity;
+
+  /**
+   * The amount of units in the bucket.
+   */
+  private final @NonNull AtomicLong balance;
+
+  /**
+   * The amount of retries which were denied.
+   */
+  private final @NonNull LongAdder exhausted = new LongAdder();
+
+  private RetryBudget(long deposit, long capacity) {
+    this.deposit = deposit;
+    this.capacity = capacity;
+    this.balance = new AtomicLong(capacity);
+  }
+
+  /**
+   * Create a budget allowing retries for a fraction of the flows.
+   * <p>
+   * The bucket starts out full, such that a burst of up to {@code maxBurst} retries is allowed before any flow has
+   * deposited.
+   *
+   * @param ratio    The amount of retries allowed per first attempt, such as {@code 0.1} to allow 1 retry per 10
+   *                 flows.
+   * @param maxBurst The maximum amount of retries saved up in the bucket.
+   * @return A new budget.
+   * @throws IllegalArgumentException If {@code ratio} is negative or more than {@code 1000}, or {@code maxBurst} is not
+   *                                  positive.
+   */
+  public static @NonNull RetryBudget ratio(double ratio, int maxBurst) {
+    if (!(ratio >= 0.0 && ratio <= 1_000.0)) {
+      throw new IllegalArgumentException("ratio must be between 0 and 1000, but is " + ratio);
+    }
+    if (maxBurst < 1) {
+      throw new IllegalArgumentException("maxBurst must be positive, but is " + maxBurst);
+    }
+
+    return new RetryBudget(Math.round(ratio * TOKEN), maxBurst * TOKEN);
+  }
+
+  /**
+   * Get the budget which never runs out.
+   *
+   * @return The unlimited budget.
+   */
+  @Pure
+  public static @NonNull RetryBudget unlimited() {
+    return UNLIMITED;
+  }
+
+  /**
+   * Get the budget shared by every {@link RetryPolicy} which is not {@link RetryPolicy.Builder#budget(RetryBudget)
+   * given one}, allowing 1 retry per 5 flows and bursts of up to 10 retries.
+   * <p>
+   * As every such policy draws from this budget, a failing backend cannot set off more retries by being flowed to from
+   * many retrying modules.
+   *
+   * @return The shared budget.
+   */
+  @Pure
+  public static @NonNull RetryBudget shared() {
+    return SHARED;
+  }
+
+  /**
+   * @return The amount of whole retries currently allowed.
+   */
+  public long getAvailableRetries() {
+    return this.balance.get() / TOKEN;
+  }
+
+  /**
+   * @return The amount of retries which were denied as the budget was exhausted.
+   */
+  public long getExhaustedRetries() {
+    return this.exhausted.sum();
+  }
+
+  /**
+   * Deposit the share of a first attempt into the bucket.
+   */
+  void deposit() {
+    if (this.deposit == 0L) {
+      return;
+    }
+
+    long balance = this.balance.get();
+    while (balance < this.capacity) {
+      final long next = Math.min(this.capacity, balance + this.deposit);
+      if (this.balance.compareAndSet(balance, next)) {
+        return;
+      }
+      balance = this.balance.get();
+    }
+  }
+
+  /**
+   * Withdraw a token for a retry, if the bucket holds one.
+   *
+   * @return Whether the retry is allowed.
+   */
+  boolean tryWithdraw() {
+    if (this == UNLIMITED) {
+      return true;
+    }
+
+    long balance = this.balance.get();
+    while (balance >= TOKEN) {
+      if (this.balance.compareAndSet(balance, balance - TOKEN)) {
+        return true;
+      }
+      balance = this.balance.get();
+    }
+
+    this.exhausted.increment();
+    return false;
+  }
+}
@@ -0,0 +1,263 @@
+package com.proximyst.sewer;
+
+import com.proximyst.sewer.piping.PipeResult;
+import com.proximyst.sewer.piping.ThrowingResult;
+import com.proximyst.sewer.util.SewerInternalUtilBackoff;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.common.returnsreceiver.qual.This;
+import org.checkerframework.dataflow.qual.Pure;
+
+/**
+ * A policy for when and how a {@link RetryingModule} attempts its module again.
+ * <p>
+ * By default, results which are {@link ThrowingResult}s are retried up to twice, with exponential backoff starting at
+ * 10 milliseconds and jitter of half the backoff. Retries are bounded by the {@link RetryBudget#shared() shared
+ * budget} of every policy which is not given its own.
+ *
+ * @see Module#retrying(Module, RetryPolicy)
+ * @since 0.8.0
+ */
+public final class RetryPolicy {
+  private final int maxAttempts;
+  private final long initialBackoffNanos;
+  private final long maxBackoffNanos;
+  private final double jitter;
+  private final @NonNull Predicate<? super PipeResult<?>> retryIf;
+  private final @NonNull RetryBudget budget;
+  private final @NonNull Executor executor;
+
+  private RetryPolicy(
+      int maxAttempts,
+      long initialBackoffNanos,
+      long maxBackoffNanos,
+      double jitter,
+      @NonNull Predicate<? super PipeResult<?>> retryIf,
+      @NonNull RetryBudget budget,
+      @NonNull Executor executor
+  ) {
+    this.maxAttempts = maxAttempts;
+    this.initialBackoffNanos = initialBackoffNanos;
+    this.maxBackoffNanos = maxBackoffNanos;
+    this.jitter = jitter;
+    this.retryIf = retryIf;
+    this.budget = budget;
+    this.executor = executor;
+  }
+
+  /**
+   * Create a new builder for a {@link RetryPolicy}.
+   *
+   * @return A new {@link Builder}.
+   */
+  public static @NonNull Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * @return The maximum amount of attempts of a flow, including the first.
+   */
+  @Pure
+  public int getMaxAttempts() {
+    return this.maxAttempts;
+  }
+
+  /**
+   * @return The budget bounding the retries of this policy.
+   */
+  @Pure
+  public @NonNull RetryBudget getBudget() {
+    return this.budget;
+  }
+
+  /**
+   * @return The executor retries are attempted on.
+   */
+  @Pure
+  @NonNull Executor getExecutor() {
+    return this.executor;
+  }
+
+  /**
+   * Check whether a result should be retried, disregarding the attempts left and the budget.
+   *
+   * @param result The result of an attempt.
+   * @return Whether the result should be retried.
+   */
+  boolean shouldRetry(@NonNull PipeResult<?> result) {
+    return this.retryIf.test(result);
+  }
+
+  /**
+   * Get the backoff before a retry, with jitter applied.
+   *
+   * @param retry The retry, starting at {@code 0} for the first.
+   * @return The backoff before the retry, in nanoseconds.
+   */
+  @SuppressWarnings("deprecation") // Internal class warning.
+  long getBackoffNanos(int retry) {
+    final long backoff = SewerInternalUtilBackoff.exponential(this.initialBackoffNanos, this.maxBackoffNanos, retry);
+    if (this.jitter == 0.0) {
+      return backoff;
+    }
+    return backoff - (long) (backoff * this.jitter * ThreadLocalRandom.current().nextDouble());
+  }
+
+  /**
+   * Check whether a result is a {@link ThrowingResult} of anything but a cancellation.
+   *
+   * @param result The result to check.
+   * @return Whether the result should be retried by default.
+   */
+  private static boolean isThrowing(@NonNull PipeResult<?> result) {
+    return result instanceof ThrowingResult
+        && !(((ThrowingResult<?>) result).getThrowable() instanceof CancellationException);
+  }
+
+  /**
+   * Convert a duration to nanoseconds.
+   *
+   * @param name     The name of the duration, for errors.
+   * @param duration The duration to convert.
+   * @return The duration in nanoseconds.
+   * @throws IllegalArgumentException If the duration is not positive.
+   */
+  private static long toNanos(@NonNull String name, @NonNull Duration duration) {
+    if (duration.isNegative() || duration.isZero()) {
+      throw new IllegalArgumentException(name + " must be positive, but is " + duration);
+    }
+
+    return SewerPipe.toNanos(duration);
+  }
+
+  /**
+   * A builder to create a new {@link RetryPolicy}.
+   */
+  public static final class Builder {
+    private int maxAttempts = 3;
+    private long initialBackoffNanos = Duration.ofMillis(10L).toNanos();
+    private long maxBackoffNanos = Duration.ofSeconds(1L).toNanos();
+    private double jitter = 0.5;
+    private @NonNull Predicate<? super PipeResult<?>> retryIf = RetryPolicy::isThrowing;
+    private @Nullable RetryBudget budget;
+    private @NonNull Executor executor = ForkJoinPool.commonPool();
+
+    private Builder() {
+    }
+
+    /**
+     * Set the maximum amount of attempts of a flow, including the first. This defaults to {@code 3}.
+     *
+     * @param maxAttempts The maximum amount of attempts.
+     * @return This builder for chaining.
+     * @throws IllegalArgumentException If {@code maxAttempts} is not positive.
+     */
+    public @NonNull @This Builder maxAttempts(int maxAttempts) {
+      if (maxAttempts < 1) {
+        throw new IllegalArgumentException("maxAttempts must be positive, but is " + maxAttempts);
+      }
+
+      this.maxAttempts = maxAttempts;
+      return this;
+    }
+
+    /**
+     * Set the exponential backoff between attempts. This defaults to starting at 10 milliseconds, up to 1 second.
+     * <p>
+     * The backoff starts at {@code initialBackoff}, and doubles for every retry up to {@code maxBackoff}. Backoffs are
+     * scheduled on a shared timer thread, so no thread blocks while waiting for a retry.
+     *
+     * @param initialBackoff The backoff before the first retry.
+     * @param maxBackoff     The maximum backoff before any retry.
+     * @return This builder for chaining.
+     * @throws IllegalArgumentException If either backoff is not positive.
+     */
+    public @NonNull @This Builder backoff(@NonNull Duration initialBackoff, @NonNull Duration maxBackoff) {
+      this.initialBackoffNanos = RetryPolicy.toNanos("initialBackoff", initialBackoff);
+      this.maxBackoffNanos = Math.max(this.initialBackoffNanos, RetryPolicy.toNanos("maxBackoff", maxBackoff));
+      return this;
+    }
+
+    /**
+     * Set the fraction of every backoff which is randomised, such that flows failing together do not retry together.
+     * This defaults to {@code 0.5}.
+     * <p>
+     * A backoff is shortened by a random amount of up to this fraction of it; {@code 0} disables jitter, and {@code 1}
+     * picks any backoff up to the exponential one.
+     *
+     * @param jitter The fraction of every backoff to randomise.
+     * @return This builder for chaining.
+     * @throws IllegalArgumentException If {@code jitter} is not between {@code 0} and {@code 1}.
+     */
+    public @NonNull @This Builder jitter(double jitter) {
+      if (!(jitter >= 0.0 && jitter <= 1.0)) {
+        throw new IllegalArgumentException("jitter must be between 0 and 1, but is " + jitter);
+      }
+
+      this.jitter = jitter;
+      return this;
+    }
+
+    /**
+     * Set which results are retried. By default, {@link ThrowingResult}s are retried unless they are of a {@link
+     * CancellationException}.
+     *
+     * @param retryIf The predicate of the results to retry.
+     * @return This builder for chaining.
+     */
+    public @NonNull @This Builder retryIf(@NonNull Predicate<? super PipeResult<?>> retryIf) {
+      this.retryIf = retryIf;
+      return this;
+    }
+
+    /**
+     * Set the budget bounding retries. By default, every policy uses the {@link RetryBudget#shared() shared budget},
+     * such that retries are bounded as a whole no matter how many retrying modules are built.
+     * <p>
+     * Use a budget of its own in the policies of every retrying module of a system to bound its retries apart from
+     * any other system.
+     *
+     * @param budget The budget bounding retries.
+     * @return This builder for chaining.
+     */
+    public @NonNull @This Builder budget(@NonNull RetryBudget budget) {
+      this.budget = budget;
+      return this;
+    }
+
+    /**
+     * Set the executor to attempt retries on once their backoff has passed. This defaults to the {@link
+     * ForkJoinPool#commonPool() common pool}.
+     *
+     * @param executor The executor to retry on.
+     * @return This builder for chaining.
+     */
+    public @NonNull @This Builder executor(@NonNull Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    /**
+     * Build a new {@link RetryPolicy}.
+     *
+     * @return A new {@link RetryPolicy}.
+     */
+    public @NonNull RetryPolicy build() {
+      return new RetryPolicy(
+          this.maxAttempts,
+          this.initialBackoffNanos,
+          this.maxBackoffNanos,
+          this.jitter,
+          this.retryIf,
+          this.budget == null ? RetryBudget.shared() : this.budget,
+          this.executor
+      );
+    }
+  }
+}
@@ -0,0 +1,206 @@
+package com.proximyst.sewer;
+
+import com.proximyst.sewer.piping.PipeResult;
+import com.proximyst.sewer.piping.RetriedResult;
+import com.proximyst.sewer.piping.ThrowingResult;
+import com.proximyst.sewer.util.SewerInternalUtilTimer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A module which attempts another module again as per a {@link RetryPolicy}, until it succeeds or the policy gives up.
+ * <p>
+ * The first attempt flows on the thread calling this module, and a result which is not retried is returned as it is.
+ * Retries are scheduled on a shared timer thread after their backoff, and attempted on the {@link
+ * RetryPolicy.Builder#executor(Executor) executor of the policy}, so no thread blocks while waiting. The final result
+ * of a flow which was attempted more than once is a {@link RetriedResult}.
+ * <p>
+ * The attempt count only ends up in the {@link com.proximyst.sewer.piping.NamedPipeResult#getAttempts()
+ * NamedPipeResult} of a pump when this is the last module of its pipe, and that pipe gives the final result of the
+ * pump. The attempts of a module whose result flows on into later modules or pipes are not carried along.
+ * <p>
+ * A flow whose pump is {@link CancellationToken cancelled} is not retried any further.
+ *
+ * @param <Input>  The type to accept when flowing through the module.
+ * @param <Output> The type the module shall output.
+ * @see Module#retrying(Module, RetryPolicy)
+ * @since 0.8.0
+ */
+public final class RetryingModule<Input, Output> extends DelegatingModule<Input, Output> {
+  private final @NonNull Module<Input, Output> module;
+  private final @NonNull RetryPolicy policy;
+
+  /**
+   * @param module The module to attempt.
+   * @param policy The policy for when to attempt the module again.
+   */
+  RetryingModule(@NonNull Module<Input, Output> module, @NonNull RetryPolicy policy) {
+    this.module = module;
+    this.policy = policy;
+  }
+
+  /**
+   * @return The module attempted by this module.
+   */
+  public @NonNull Module<Input, Output> getModule() {
+    return this.module;
+  }
+
+  /**
+   * @return The policy for when to attempt the module again.
+   */
+  public @NonNull RetryPolicy getPolicy() {
+    return this.policy;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * If the module is a {@link BlockingModule}, it flows on the default blocking executor.
+   */
+  @Override
+  public @NonNull CompletableFuture<PipeResult<Output>> flow(Input input) {
+    return this.flow(input, BlockingExecutor.getDefault(), CancellationToken.none());
+  }
+
+  /**
+   * Flow the {@link Input input} through the module, attempting it again as per the policy.
+   *
+   * @param input    The input to the module.
+   * @param blocking The executor to flow the module on if it is a {@link BlockingModule}.
+   * @param token    The token telling whether the pump has been cancelled.
+   * @return A future-wrapped result of an {@link Output}, which is a {@link RetriedResult} if the module was attempted
+   * more than once.
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  @NonNull CompletableFuture<PipeResult<Output>> flow(
+      Input input,
+      @NonNull Executor blocking,
+      @NonNull CancellationToken token
+  ) {
+    this.policy.getBudget().deposit();
+    final CompletableFuture<PipeResult<Output>> first = this.attempt(input, blocking, token);
+    if (first.isDone()) {
+      final PipeResult<Output> result = (PipeResult<Output>) SewerPipe.getDone(first);
+      if (!this.policy.shouldRetry(result)) {
+        return first;
+      }
+    }
+
+    final Retry retry = new Retry(input, blocking, token);
+    retry.await(first);
+    return retry.future;
+  }
+
+  /**
+   * Attempt the module once.
+   *
+   * @param input    The input to the module.
+   * @param blocking The executor to flow the module on if it is a {@link BlockingModule}.
+   * @param token    The token telling whether the pump has been cancelled.
+   * @return The future of the result of the attempt.
+   */
+  @SuppressWarnings("unchecked")
+  private @NonNull CompletableFuture<PipeResult<Output>> attempt(
+      Input input,
+      @NonNull Executor blocking,
+      @NonNull CancellationToken token
+  ) {
+    try {
+      return (CompletableFuture<PipeResult<Output>>) SewerPipe.flow(this.module, input, blocking, token);
+    } catch (Throwable throwable) {
+      return CompletableFuture.completedFuture(new ThrowingResult<>(throwable));
+    }
+  }
+
+  /**
+   * The state of a flow which may be attempted again.
+   */
+  private final class Retry {
+    private final @NonNull CompletableFuture<PipeResult<Output>> future = new CompletableFuture<>();
+    private final Input input;
+    private final @NonNull Executor blocking;
+    private final @NonNull CancellationToken token;
+
+    /**
+     * The amount of attempts made so far. This is only used by the thread running the current attempt.
+     */
+    private int attempts = 1;
+
+    private Retry(Input input, @NonNull Executor blocking, @NonNull CancellationToken token) {
+      this.input = input;
+      this.blocking = blocking;
+      this.token = token;
+    }
+
+    /**
+     * Wait for an attempt to complete, then retry it or complete the flow.
+     *
+     * @param attempt The future of the attempt.
+     */
+    @SuppressWarnings("unchecked")
+    private void await(@NonNull CompletableFuture<PipeResult<Output>> attempt) {
+      attempt.whenComplete((result, throwable) ->
+          this.completed((PipeResult<Output>) SewerPipe.toResult(result, throwable)));
+    }
+
+    /**
+     * Handle the result of an attempt.
+     *
+     * @param result The result of the attempt.
+     */
+    @SuppressWarnings("deprecation") // Internal class warning.
+    private void completed(@NonNull PipeResult<Output> result) {
+      final RetryPolicy policy = RetryingModule.this.policy;
+      if (this.future.isDone()
+          || this.token.isCancelled()
+          || this.attempts >= policy.getMaxAttempts()
+          || !policy.shouldRetry(result)
+          || !policy.getBudget().tryWithdraw()) {
+        this.complete(result);
+        return;
+      }
+
+      // The timer thread must not flow, so the retry hops onto the executor of the policy.
+      SewerInternalUtilTimer.schedule(
+          () -> {
+            try {
+              policy.getExecutor().execute(() -> this.retry(result));
+            } catch (RejectedExecutionException ex) {
+              this.complete(result);
+            }
+          },
+          policy.getBackoffNanos(this.attempts - 1),
+          TimeUnit.NANOSECONDS
+      );
+    }
+
+    /**
+     * Attempt the module again, unless the flow was cancelled during the backoff.
+     *
+     * @param previous The result of the previous attempt, to complete with if the flow was cancelled.
+     */
+    private void retry(@NonNull PipeResult<Output> previous) {
+      if (this.future.isDone() || this.token.isCancelled()) {
+        this.complete(previous);
+        return;
+      }
+
+      ++this.attempts;
+      this.await(RetryingModule.this.attempt(this.input, this.blocking, this.token));
+    }
+
+    /**
+     * Complete the flow with the result of the final attempt.
+     *
+     * @param result The result of the final attempt.
+     */
+    private void complete(@NonNull PipeResult<Output> result) {
+      this.future.complete(this.attempts == 1 ? result : new RetriedResult<>(result, this.attempts));
+    }
+  }
+}
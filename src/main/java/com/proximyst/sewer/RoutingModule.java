@@ -0,0 +1,377 @@
+package com.proximyst.sewer;
+
+import com.proximyst.sewer.piping.FilteredResult;
+import com.proximyst.sewer.piping.NamedPipeResult;
+import com.proximyst.sewer.piping.PipeResult;
+import com.proximyst.sewer.piping.ThrowingResult;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.common.returnsreceiver.qual.This;
+
+/**
+ * A module which flows every input through exactly one of several branches, each a {@link SewerSystem} or {@link
+ * SewerPipe}.
+ * <p>
+ * A branch is picked by looking up the key of the input in a dispatch table built once, then by testing predicates in
+ * the order they were added, and lastly falling back to the {@link Builder#otherwise(SewerSystem) otherwise} branch.
+ * The result of the module is the {@link NamedPipeResult} of the chosen branch. An input with no branch results in a
+ * {@link FilteredResult}.
+ * <p>
+ * Branches flow as part of the pump of this module: once it is {@link CancellationToken cancelled}, a branch which is a
+ * {@link SewerPipe} stops flowing, and a branch which is a {@link SewerSystem} has its own pump cancelled.
+ *
+ * @param <Input>  The type to accept when flowing through the module.
+ * @param <Output> The type the module shall output.
+ * @see SewerSystem.Builder#route(String, RoutingModule)
+ * @since 0.8.0
+ */
+public final class RoutingModule<Input, Output> extends DelegatingModule<Input, Output> {
+  /**
+   * The function to extract the key of an input, or {@code null} if branches are only picked by predicates.
+   */
+  private final @Nullable Function<? super Input, ?> keyFunction;
+
+  /**
+   * The branches of keys which are all constants of the same enum, indexed by their ordinal, or {@code null} if the
+   * keys are not.
+   */
+  private final @Nullable Route @Nullable [] byOrdinal;
+
+  /**
+   * The enum type of the keys in {@link #byOrdinal}, if any.
+   */
+  private final @Nullable Class<?> ordinalType;
+
+  /**
+   * The branches by key, if the keys are not {@link #byOrdinal all constants of the same enum}.
+   */
+  private final @NonNull Map<Object, @NonNull Route> byKey;
+
+  private final @NonNull Predicate<? super Input> @NonNull [] predicates;
+  private final @NonNull Route @NonNull [] predicateRoutes;
+  private final @Nullable Route otherwise;
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private RoutingModule(
+      @Nullable Function<? super Input, ?> keyFunction,
+      @NonNull Map<Object, @NonNull Route> byKey,
+      @NonNull List<@NonNull Predicate<? super Input>> predicates,
+      @NonNull List<@NonNull Route> predicateRoutes,
+      @Nullable Route otherwise
+  ) {
+    this.keyFunction = keyFunction;
+    this.predicates = predicates.toArray(new Predicate[0]);
+    this.predicateRoutes = predicateRoutes.toArray(new Route[0]);
+    this.otherwise = otherwise;
+
+    final Class<?> enumType = RoutingModule.enumType(byKey.keySet());
+    if (enumType == null) {
+      this.byOrdinal = null;
+      this.ordinalType = null;
+      this.byKey = new HashMap<>(byKey);
+    } else {
+      this.byOrdinal = new Route[enumType.getEnumConstants().length];
+      this.ordinalType = enumType;
+      this.byKey = new HashMap<>();
+      byKey.forEach((key, route) -> this.byOrdinal[((Enum<?>) key).ordinal()] = route);
+    }
+  }
+
+  /**
+   * Create a new builder for a {@link RoutingModule} which picks branches by the key of each input.
+   *
+   * @param keyFunction The function to extract the key of an input. Keys are compared by {@link Object#equals(Object)}.
+   * @param <Input>     The type to accept when flowing through the module.
+   * @param <Key>       The type of keys.
+   * @param <Output>    The type the module shall output.
+   * @return A new {@link Builder}.
+   */
+  public static <Input, Key, Output> @NonNull Builder<Input, Key, Output> byKey(
+      @NonNull Function<? super Input, ? extends Key> keyFunction
+  ) {
+    return new Builder<>(keyFunction);
+  }
+
+  /**
+   * Create a new builder for a {@link RoutingModule} which picks branches by predicates only.
+   *
+   * @param <Input>  The type to accept when flowing through the module.
+   * @param <Output> The type the module shall output.
+   * @return A new {@link Builder}.
+   */
+  public static <Input, Output> @NonNull Builder<Input, Void, Output> byPredicate() {
+    return new Builder<>(null);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Branches which are {@link SewerPipe}s flow {@link BlockingModule}s on the default blocking executor.
+   */
+  @Override
+  public @NonNull CompletableFuture<PipeResult<Output>> flow(Input input) {
+    return this.flow(input, BlockingExecutor.getDefault(), CancellationToken.none());
+  }
+
+  /**
+   * Flow the {@link Input input} through the branch it is routed to.
+   *
+   * @param input    The input to route.
+   * @param blocking The executor to flow {@link BlockingModule}s of branches which are {@link SewerPipe}s on.
+   * @param token    The token telling whether the pump has been cancelled.
+   * @return A future-wrapped {@link NamedPipeResult} of the chosen branch, or a {@link FilteredResult} if there is
+   * none.
+   */
+  @Override
+  @NonNull CompletableFuture<PipeResult<Output>> flow(
+      Input input,
+      @NonNull Executor blocking,
+      @NonNull CancellationToken token
+  ) {
+    final Route route;
+    try {
+      route = this.route(input);
+    } catch (Throwable throwable) {
+      return CompletableFuture.completedFuture(new ThrowingResult<>(throwable));
+    }
+
+    if (route == null) {
+      return CompletableFuture.completedFuture(new FilteredResult<>());
+    }
+    return SewerPipe.asFuture(route.flow(input, blocking, token));
+  }
+
+  /**
+   * Pick the branch of an input.
+   *
+   * @param input The input to route.
+   * @return The branch of the input, or {@code null} if there is none.
+   */
+  private @Nullable Route route(Input input) {
+    if (this.keyFunction != null) {
+      final Object key = this.keyFunction.apply(input);
+      final Route keyed;
+      if (this.byOrdinal != null) {
+        keyed = this.ordinalType.isInstance(key) ? this.byOrdinal[((Enum<?>) key).ordinal()] : null;
+      } else {
+        keyed = this.byKey.get(key);
+      }
+      if (keyed != null) {
+        return keyed;
+      }
+    }
+
+    for (int i = 0; i < this.predicates.length; ++i) {
+      if (this.predicates[i].test(input)) {
+        return this.predicateRoutes[i];
+      }
+    }
+    return this.otherwise;
+  }
+
+  /**
+   * Find the enum type every key is a constant of.
+   *
+   * @param keys The keys to check.
+   * @return The enum type of every key, or {@code null} if there are no keys, or they are not all constants of the same
+   * enum.
+   */
+  private static @Nullable Class<?> enumType(@NonNull Iterable<?> keys) {
+    Class<?> type = null;
+    for (Object key : keys) {
+      if (!(key instanceof Enum)) {
+        return null;
+      }
+
+      final Class<?> keyType = ((Enum<?>) key).getDeclaringClass();
+      if (type != null && type != keyType) {
+        return null;
+      }
+      type = keyType;
+    }
+    return type;
+  }
+
+  /**
+   * A branch to flow an input through.
+   */
+  @FunctionalInterface
+  private interface Route {
+    /**
+     * Flow an input through the branch, calling modules directly for as long as they complete immediately.
+     *
+     * @param input    The input to flow through.
+     * @param blocking The executor to flow {@link BlockingModule}s of {@link SewerPipe}s on.
+     * @param token    The token telling whether the pump has been cancelled.
+     * @return Either the {@link NamedPipeResult} of the branch, or a {@link CompletableFuture} of it.
+     */
+    @NonNull Object flow(@Nullable Object input, @NonNull Executor blocking, @NonNull CancellationToken token);
+
+    /**
+     * @param system The system to pump inputs through.
+     * @return A branch pumping through the system, whose pump is cancelled along with the pump of the module.
+     */
+    @SuppressWarnings("unchecked")
+    static @NonNull Route of(@NonNull SewerSystem<?, ?> system) {
+      return (input, blocking, token) -> {
+        final Object direct = ((SewerSystem<Object, ?>) system).pumpDirect(input);
+        if (direct instanceof CompletableFuture && token != CancellationToken.none()) {
+          token.onCancel(() -> ((CompletableFuture<?>) direct).cancel(true));
+        }
+        return direct;
+      };
+    }
+
+    /**
+     * @param pipe The pipe to flow inputs through.
+     * @return A branch flowing through the pipe as part of the pump of the module.
+     */
+    @SuppressWarnings("unchecked")
+    static @NonNull Route of(@NonNull SewerPipe<?, ?> pipe) {
+      return (input, blocking, token) -> {
+        // The token is the context of the pump, unless the module flows outside of one.
+        if (!(token instanceof PumpContext)) {
+          return ((SewerPipe<Object, ?>) pipe).flowDirect(input, null, blocking, null);
+        }
+
+        final PumpContext context = (PumpContext) token;
+        final Object direct = ((SewerPipe<Object, ?>) pipe).flowDirect(input, null, blocking, context);
+        final CompletableFuture<?> inFlight = context.getInFlight();
+        if (direct instanceof CompletableFuture && inFlight != null) {
+          // The routing module replaces the module of the branch as the one in flight once this returns.
+          context.onCancel(() -> inFlight.cancel(true));
+        }
+        return direct;
+      };
+    }
+  }
+
+  /**
+   * A builder to create a new {@link RoutingModule}.
+   *
+   * @param <Input>  The type to accept when flowing through the module.
+   * @param <Key>    The type of keys.
+   * @param <Output> The type the module shall output.
+   */
+  public static final class Builder<Input, Key, Output> {
+    private final @Nullable Function<? super Input, ? extends Key> keyFunction;
+    private final @NonNull Map<Object, @NonNull Route> byKey = new LinkedHashMap<>();
+    private final @NonNull List<@NonNull Predicate<? super Input>> predicates = new ArrayList<>();
+    private final @NonNull List<@NonNull Route> predicateRoutes = new ArrayList<>();
+    private @Nullable Route otherwise;
+
+    private Builder(@Nullable Function<? super Input, ? extends Key> keyFunction) {
+      this.keyFunction = keyFunction;
+    }
+
+    /**
+     * Route inputs with a key to a system, replacing any earlier branch of the key.
+     *
+     * @param key    The key of the inputs to route.
+     * @param system The system to pump the inputs through.
+     * @return This builder for chaining.
+     * @throws IllegalStateException If this routes by predicates only.
+     */
+    public @NonNull @This Builder<Input, Key, Output> route(Key key, @NonNull SewerSystem<Input, Output> system) {
+      return this.route(key, Route.of(system));
+    }
+
+    /**
+     * Route inputs with a key to a pipe, replacing any earlier branch of the key.
+     *
+     * @param key  The key of the inputs to route.
+     * @param pipe The pipe to flow the inputs through.
+     * @return This builder for chaining.
+     * @throws IllegalStateException If this routes by predicates only.
+     */
+    public @NonNull @This Builder<Input, Key, Output> route(Key key, @NonNull SewerPipe<Input, Output> pipe) {
+      return this.route(key, Route.of(pipe));
+    }
+
+    /**
+     * Route inputs matching a predicate to a system, unless they have a keyed branch or match an earlier predicate.
+     *
+     * @param predicate The predicate of the inputs to route.
+     * @param system    The system to pump the inputs through.
+     * @return This builder for chaining.
+     */
+    public @NonNull @This Builder<Input, Key, Output> when(
+        @NonNull Predicate<? super Input> predicate,
+        @NonNull SewerSystem<Input, Output> system
+    ) {
+      return this.when(predicate, Route.of(system));
+    }
+
+    /**
+     * Route inputs matching a predicate to a pipe, unless they have a keyed branch or match an earlier predicate.
+     *
+     * @param predicate The predicate of the inputs to route.
+     * @param pipe      The pipe to flow the inputs through.
+     * @return This builder for chaining.
+     */
+    public @NonNull @This Builder<Input, Key, Output> when(
+        @NonNull Predicate<? super Input> predicate,
+        @NonNull SewerPipe<Input, Output> pipe
+    ) {
+      return this.when(predicate, Route.of(pipe));
+    }
+
+    /**
+     * Route inputs with no other branch to a system. By default, such inputs are filtered out.
+     *
+     * @param system The system to pump the inputs through.
+     * @return This builder for chaining.
+     */
+    public @NonNull @This Builder<Input, Key, Output> otherwise(@NonNull SewerSystem<Input, Output> system) {
+      this.otherwise = Route.of(system);
+      return this;
+    }
+
+    /**
+     * Route inputs with no other branch to a pipe. By default, such inputs are filtered out.
+     *
+     * @param pipe The pipe to flow the inputs through.
+     * @return This builder for chaining.
+     */
+    public @NonNull @This Builder<Input, Key, Output> otherwise(@NonNull SewerPipe<Input, Output> pipe) {
+      this.otherwise = Route.of(pipe);
+      return this;
+    }
+
+    /**
+     * Build a new {@link RoutingModule}.
+     *
+     * @return A new {@link RoutingModule} with the branches of this builder.
+     */
+    public @NonNull RoutingModule<Input, Output> build() {
+      return new RoutingModule<>(this.keyFunction, this.byKey, this.predicates, this.predicateRoutes, this.otherwise);
+    }
+
+    private @NonNull @This Builder<Input, Key, Output> route(Key key, @NonNull Route route) {
+      if (this.keyFunction == null) {
+        throw new IllegalStateException("this routes by predicates only");
+      }
+
+      this.byKey.put(key, route);
+      return this;
+    }
+
+    private @NonNull @This Builder<Input, Key, Output> when(
+        @NonNull Predicate<? super Input> predicate,
+        @NonNull Route route
+    ) {
+      this.predicates.add(predicate);
+      this.predicateRoutes.add(route);
+      return this;
+    }
+  }
+}
@@ -2,12 +2,24 @@ package com.proximyst.sewer;
 
 import com.proximyst.sewer.piping.NamedPipeResult;
 import com.proximyst.sewer.piping.PipeResult;
+import com.proximyst.sewer.piping.RejectedResult;
+import com.proximyst.sewer.piping.RetriedResult;
 import com.proximyst.sewer.piping.ThrowingResult;
+import com.proximyst.sewer.util.SewerInternalUtilTimer;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.common.returnsreceiver.qual.This;
 import org.checkerframework.common.value.qual.MinLen;
 
@@ -22,28 +34,77 @@ public final class SewerPipe<Input, Output> {
   private final @NonNull String pipeName;
   private final @NonNull Module<?, ?> @NonNull @MinLen(1) [] modules;
 
+  /**
+   * The executor to flow through this pipe on, or {@code null} to flow on whichever thread gets here.
+   */
+  private final @Nullable Executor executor;
+
+  /**
+   * The time a flow through this pipe may take, or {@code null} if it may take forever.
+   */
+  private final @Nullable Duration timeout;
+
+  /**
+   * The {@link #timeout} in nanoseconds, or {@code 0} if there is none.
+   */
+  private final long timeoutNanos;
+
+  /**
+   * The adaptive limit of flows through this pipe in flight at once, or {@code null} if flows are not limited.
+   */
+  private final @Nullable ConcurrencyLimit concurrencyLimit;
+
+  /**
+   * The breaker rejecting flows through this pipe while it keeps failing, or {@code null} if flows are never rejected.
+   */
+  private final @Nullable CircuitBreaker circuitBreaker;
+
+  /**
+   * Whether every flow through this pipe completes immediately, as it has no executor or concurrency limit, and only
+   * {@link ImmediateModule}s.
+   */
+  private final boolean immediate;
+
   /**
    * @param pipeName The name of the pipe.
    * @param module   The single module to use in this pipe.
-   * @see #SewerPipe(String, Module[])
+   * @see #SewerPipe(String, Module[], Executor, Duration, ConcurrencyLimit, CircuitBreaker)
    * @since 0.7.0
    */
   SewerPipe(@NonNull String pipeName, @NonNull Module<Input, Output> module) {
-    this(pipeName, new Module<?, ?>[]{module});
+    this(pipeName, new Module<?, ?>[]{module}, null, null, null, null);
   }
 
   /**
    * @param pipeName The name of the pipe.
    * @param modules  All the modules in this pipe; the first pipe must accept {@link Input} and the last must output an
    *                 {@link Output}.
-   * @since 0.7.0
+   * @param executor The executor to flow through this pipe on, or {@code null} to flow on whichever thread gets here.
+   * @param timeout  The time a flow through this pipe may take, or {@code null} if it may take forever.
+   * @param limit    The adaptive limit of flows in flight at once, or {@code null} if flows are not limited.
+   * @param breaker  The breaker rejecting flows while they keep failing, or {@code null} if flows are never rejected.
+   * @since 0.8.0
    */
   SewerPipe(
       @NonNull String pipeName,
-      @NonNull Module<?, ?> @NonNull @MinLen(1) [] modules
+      @NonNull Module<?, ?> @NonNull @MinLen(1) [] modules,
+      @Nullable Executor executor,
+      @Nullable Duration timeout,
+      @Nullable ConcurrencyLimit limit,
+      @Nullable CircuitBreaker breaker
   ) {
     this.pipeName = pipeName;
     this.modules = modules;
+    this.executor = executor;
+    this.timeout = timeout;
+    this.timeoutNanos = timeout == null ? 0L : SewerPipe.toNanos(timeout);
+    this.concurrencyLimit = limit;
+    this.circuitBreaker = breaker;
+    boolean immediate = executor == null && limit == null;
+    for (Module<?, ?> module : modules) {
+      immediate &= module instanceof ImmediateModule;
+    }
+    this.immediate = immediate;
   }
 
   /**
@@ -71,40 +132,575 @@ public final class SewerPipe<Input, Output> {
     return this.pipeName;
   }
 
+  /**
+   * @return The modules of this pipe, in order of flow.
+   * @since 0.8.0
+   */
+  @NonNull Module<?, ?> @NonNull @MinLen(1) [] getModules() {
+    return this.modules;
+  }
+
+  /**
+   * @return The executor this pipe flows on, or {@code null} if it flows on whichever thread gets to it.
+   * @since 0.8.0
+   */
+  public @Nullable Executor getExecutor() {
+    return this.executor;
+  }
+
+  /**
+   * @return The time a flow through this pipe may take, or {@code null} if it may take forever.
+   * @since 0.8.0
+   */
+  public @Nullable Duration getTimeout() {
+    return this.timeout;
+  }
+
+  /**
+   * @return The adaptive limit of flows through this pipe in flight at once, or {@code null} if flows are not limited.
+   * @since 0.8.0
+   */
+  public @Nullable ConcurrencyLimit getConcurrencyLimit() {
+    return this.concurrencyLimit;
+  }
+
+  /**
+   * @return The breaker rejecting flows through this pipe while it keeps failing, or {@code null} if flows are never
+   * rejected.
+   * @since 0.8.0
+   */
+  public @Nullable CircuitBreaker getCircuitBreaker() {
+    return this.circuitBreaker;
+  }
+
+  /**
+   * @return Whether every flow through this pipe completes immediately, such that it can never be cancelled.
+   * @since 0.8.0
+   */
+  boolean isImmediate() {
+    return this.immediate;
+  }
+
   /**
    * Flow an {@link Input} through this pipe's {@link Module modules}.
+   * <p>
+   * Modules which complete immediately are called directly; a {@link CompletableFuture} chain is only built from the
+   * first module which returns an incomplete future. If this pipe has an {@link #getExecutor() executor}, the flow
+   * starts on it.
+   * <p>
+   * Cancelling the returned future cancels the future of the module in flight, and flows through no later module.
    *
    * @param input The input to flow through.
    * @return A {@link CompletableFuture future-wrapped} {@link NamedPipeResult} of an {@link Output}. Be aware that this
    * is a <i>wrapper</i>, and is not an instance of {@link ThrowingResult} if some {@link Module} throws.
    * @since 0.7.0
    */
-  @SuppressWarnings("unchecked") // Required; we're trusting the constructors were called type-checked
   public @NonNull CompletableFuture<@NonNull NamedPipeResult<Output, ? extends PipeResult<Output>>> flow(Input input) {
-    CompletableFuture<NamedPipeResult<?, ? extends PipeResult<?>>> future = null;
-    for (Module<?, ?> module : this.modules) {
-      if (future == null) {
-        future = ((Module<Input, ? extends PipeResult<?>>) module).flow(input)
-            .thenApply(output -> new NamedPipeResult<>(this.getPipeName(), output));
-        continue;
+    if (this.immediate) {
+      return SewerPipe.asFuture(this.flowDirect(input, null, BlockingExecutor.getDefault(), null));
+    }
+
+    final PumpContext context = new PumpContext(null, input);
+    final Object direct = this.flowDirect(input, null, BlockingExecutor.getDefault(), context);
+    if (direct instanceof CompletableFuture) {
+      context.cancelWith((CompletableFuture<?>) direct);
+    }
+    return SewerPipe.asFuture(direct);
+  }
+
+  /**
+   * Flow an {@link Input} through this pipe's {@link Module modules}, calling them directly for as long as they
+   * complete immediately.
+   * <p>
+   * If this pipe has an open {@link #getCircuitBreaker() circuit breaker}, the flow is rejected right away. If this
+   * pipe has a {@link #getConcurrencyLimit() concurrency limit}, the flow waits for a permit first, or is rejected. If
+   * this pipe has an {@link #getExecutor() executor} other than the current one, the flow then hops onto it.
+   *
+   * @param input    The input to flow through.
+   * @param current  The executor the caller is running on, or {@code null} if unknown.
+   * @param blocking The executor to flow {@link BlockingModule}s on.
+   * @param context  The context of the pump, or {@code null} if it has none.
+   * @return Either the {@link NamedPipeResult} of this pipe, or a {@link CompletableFuture} of it if some module did
+   * not complete immediately, the flow waited for a permit, or the flow hopped executors.
+   * @since 0.8.0
+   */
+  @SuppressWarnings("unchecked")
+  @NonNull Object flowDirect(
+      Input input,
+      @Nullable Executor current,
+      @NonNull Executor blocking,
+      @Nullable PumpContext context
+  ) {
+    final CircuitBreaker breaker = this.circuitBreaker;
+    if (breaker == null) {
+      return this.flowTimed(input, current, blocking, context);
+    }
+
+    final Object permit = breaker.tryAcquire();
+    if (permit == null) {
+      return new NamedPipeResult<>(this.pipeName, CircuitBreaker.rejected());
+    }
+    final Object direct;
+    try {
+      direct = this.flowTimed(input, current, blocking, context);
+    } catch (Throwable throwable) {
+      breaker.release(permit, new ThrowingResult<>(throwable));
+      throw throwable;
+    }
+
+    // The breaker sees timeouts, as failing dependencies often hang rather than fail.
+    if (direct instanceof CompletableFuture) {
+      ((CompletableFuture<NamedPipeResult<?, ?>>) direct).whenComplete((result, throwable) ->
+          breaker.release(permit, SewerPipe.toResult(result == null ? null : result.getResult(), throwable)));
+    } else {
+      breaker.release(permit, ((NamedPipeResult<?, ?>) direct).getResult());
+    }
+    return direct;
+  }
+
+  /**
+   * Flow an {@link Input} through this pipe's {@link Module modules} within its concurrency limit and timeout.
+   *
+   * @param input    The input to flow through.
+   * @param current  The executor the caller is running on, or {@code null} if unknown.
+   * @param blocking The executor to flow {@link BlockingModule}s on.
+   * @param context  The context of the pump, or {@code null} if it has none.
+   * @return Either the {@link NamedPipeResult} of this pipe, or a {@link CompletableFuture} of it.
+   * @since 0.8.0
+   */
+  private @NonNull Object flowTimed(
+      Input input,
+      @Nullable Executor current,
+      @NonNull Executor blocking,
+      @Nullable PumpContext context
+  ) {
+    final long start = this.timeoutNanos == 0L ? 0L : System.nanoTime();
+    final Object direct = this.concurrencyLimit == null
+        ? this.flowOn(input, current, blocking, context)
+        : this.flowLimited(this.concurrencyLimit, input, current, blocking, context);
+
+    if (this.timeoutNanos == 0L || !(direct instanceof CompletableFuture)) {
+      return direct;
+    }
+    return SewerPipe.withTimeout(
+        (CompletableFuture<?>) direct,
+        this.timeoutNanos - (System.nanoTime() - start),
+        () -> new NamedPipeResult<>(
+            this.pipeName,
+            new ThrowingResult<>(new PipeTimeoutException(this.pipeName, Objects.requireNonNull(this.timeout)))
+        ),
+        context
+    );
+  }
+
+  /**
+   * Flow an {@link Input} through this pipe's {@link Module modules} within its concurrency limit.
+   *
+   * @param limit    The concurrency limit of this pipe.
+   * @param input    The input to flow through.
+   * @param current  The executor the caller is running on, or {@code null} if unknown.
+   * @param blocking The executor to flow {@link BlockingModule}s on.
+   * @param context  The context of the pump, or {@code null} if it has none.
+   * @return Either the {@link NamedPipeResult} of this pipe, or a {@link CompletableFuture} of it.
+   * @since 0.8.0
+   */
+  @SuppressWarnings("unchecked")
+  private @NonNull Object flowLimited(
+      @NonNull ConcurrencyLimit limit,
+      Input input,
+      @Nullable Executor current,
+      @NonNull Executor blocking,
+      @Nullable PumpContext context
+  ) {
+    if (limit.tryAcquire()) {
+      return this.flowAcquired(limit, input, current, blocking, context);
+    }
+
+    final CompletableFuture<NamedPipeResult<?, ?>> queued = new CompletableFuture<>();
+    final boolean accepted = limit.enqueue(() -> {
+      if (queued.isDone() || (context != null && context.isCancelled())) {
+        limit.releaseUnsampled();
+        queued.complete(SewerPipe.cancelled(this.pipeName));
+        return;
       }
 
-      final CompletableFuture<NamedPipeResult<?, ? extends PipeResult<?>>> preModificationFuture = future;
-      future = future.thenCompose(res -> {
-        if (!res.mayContinue()) {
-          return preModificationFuture;
+      // The flow starts on the thread which returned the permit, so it cannot be on the caller's executor.
+      SewerPipe.<NamedPipeResult<?, ?>>asFuture(this.flowAcquired(limit, input, null, blocking, context))
+          .whenComplete((result, throwable) -> {
+            if (throwable != null) {
+              queued.completeExceptionally(throwable);
+            } else {
+              queued.complete(result);
+            }
+          });
+    });
+    if (!accepted) {
+      return new NamedPipeResult<>(
+          this.pipeName,
+          new RejectedResult<>("concurrency limit of " + limit.getLimit() + " reached")
+      );
+    }
+    return queued;
+  }
+
+  /**
+   * Flow an {@link Input} through this pipe's {@link Module modules} holding a permit of its concurrency limit, and
+   * return the permit once the flow completes.
+   *
+   * @param limit    The concurrency limit of this pipe.
+   * @param input    The input to flow through.
+   * @param current  The executor the caller is running on, or {@code null} if unknown.
+   * @param blocking The executor to flow {@link BlockingModule}s on.
+   * @param context  The context of the pump, or {@code null} if it has none.
+   * @return Either the {@link NamedPipeResult} of this pipe, or a {@link CompletableFuture} of it.
+   * @since 0.8.0
+   */
+  @SuppressWarnings("unchecked")
+  private @NonNull Object flowAcquired(
+      @NonNull ConcurrencyLimit limit,
+      Input input,
+      @Nullable Executor current,
+      @NonNull Executor blocking,
+      @Nullable PumpContext context
+  ) {
+    final long start = System.nanoTime();
+    final Object direct;
+    try {
+      direct = this.flowOn(input, current, blocking, context);
+    } catch (Throwable throwable) {
+      limit.release(start, null);
+      throw throwable;
+    }
+
+    if (direct instanceof CompletableFuture) {
+      ((CompletableFuture<NamedPipeResult<?, ?>>) direct).whenComplete((result, throwable) ->
+          limit.release(start, result == null ? null : result.getResult()));
+    } else {
+      limit.release(start, ((NamedPipeResult<?, ?>) direct).getResult());
+    }
+    return direct;
+  }
+
+  /**
+   * Flow an {@link Input} through this pipe's {@link Module modules}, hopping onto the executor of this pipe if it has
+   * one other than the current one.
+   *
+   * @param input    The input to flow through.
+   * @param current  The executor the caller is running on, or {@code null} if unknown.
+   * @param blocking The executor to flow {@link BlockingModule}s on.
+   * @param context  The context of the pump, or {@code null} if it has none.
+   * @return Either the {@link NamedPipeResult} of this pipe, or a {@link CompletableFuture} of it.
+   * @since 0.8.0
+   */
+  private @NonNull Object flowOn(
+      Input input,
+      @Nullable Executor current,
+      @NonNull Executor blocking,
+      @Nullable PumpContext context
+  ) {
+    final Executor executor = this.executor;
+    if (executor == null || executor == current) {
+      return this.flowFrom(0, input, blocking, context);
+    }
+
+    try {
+      return CompletableFuture
+          .supplyAsync(() -> this.flowFrom(0, input, blocking, context), executor)
+          .thenCompose(SewerPipe::asFuture);
+    } catch (Throwable throwable) {
+      // The executor may reject the flow, or throw anything else it likes.
+      return new NamedPipeResult<>(this.pipeName, new ThrowingResult<>(throwable));
+    }
+  }
+
+  /**
+   * Flow an input through this pipe's {@link Module modules}, starting at the module at the given index.
+   *
+   * @param index    The index of the first module to flow through.
+   * @param input    The input to the module at the given index.
+   * @param blocking The executor to flow {@link BlockingModule}s on.
+   * @param context  The context of the pump, or {@code null} if it has none.
+   * @return Either the {@link NamedPipeResult} of this pipe, or a {@link CompletableFuture} of it if some module did
+   * not complete immediately.
+   * @since 0.8.0
+   */
+  @SuppressWarnings("unchecked") // Required; we're trusting the constructors were called type-checked
+  private @NonNull Object flowFrom(
+      int index,
+      @Nullable Object input,
+      @NonNull Executor blocking,
+      @Nullable PumpContext context
+  ) {
+    final boolean listening = context != null && context.isListening();
+    PipeResult<?> result = null;
+    Object value = input;
+    for (int i = index; i < this.modules.length; ++i) {
+      final Module<Object, ?> module = (Module<Object, ?>) this.modules[i];
+      final long start = listening ? System.nanoTime() : 0L;
+      if (module instanceof ImmediateModule) {
+        try {
+          result = SewerPipe.toResult(((ImmediateModule<Object, ?>) module).flowImmediately(value), null);
+        } catch (Throwable throwable) {
+          result = new ThrowingResult<>(throwable);
+        }
+      } else {
+        CompletableFuture<? extends PipeResult<?>> future;
+        try {
+          future = SewerPipe.flow(module, value, blocking, context == null ? CancellationToken.none() : context);
+        } catch (Throwable throwable) {
+          future = null;
+          result = new ThrowingResult<>(throwable);
+        }
+
+        if (future != null && !future.isDone()) {
+          if (context != null) {
+            context.inFlight(future);
+          }
+
+          final int moduleIndex = i;
+          final Function<PipeResult<?>, CompletableFuture<NamedPipeResult<?, ?>>> next = res -> {
+            if (listening) {
+              context.moduleEnd(this.pipeName, moduleIndex, res, System.nanoTime() - start);
+            }
+            if (!res.mayContinue() || moduleIndex + 1 == this.modules.length) {
+              return CompletableFuture.completedFuture(SewerPipe.named(this.pipeName, res));
+            }
+            if (context != null && context.isCancelled()) {
+              return CompletableFuture.completedFuture(SewerPipe.cancelled(this.pipeName));
+            }
+
+            return SewerPipe.asFuture(
+                this.flowFrom(moduleIndex + 1, res.asOptional().orElse(null), blocking, context)
+            );
+          };
+          // The future may complete on any thread, so later modules hop back onto the executor of this pipe.
+          final CompletableFuture<PipeResult<?>> handled = future.handle(SewerPipe::toResult);
+          return this.executor == null || moduleIndex + 1 == this.modules.length
+              ? handled.thenCompose(next)
+              : handled.thenComposeAsync(next, this.executor);
+        }
+
+        if (future != null) {
+          result = SewerPipe.getDone(future);
         }
+      }
 
-        return ((Module<Object, ?>) module).flow(res.asOptional().orElse(null))
-            .thenApply(output -> new NamedPipeResult<>(this.getPipeName(), output));
-      });
+      if (listening) {
+        context.moduleEnd(this.pipeName, i, result, System.nanoTime() - start);
+      }
+      if (!result.mayContinue()) {
+        break;
+      }
+      value = result.asOptional().orElse(null);
     }
 
     // #requireNonNull because there is always at least 1 module.
-    return (CompletableFuture<NamedPipeResult<Output, ? extends PipeResult<Output>>>) (CompletableFuture<?>)
-        Objects.requireNonNull(future)
-            .exceptionally(throwable ->
-                new NamedPipeResult<>(this.getPipeName(), new ThrowingResult<Output>(throwable)));
+    return SewerPipe.named(this.pipeName, Objects.requireNonNull(result));
+  }
+
+  /**
+   * Flow an input through a module which may not complete immediately.
+   *
+   * @param module   The module to flow through.
+   * @param input    The input to the module.
+   * @param blocking The executor to flow the module on if it is, or is a {@link DelegatingModule} flowing, a {@link
+   *                 BlockingModule}.
+   * @param token    The token to give the module if it is, or is a {@link DelegatingModule} flowing, a {@link
+   *                 CancellableModule}.
+   * @return A future-wrapped result of the module.
+   * @since 0.8.0
+   */
+  @SuppressWarnings("unchecked")
+  static @NonNull CompletableFuture<? extends PipeResult<?>> flow(
+      @NonNull Module<?, ?> module,
+      @Nullable Object input,
+      @NonNull Executor blocking,
+      @NonNull CancellationToken token
+  ) {
+    if (module instanceof CancellableModule) {
+      return ((CancellableModule<Object, ?>) module).flow(input, token);
+    }
+    if (module instanceof BlockingModule) {
+      return ((BlockingModule<Object, ?>) module).flow(input, blocking);
+    }
+    if (module instanceof DelegatingModule) {
+      return ((DelegatingModule<Object, ?>) module).flow(input, blocking, token);
+    }
+
+    return ((Module<Object, ?>) module).flow(input);
+  }
+
+  /**
+   * Turn the outcome of a module's {@link CompletableFuture} into a {@link PipeResult}.
+   *
+   * @param result    The result the future completed with, if any.
+   * @param throwable The throwable the future completed with, if any.
+   * @return The result, or a {@link ThrowingResult} if the future failed or completed with {@code null}.
+   * @since 0.8.0
+   */
+  static @NonNull PipeResult<?> toResult(@Nullable PipeResult<?> result, @Nullable Throwable throwable) {
+    if (throwable != null) {
+      if (throwable instanceof CompletionException && throwable.getCause() != null) {
+        throwable = throwable.getCause();
+      }
+      return new ThrowingResult<>(throwable);
+    }
+    if (result == null) {
+      return new ThrowingResult<>(new NullPointerException("module returned a null result"));
+    }
+    return result;
+  }
+
+  /**
+   * Name the final result of a flow, unwrapping it if it is a {@link RetriedResult}.
+   *
+   * @param pipeName The name of the pipe the result originates from.
+   * @param result   The final result of a module of the pipe.
+   * @return A {@link NamedPipeResult} of the result, recording its attempt count.
+   * @since 0.8.0
+   */
+  static @NonNull NamedPipeResult<?, ?> named(@NonNull String pipeName, @NonNull PipeResult<?> result) {
+    if (result instanceof RetriedResult) {
+      final RetriedResult<?> retried = (RetriedResult<?>) result;
+      return new NamedPipeResult<>(pipeName, retried.getResult(), retried.getAttempts());
+    }
+
+    return new NamedPipeResult<>(pipeName, result);
+  }
+
+  /**
+   * Create the result of a flow which was cancelled.
+   *
+   * @param pipeName The name of the pipe which was flowing.
+   * @param <Output> The output type of the pipe.
+   * @return A {@link NamedPipeResult} of a {@link ThrowingResult} of a {@link CancellationException}.
+   * @since 0.8.0
+   */
+  static <Output> @NonNull NamedPipeResult<Output, ThrowingResult<Output>> cancelled(@NonNull String pipeName) {
+    return new NamedPipeResult<>(pipeName, new ThrowingResult<>(new CancellationException("pump was cancelled")));
+  }
+
+  /**
+   * Get the {@link PipeResult} of a {@link CompletableFuture#isDone() done} future without blocking.
+   *
+   * @param future The done future.
+   * @return The result of the future, or a {@link ThrowingResult} if it failed.
+   * @since 0.8.0
+   */
+  static @NonNull PipeResult<?> getDone(@NonNull CompletableFuture<? extends PipeResult<?>> future) {
+    try {
+      return SewerPipe.toResult(future.getNow(null), null);
+    } catch (Throwable throwable) {
+      return SewerPipe.toResult(null, throwable);
+    }
+  }
+
+  /**
+   * Complete a future with a fallback value unless another future completes first.
+   * <p>
+   * The deadline is scheduled on the shared hashed-wheel timer, and disarmed as soon as the future completes. A future
+   * which times out is completed on the {@link ForkJoinPool#commonPool() common pool}, such that its dependents never
+   * run on the timer thread. The flow which timed out is then stopped by cancelling its pump, if it has a context, and
+   * by cancelling the future itself, such that whatever the flow holds until it completes, such as a permit of a
+   * concurrency limit, is returned even if nothing cancels its module.
+   *
+   * @param future     The future to race against the deadline.
+   * @param delayNanos The time left until the deadline, in nanoseconds.
+   * @param timedOut   The supplier of the value to complete with if the deadline passes first.
+   * @param context    The context of the pump to cancel once the deadline passes, or {@code null} if it has none.
+   * @param <T>        The type of the value.
+   * @return A future completed with either the value of the future or the fallback value.
+   * @since 0.8.0
+   */
+  @SuppressWarnings({"unchecked", "deprecation"}) // Internal class warning.
+  static <T> @NonNull CompletableFuture<T> withTimeout(
+      @NonNull CompletableFuture<?> future,
+      long delayNanos,
+      @NonNull Supplier<? extends T> timedOut,
+      @Nullable PumpContext context
+  ) {
+    final CompletableFuture<T> timed = new CompletableFuture<>();
+    // Complete with the timeout first, such that cancelling the pump cannot complete it with a cancellation instead.
+    final Runnable expire = () -> {
+      timed.complete(timedOut.get());
+      if (context != null) {
+        context.cancel();
+      }
+      future.cancel(true);
+    };
+    if (delayNanos <= 0L) {
+      expire.run();
+      return timed;
+    }
+
+    final SewerInternalUtilTimer.Timeout timeout = SewerInternalUtilTimer.schedule(
+        () -> ForkJoinPool.commonPool().execute(expire),
+        delayNanos,
+        TimeUnit.NANOSECONDS
+    );
+    future.whenComplete((result, throwable) -> {
+      timeout.cancel();
+      if (throwable != null) {
+        timed.completeExceptionally(throwable);
+      } else {
+        timed.complete((T) result);
+      }
+    });
+    return timed;
+  }
+
+  /**
+   * Convert a timeout to nanoseconds.
+   *
+   * @param timeout The timeout to convert.
+   * @return The timeout in nanoseconds, capped such that adding it to {@link System#nanoTime()} cannot overflow badly.
+   * @throws IllegalArgumentException If the timeout is not positive.
+   * @since 0.8.0
+   */
+  static long toNanos(@NonNull Duration timeout) {
+    if (timeout.isNegative() || timeout.isZero()) {
+      throw new IllegalArgumentException("timeout must be positive, but is " + timeout);
+    }
+
+    try {
+      return Math.min(Long.MAX_VALUE / 4, timeout.toNanos());
+    } catch (ArithmeticException ex) {
+      return Long.MAX_VALUE / 4;
+    }
+  }
+
+  /**
+   * Wrap the result of a direct flow in a {@link CompletableFuture}, unless it already is one.
+   *
+   * @param direct Either a result, or a {@link CompletableFuture} of one.
+   * @param <T>    The type of the result.
+   * @return A future of the result.
+   * @since 0.8.0
+   */
+  @SuppressWarnings("unchecked")
+  static <T> @NonNull CompletableFuture<T> asFuture(@NonNull Object direct) {
+    if (direct instanceof CompletableFuture) {
+      return (CompletableFuture<T>) direct;
+    }
+
+    return CompletableFuture.completedFuture((T) direct);
+  }
+
+  /**
+   * Unwrap the result of a direct flow, waiting for it if it is a {@link CompletableFuture}.
+   *
+   * @param direct Either a result, or a {@link CompletableFuture} of one.
+   * @param <T>    The type of the result.
+   * @return The result.
+   * @since 0.8.0
+   */
+  @SuppressWarnings("unchecked")
+  static <T> T join(@NonNull Object direct) {
+    if (direct instanceof CompletableFuture) {
+      return ((CompletableFuture<T>) direct).join();
+    }
+
+    return (T) direct;
   }
 
   /**
@@ -129,6 +725,34 @@ public final class SewerPipe<Input, Output> {
      */
     private final @NonNull @MinLen(1) List<@NonNull Module<?, ?>> modules;
 
+    /**
+     * The executor to flow through the pipe on.
+     *
+     * @since 0.8.0
+     */
+    private @Nullable Executor executor;
+
+    /**
+     * The time a flow through the pipe may take.
+     *
+     * @since 0.8.0
+     */
+    private @Nullable Duration timeout;
+
+    /**
+     * The adaptive limit of flows through the pipe in flight at once.
+     *
+     * @since 0.8.0
+     */
+    private @Nullable ConcurrencyLimit concurrencyLimit;
+
+    /**
+     * The breaker rejecting flows through the pipe while they keep failing.
+     *
+     * @since 0.8.0
+     */
+    private @Nullable CircuitBreaker circuitBreaker;
+
     /**
      * @param name   The name of the pipe to be created.
      * @param module The first module in this pipe.
@@ -156,13 +780,93 @@ public final class SewerPipe<Input, Output> {
       return (Builder<Input, NewOutput>) this;
     }
 
+    /**
+     * Set the executor to flow through the pipe on.
+     * <p>
+     * A {@link SewerSystem} only hops onto the executor if the pipe before it flowed on a different executor; otherwise
+     * the pipe flows on the same thread. Without an executor, the pipe flows on whichever thread completed the pipe
+     * before it.
+     *
+     * @param executor The executor to flow on, or {@code null} to flow on whichever thread gets to the pipe.
+     * @return This builder for chaining.
+     * @since 0.8.0
+     */
+    public @NonNull @This Builder<Input, Output> executor(@Nullable Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    /**
+     * Set the time a flow through the pipe may take. By default, flows may take forever.
+     * <p>
+     * If a flow does not complete in time, it results in a {@link ThrowingResult} of a {@link PipeTimeoutException}
+     * naming this pipe. Modules which complete immediately are never interrupted, so only flows which go asynchronous
+     * can time out. Timeouts are armed on a shared hashed-wheel timer with a resolution of about a millisecond. A flow
+     * which times out is cancelled, such that the future of the module in flight is cancelled and no later module is
+     * flowed through.
+     *
+     * @param timeout The time a flow may take, or {@code null} if it may take forever.
+     * @return This builder for chaining.
+     * @throws IllegalArgumentException If the timeout is not positive.
+     * @since 0.8.0
+     */
+    public @NonNull @This Builder<Input, Output> timeout(@Nullable Duration timeout) {
+      if (timeout != null) {
+        SewerPipe.toNanos(timeout);
+      }
+
+      this.timeout = timeout;
+      return this;
+    }
+
+    /**
+     * Limit the amount of flows through the pipe in flight at once, adapting the limit to their latency. By default,
+     * flows are not limited.
+     * <p>
+     * Flows over the limit wait for a permit if the limit has room in its queue, and otherwise result in a {@link
+     * RejectedResult} right away. The time spent waiting counts towards the {@link #timeout(Duration) timeout}.
+     * Batches are not limited.
+     *
+     * @param limit The limit of flows in flight, which must not be used by any other pipe, or {@code null} to not
+     *              limit flows.
+     * @return This builder for chaining.
+     * @since 0.8.0
+     */
+    public @NonNull @This Builder<Input, Output> concurrencyLimit(@Nullable ConcurrencyLimit limit) {
+      this.concurrencyLimit = limit;
+      return this;
+    }
+
+    /**
+     * Guard the pipe with a circuit breaker, which rejects flows with a {@link RejectedResult} right away while they
+     * keep failing. By default, flows are never rejected.
+     * <p>
+     * The breaker sees the result of the whole pipe, including {@link #timeout(Duration) timeouts}. Batches are not
+     * guarded.
+     *
+     * @param breaker The breaker guarding the pipe, or {@code null} to never reject flows.
+     * @return This builder for chaining.
+     * @since 0.8.0
+     */
+    public @NonNull @This Builder<Input, Output> circuitBreaker(@Nullable CircuitBreaker breaker) {
+      this.circuitBreaker = breaker;
+      return this;
+    }
+
     /**
      * Build a new {@link SewerPipe}, taking an {@link Input} in exchange for an {@link Output}.
      *
      * @return A new {@link SewerPipe} with the modules added through this builder.
      */
     public @NonNull SewerPipe<Input, Output> build() {
-      return new SewerPipe<>(name, modules.toArray(new Module<?, ?>[0]));
+      return new SewerPipe<>(
+          name,
+          modules.toArray(new Module<?, ?>[0]),
+          executor,
+          timeout,
+          concurrencyLimit,
+          circuitBreaker
+      );
     }
   }
 }
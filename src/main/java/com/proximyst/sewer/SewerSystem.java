@@ -1,13 +1,24 @@
 package com.proximyst.sewer;
 
+import com.proximyst.sewer.metrics.PipeMetrics;
+import com.proximyst.sewer.metrics.SewerMetrics;
 import com.proximyst.sewer.piping.NamedPipeResult;
 import com.proximyst.sewer.piping.PipeResult;
 import com.proximyst.sewer.piping.ThrowingResult;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.common.returnsreceiver.qual.This;
 import org.checkerframework.common.value.qual.MinLen;
 
@@ -28,11 +39,91 @@ public class SewerSystem<Input, Output> {
   private final @NonNull SewerPipe<?, ?> @NonNull @MinLen(1) [] pipeline;
 
   /**
-   * @param pipeline The pipes to use in this system.
-   * @since 0.7.0
+   * The executor to flow {@link BlockingModule}s on.
+   *
+   * @since 0.8.0
+   */
+  private final @NonNull Executor blockingExecutor;
+
+  /**
+   * The metrics of every pipe in this system, in the same order as the {@link #pipeline}, or {@code null} if metrics
+   * are disabled.
+   *
+   * @since 0.8.0
+   */
+  private final @NonNull PipeMetrics @Nullable [] pipeMetrics;
+
+  /**
+   * The listener to dispatch the flow of every pump to, or {@code null} if none.
+   *
+   * @since 0.8.0
+   */
+  private final @Nullable PipelineListener listener;
+
+  /**
+   * The pumps in flight to coalesce concurrent pumps of the same key with, or {@code null} if pumps are not coalesced.
+   *
+   * @since 0.8.0
+   */
+  private final @Nullable PumpCoalescer<Input> coalescer;
+
+  /**
+   * The time a pump through this system may take, or {@code null} if it may take forever.
+   *
+   * @since 0.8.0
+   */
+  private final @Nullable Duration timeout;
+
+  /**
+   * The {@link #timeout} in nanoseconds, or {@code 0} if there is none.
+   *
+   * @since 0.8.0
+   */
+  private final long timeoutNanos;
+
+  /**
+   * Whether every pump through this system completes immediately, such that it can never be cancelled.
+   *
+   * @since 0.8.0
    */
-  private SewerSystem(@NonNull SewerPipe<?, ?> @NonNull @MinLen(1) [] pipeline) {
+  private final boolean immediate;
+
+  /**
+   * @param pipeline         The pipes to use in this system.
+   * @param blockingExecutor The executor to flow {@link BlockingModule}s on.
+   * @param metrics          The metrics registry to record pipe flows in, or {@code null} to disable metrics.
+   * @param listener         The listener to dispatch the flow of every pump to, or {@code null} if none.
+   * @param coalescer        The pumps in flight to coalesce pumps with, or {@code null} if pumps are not coalesced.
+   * @param timeout          The time a pump may take, or {@code null} if it may take forever.
+   * @since 0.8.0
+   */
+  private SewerSystem(
+      @NonNull SewerPipe<?, ?> @NonNull @MinLen(1) [] pipeline,
+      @NonNull Executor blockingExecutor,
+      @Nullable SewerMetrics metrics,
+      @Nullable PipelineListener listener,
+      @Nullable PumpCoalescer<Input> coalescer,
+      @Nullable Duration timeout
+  ) {
     this.pipeline = pipeline;
+    this.blockingExecutor = blockingExecutor;
+    this.listener = listener;
+    this.coalescer = coalescer;
+    this.timeout = timeout;
+    this.timeoutNanos = timeout == null ? 0L : SewerPipe.toNanos(timeout);
+    boolean immediate = true;
+    for (SewerPipe<?, ?> pipe : pipeline) {
+      immediate &= pipe.isImmediate();
+    }
+    this.immediate = immediate;
+    if (metrics == null) {
+      this.pipeMetrics = null;
+    } else {
+      this.pipeMetrics = new PipeMetrics[pipeline.length];
+      for (int i = 0; i < pipeline.length; ++i) {
+        this.pipeMetrics[i] = metrics.pipe(pipeline[i].getPipeName());
+      }
+    }
   }
 
   /**
@@ -71,43 +162,345 @@ public class SewerSystem<Input, Output> {
 
   /**
    * Pump an {@link Input} through this system's {@link SewerPipe pipes}.
+   * <p>
+   * Modules which complete immediately are called directly; a {@link CompletableFuture} chain is only built from the
+   * first module which returns an incomplete future.
+   * <p>
+   * If the system {@link Builder#coalescing() coalesces pumps}, and a pump of the same key is already in flight, its
+   * result is used instead. Every caller gets a future of its own, so completing or cancelling it does not affect the
+   * other callers.
+   * <p>
+   * Cancelling the returned future cancels the pump: the future of the module in flight is cancelled, {@link
+   * CancellableModule}s are told through their {@link CancellationToken}, and no later module or pipe is flowed
+   * through. Futures shared by coalesced pumps do not cancel the pump they share.
    *
    * @param input The input to flow through this system.
    * @return A {@link CompletableFuture future-wrapped} {@link NamedPipeResult} of an {@link Output}. Be aware that this
    * is a <i>wrapper</i>, and is not an instance of {@link ThrowingResult} if some {@link SewerPipe} throws.
+   * @see #pumpSync(Object)
    * @since 0.7.0
    */
-  @SuppressWarnings("unchecked")
   public @NonNull CompletableFuture<@NonNull NamedPipeResult<Output, ? extends PipeResult<Output>>> pump(
       final Input input
   ) {
-    CompletableFuture<NamedPipeResult<?, ? extends PipeResult<?>>> underways = null;
-    for (SewerPipe<?, ?> pipe : pipeline) {
-      if (underways == null) {
+    return SewerPipe.asFuture(this.pumpDirect(input));
+  }
+
+  /**
+   * Pump an {@link Input} through this system's {@link SewerPipe pipes}, returning the result directly.
+   * <p>
+   * If every module completes immediately, such as those created by {@link Module#immediately}, {@link
+   * Module#immediatelyWrapping} and {@link Module#filtering}, no {@link CompletableFuture} is created at all. If some
+   * module returns an incomplete future, the rest of the system is pumped asynchronously and <b>this blocks</b> until
+   * it is done.
+   *
+   * @param input The input to flow through this system.
+   * @return A {@link NamedPipeResult} of an {@link Output}. Be aware that this is a <i>wrapper</i>, and is not an
+   * instance of {@link ThrowingResult} if some {@link SewerPipe} throws.
+   * @see #pump(Object)
+   * @since 0.8.0
+   */
+  public @NonNull NamedPipeResult<Output, ? extends PipeResult<Output>> pumpSync(final Input input) {
+    return SewerPipe.join(this.pumpDirect(input));
+  }
+
+  /**
+   * Pump a batch of {@link Input}s through this system's {@link SewerPipe pipes}.
+   * <p>
+   * Every module is called once per input, except {@link BatchModule}s, which are called once with every input still
+   * flowing. Inputs which are filtered or throw drop out of the batch before later modules.
+   * <p>
+   * <strong>A batch bypasses everything applied per pump.</strong> The {@link Builder#timeout(Duration) timeout} of
+   * the system and of its pipes, the {@link SewerPipe.Builder#concurrencyLimit(ConcurrencyLimit) concurrency limits}
+   * and {@link SewerPipe.Builder#circuitBreaker(CircuitBreaker) circuit breakers} of its pipes, and {@link
+   * Builder#coalescing() coalescing} are not applied, and the batch cannot be cancelled: {@link CancellableModule}s are
+   * given {@link CancellationToken#none()}. Modules which apply these themselves, such as {@link
+   * Module#circuitBreaking(Module, CircuitBreaker)}, still do so for every input. Use {@link #pump(Object)} or {@link
+   * #pumpEach(Iterator, int, Consumer)} where these must apply.
+   *
+   * @param inputs The inputs to flow through this system.
+   * @return A {@link CompletableFuture future-wrapped} list of one {@link NamedPipeResult} of an {@link Output} per
+   * input, in the same order as the inputs. Each names the pipe which stopped or finished its input.
+   * @see BatchModule
+   * @since 0.8.0
+   */
+  public @NonNull CompletableFuture<@NonNull List<NamedPipeResult<Output, ? extends PipeResult<Output>>>> pumpAll(
+      final @NonNull List<Input> inputs
+  ) {
+    final BatchFlow batch = new BatchFlow(inputs, this.blockingExecutor, this.listener);
+    CompletableFuture<Void> future = CompletableFuture.completedFuture(null);
+    for (int i = 0; i < this.pipeline.length; ++i) {
+      final SewerPipe<?, ?> pipe = this.pipeline[i];
+      final PipeMetrics metrics = this.pipeMetrics == null ? null : this.pipeMetrics[i];
+      final Executor executor = pipe.getExecutor();
+      future = executor == null
+          ? future.thenCompose(ignored -> batch.flow(pipe, metrics))
+          : future.thenComposeAsync(ignored -> batch.flow(pipe, metrics), executor);
+    }
+
+    return future.thenApply(ignored -> batch.finish());
+  }
+
+  /**
+   * Pump every {@link Input} of an {@link Iterator} through this system's {@link SewerPipe pipes}, with at most {@code
+   * maxInFlight} pumps in flight at any time.
+   * <p>
+   * Inputs are only pulled from the iterator as earlier pumps complete, such that a slow asynchronous module holds
+   * back the iterator instead of piling up pumps. The iterator is never used by more than one thread at a time. The
+   * consumer is called with every result as its pump completes, which may be out of order and on different threads,
+   * but never concurrently.
+   * <p>
+   * If the iterator or consumer throws, no further inputs are pulled, and the returned future completes exceptionally
+   * once the pumps in flight are done.
+   *
+   * @param inputs      The inputs to flow through this system.
+   * @param maxInFlight The maximum amount of pumps in flight at any time.
+   * @param consumer    The consumer of every result.
+   * @return A future completed once every input has been pumped and its result consumed.
+   * @throws IllegalArgumentException If {@code maxInFlight} is not positive.
+   * @since 0.8.0
+   */
+  public @NonNull CompletableFuture<Void> pumpEach(
+      final @NonNull Iterator<? extends Input> inputs,
+      final int maxInFlight,
+      final @NonNull Consumer<? super NamedPipeResult<Output, ? extends PipeResult<Output>>> consumer
+  ) {
+    return new BoundedPump<>(this, inputs, maxInFlight, consumer).start();
+  }
+
+  /**
+   * Pump every {@link Input} of a {@link Spliterator} through this system's {@link SewerPipe pipes}, with at most
+   * {@code maxInFlight} pumps in flight at any time.
+   *
+   * @param inputs      The inputs to flow through this system.
+   * @param maxInFlight The maximum amount of pumps in flight at any time.
+   * @param consumer    The consumer of every result.
+   * @return A future completed once every input has been pumped and its result consumed.
+   * @throws IllegalArgumentException If {@code maxInFlight} is not positive.
+   * @see #pumpEach(Iterator, int, Consumer)
+   * @since 0.8.0
+   */
+  public @NonNull CompletableFuture<Void> pumpEach(
+      final @NonNull Spliterator<? extends Input> inputs,
+      final int maxInFlight,
+      final @NonNull Consumer<? super NamedPipeResult<Output, ? extends PipeResult<Output>>> consumer
+  ) {
+    return this.pumpEach(Spliterators.iterator(inputs), maxInFlight, consumer);
+  }
+
+  /**
+   * Pump every {@link Input} of a {@link Stream} through this system's {@link SewerPipe pipes}, with at most {@code
+   * maxInFlight} pumps in flight at any time.
+   * <p>
+   * The stream is consumed lazily, and is not closed by this method.
+   *
+   * @param inputs      The inputs to flow through this system.
+   * @param maxInFlight The maximum amount of pumps in flight at any time.
+   * @param consumer    The consumer of every result.
+   * @return A future completed once every input has been pumped and its result consumed.
+   * @throws IllegalArgumentException If {@code maxInFlight} is not positive.
+   * @see #pumpEach(Iterator, int, Consumer)
+   * @since 0.8.0
+   */
+  public @NonNull CompletableFuture<Void> pumpEach(
+      final @NonNull Stream<? extends Input> inputs,
+      final int maxInFlight,
+      final @NonNull Consumer<? super NamedPipeResult<Output, ? extends PipeResult<Output>>> consumer
+  ) {
+    return this.pumpEach(inputs.iterator(), maxInFlight, consumer);
+  }
+
+  /**
+   * Pump an {@link Input} through this system's {@link SewerPipe pipes}, calling modules directly for as long as they
+   * complete immediately.
+   *
+   * @param input The input to flow through this system.
+   * @return Either the final {@link NamedPipeResult}, or a {@link CompletableFuture} of it if some module did not
+   * complete immediately.
+   * @since 0.8.0
+   */
+  @NonNull Object pumpDirect(final Input input) {
+    if (this.coalescer == null) {
+      return this.pumpOnce(input);
+    }
+
+    try {
+      return this.coalescer.pump(input, this::pumpOnce);
+    } catch (Throwable throwable) {
+      // The key extractor may throw before anything is pumped.
+      return new NamedPipeResult<>(this.getFirstPipeName(), new ThrowingResult<>(throwable));
+    }
+  }
+
+  /**
+   * Get the amount of pumps which joined a pump of the same key in flight rather than pumping again.
+   *
+   * @return The amount of coalesced pumps, or {@code 0} if the system does not {@link Builder#coalescing() coalesce
+   * pumps}.
+   * @since 0.8.0
+   */
+  public long getCoalescedPumps() {
+    return this.coalescer == null ? 0L : this.coalescer.getCoalesced();
+  }
+
+  /**
+   * @return The name of the first pipe of this system, to name the results of pumps which failed before flowing.
+   * @since 0.8.0
+   */
+  @NonNull String getFirstPipeName() {
+    return this.pipeline[0].getPipeName();
+  }
+
+  /**
+   * Pump an {@link Input} through this system's {@link SewerPipe pipes} without coalescing it, dispatching the pump to
+   * the listener if there is one, bounding it by the timeout if there is one, and cancelling it once the returned
+   * future is cancelled.
+   *
+   * @param input The input to flow through this system.
+   * @return Either the final {@link NamedPipeResult}, or a {@link CompletableFuture} of it if some module did not
+   * complete immediately.
+   * @since 0.8.0
+   */
+  @SuppressWarnings("unchecked")
+  private @NonNull Object pumpOnce(final Input input) {
+    if (this.listener == null && this.timeoutNanos == 0L && this.immediate) {
+      return this.pumpFrom(0, input, null, null);
+    }
+
+    final PumpContext context = new PumpContext(this.listener, input);
+    final Object direct = this.pumpFrom(0, input, null, context);
+    if (!(direct instanceof CompletableFuture)) {
+      context.pumpEnd((NamedPipeResult<?, ?>) direct);
+      return direct;
+    }
+
+    CompletableFuture<NamedPipeResult<?, ?>> future = (CompletableFuture<NamedPipeResult<?, ?>>) direct;
+    if (this.timeoutNanos != 0L) {
+      future = SewerPipe.withTimeout(
+          future,
+          this.timeoutNanos - context.getElapsedNanos(),
+          () -> {
+            final String pipeName = context.getPipeName();
+            return new NamedPipeResult<>(
+                pipeName,
+                new ThrowingResult<>(new PipeTimeoutException(pipeName, Objects.requireNonNull(this.timeout)))
+            );
+          },
+          context
+      );
+    }
+    if (context.isListening()) {
+      future = future.thenApply(result -> {
+        context.pumpEnd(result);
+        return result;
+      });
+    }
+    context.cancelWith(future);
+    return future;
+  }
+
+  /**
+   * Pump an input through this system's {@link SewerPipe pipes}, starting at the pipe at the given index.
+   *
+   * @param index   The index of the first pipe to flow through.
+   * @param input   The input to the pipe at the given index.
+   * @param current The executor the caller is running on, or {@code null} if unknown.
+   * @param context The context of the pump, or {@code null} if it has none.
+   * @return Either the final {@link NamedPipeResult}, or a {@link CompletableFuture} of it if some module did not
+   * complete immediately.
+   * @since 0.8.0
+   */
+  @SuppressWarnings("unchecked")
+  private @NonNull Object pumpFrom(
+      int index,
+      @Nullable Object input,
+      @Nullable Executor current,
+      @Nullable PumpContext context
+  ) {
+    NamedPipeResult<?, ?> result = null;
+    Object value = input;
+    Executor executor = current;
+    for (int i = index; i < this.pipeline.length; ++i) {
+      final SewerPipe<Object, ?> pipe = (SewerPipe<Object, ?>) this.pipeline[i];
+      if (context != null && context.isCancelled()) {
+        result = SewerPipe.cancelled(pipe.getPipeName());
+        break;
+      }
+
+      final Executor pipeExecutor = pipe.getExecutor();
+      if (pipeExecutor != null && pipeExecutor != executor) {
+        // Hop the rest of the system onto the new executor, such that later pipes stay on its thread.
+        final int hopIndex = i;
+        final Object hopInput = value;
         try {
-          underways = (CompletableFuture<NamedPipeResult<?, ? extends PipeResult<?>>>) (CompletableFuture<?>)
-              ((SewerPipe<Input, ?>) pipe).flow(input);
-        } catch (final Throwable ex) {
-          underways = CompletableFuture
-              .completedFuture(new NamedPipeResult<>(pipe.getPipeName(), new ThrowingResult<>(ex)));
+          return CompletableFuture
+              .supplyAsync(() -> this.pumpFrom(hopIndex, hopInput, pipeExecutor, context), pipeExecutor)
+              .thenCompose(SewerPipe::asFuture);
+        } catch (Throwable throwable) {
+          // The executor may reject the pump, or throw anything else it likes.
+          result = new NamedPipeResult<>(pipe.getPipeName(), new ThrowingResult<>(throwable));
+          break;
         }
-        continue;
       }
 
-      final CompletableFuture<NamedPipeResult<?, ? extends PipeResult<?>>> preModificationFuture = underways;
-      underways = underways.thenCompose(res -> {
-        if (!res.mayContinue()) {
-          return preModificationFuture;
-        }
+      final PipeMetrics metrics = this.pipeMetrics == null ? null : this.pipeMetrics[i];
+      final boolean timed = metrics != null || (context != null && context.isListening());
+      final long start = timed ? System.nanoTime() : 0L;
+      if (context != null) {
+        context.pipeStart(pipe.getPipeName(), value);
+      }
 
-        return ((SewerPipe<Object, ?>) pipe).flow(res.asOptional().orElse(null))
-            .thenApply(output -> new NamedPipeResult<>(pipe.getPipeName(), output));
-      });
+      final Object flowed = pipe.flowDirect(value, executor, this.blockingExecutor, context);
+      if (flowed instanceof CompletableFuture) {
+        final int next = i + 1;
+        return ((CompletableFuture<NamedPipeResult<?, ?>>) flowed).thenCompose(res -> {
+          if (timed) {
+            this.pipeEnd(metrics, context, res, System.nanoTime() - start);
+          }
+          if (!res.mayContinue() || next == this.pipeline.length) {
+            return CompletableFuture.completedFuture(res);
+          }
+
+          // The future may have completed on any thread, so the next pipe with an executor hops onto it.
+          return SewerPipe.asFuture(this.pumpFrom(next, res.asOptional().orElse(null), null, context));
+        });
+      }
+
+      result = (NamedPipeResult<?, ?>) flowed;
+      if (timed) {
+        this.pipeEnd(metrics, context, result, System.nanoTime() - start);
+      }
+      if (!result.mayContinue()) {
+        break;
+      }
+      value = result.asOptional().orElse(null);
     }
 
     // #requireNonNull because there is always at least 1 pipe.
-    return (CompletableFuture<NamedPipeResult<Output, ? extends PipeResult<Output>>>) (CompletableFuture<?>)
-        Objects.requireNonNull(underways);
+    return Objects.requireNonNull(result);
+  }
+
+  /**
+   * Record the end of a pipe's flow in its metrics and the pump's listener.
+   *
+   * @param metrics The metrics of the pipe, or {@code null} if metrics are disabled.
+   * @param context The context of the pump, or {@code null} if it has none.
+   * @param result  The result of the pipe.
+   * @param nanos   The time the pipe took, in nanoseconds.
+   * @since 0.8.0
+   */
+  private void pipeEnd(
+      @Nullable PipeMetrics metrics,
+      @Nullable PumpContext context,
+      @NonNull NamedPipeResult<?, ?> result,
+      long nanos
+  ) {
+    if (metrics != null) {
+      metrics.record(result, nanos);
+    }
+    if (context != null) {
+      context.pipeEnd(result.getPipeName(), result, nanos);
+    }
   }
 
   /**
@@ -127,6 +520,41 @@ public class SewerSystem<Input, Output> {
      */
     private final @NonNull @MinLen(1) List<@NonNull SewerPipe<?, ?>> pipes;
 
+    /**
+     * The executor to flow {@link BlockingModule}s on.
+     *
+     * @since 0.8.0
+     */
+    private @NonNull Executor blockingExecutor = BlockingExecutor.getDefault();
+
+    /**
+     * The metrics registry to record pipe flows in.
+     *
+     * @since 0.8.0
+     */
+    private @Nullable SewerMetrics metrics;
+
+    /**
+     * The listeners to dispatch the flow of every pump to.
+     *
+     * @since 0.8.0
+     */
+    private final @NonNull List<@NonNull PipelineListener> listeners = new ArrayList<>();
+
+    /**
+     * The function to extract the key to coalesce pumps by, or {@code null} if pumps are not coalesced.
+     *
+     * @since 0.8.0
+     */
+    private @Nullable Function<? super Input, ?> coalescingKey;
+
+    /**
+     * The time a pump through the system may take, or {@code null} if it may take forever.
+     *
+     * @since 0.8.0
+     */
+    private @Nullable Duration timeout;
+
     /**
      * @param pipe The first pipe to add in this system.
      */
@@ -164,13 +592,146 @@ public class SewerSystem<Input, Output> {
       return this.pipe(new SewerPipe<>(name, module));
     }
 
+    /**
+     * Add a pipe to the system which routes every input through exactly one of several branches, and migrate the
+     * output type to the output type of the branches.
+     * <p>
+     * The result of the pipe is the {@link NamedPipeResult} of the chosen branch, wrapped in the result of this pipe.
+     *
+     * @param name        The name of the new pipe to add.
+     * @param router      The module picking the branch of every input.
+     * @param <NewOutput> The new output type of the {@link SewerSystem} this will {@link #build() build}.
+     * @return This builder for chaining.
+     * @see RoutingModule#byKey(Function)
+     * @see RoutingModule#byPredicate()
+     * @since 0.8.0
+     */
+    public <NewOutput> @NonNull @This Builder<Input, NewOutput> route(
+        @NonNull String name,
+        @NonNull RoutingModule<Output, NewOutput> router
+    ) {
+      return this.module(name, router);
+    }
+
+    /**
+     * Set the executor to flow {@link BlockingModule}s on.
+     * <p>
+     * By default, every blocking flow gets its own virtual thread on Java 21 and newer, and blocking flows share a
+     * bounded pool of threads otherwise.
+     *
+     * @param blockingExecutor The executor to flow {@link BlockingModule}s on.
+     * @return This builder for chaining.
+     * @see Module#blocking(com.proximyst.sewer.util.ThrowingFunction)
+     * @since 0.8.0
+     */
+    public @NonNull @This Builder<Input, Output> blockingExecutor(@NonNull Executor blockingExecutor) {
+      this.blockingExecutor = blockingExecutor;
+      return this;
+    }
+
+    /**
+     * Set the metrics registry to record the flows of every pipe in.
+     * <p>
+     * Metrics are disabled by default, in which case recording costs nothing but a {@code null} check per pipe.
+     *
+     * @param metrics The metrics registry to record in, or {@code null} to disable metrics.
+     * @return This builder for chaining.
+     * @since 0.8.0
+     */
+    public @NonNull @This Builder<Input, Output> metrics(@Nullable SewerMetrics metrics) {
+      this.metrics = metrics;
+      return this;
+    }
+
+    /**
+     * Add a listener to dispatch the flow of every pump to.
+     * <p>
+     * Without listeners, pumps allocate nothing for dispatching.
+     *
+     * @param listener The listener to add.
+     * @return This builder for chaining.
+     * @since 0.8.0
+     */
+    public @NonNull @This Builder<Input, Output> listener(@NonNull PipelineListener listener) {
+      this.listeners.add(listener);
+      return this;
+    }
+
+    /**
+     * Coalesce concurrent pumps of equal inputs.
+     *
+     * @return This builder for chaining.
+     * @see #coalescing(Function)
+     * @since 0.8.0
+     */
+    public @NonNull @This Builder<Input, Output> coalescing() {
+      return this.coalescing(Function.identity());
+    }
+
+    /**
+     * Coalesce concurrent pumps of inputs with equal keys.
+     * <p>
+     * While a pump is in flight, every {@link SewerSystem#pump(Object) pump} of an input with the same key waits for
+     * its result instead of pumping again, such that a burst of a popular input only flows through the system once.
+     * Keys are compared by {@link Object#equals(Object)}, and forgotten as soon as their pump completes. Batches are
+     * never coalesced. A pump whose key cannot be extracted results in a {@link ThrowingResult} of the first pipe.
+     *
+     * @param keyExtractor The function to extract the key of an input.
+     * @return This builder for chaining.
+     * @see SewerSystem#getCoalescedPumps()
+     * @since 0.8.0
+     */
+    public @NonNull @This Builder<Input, Output> coalescing(@NonNull Function<? super Input, ?> keyExtractor) {
+      this.coalescingKey = keyExtractor;
+      return this;
+    }
+
+    /**
+     * Set the time a pump through the system may take. By default, pumps may take forever.
+     * <p>
+     * If a pump does not complete in time, it results in a {@link ThrowingResult} of a {@link PipeTimeoutException}
+     * naming the pipe which was flowing. This bounds {@link SewerSystem#pump(Object) pumps} as a whole, on top of the
+     * {@link SewerPipe.Builder#timeout(Duration) timeouts of single pipes}. A pump which times out is cancelled, such
+     * that no later module or pipe is flowed through. Batches are not bounded.
+     *
+     * @param timeout The time a pump may take, or {@code null} if it may take forever.
+     * @return This builder for chaining.
+     * @throws IllegalArgumentException If the timeout is not positive.
+     * @see SewerPipe.Builder#timeout(Duration)
+     * @since 0.8.0
+     */
+    public @NonNull @This Builder<Input, Output> timeout(@Nullable Duration timeout) {
+      if (timeout != null) {
+        SewerPipe.toNanos(timeout);
+      }
+
+      this.timeout = timeout;
+      return this;
+    }
+
     /**
      * Build a new {@link SewerSystem}, taking an {@link Input} in exchange for an {@link Output}.
      *
      * @return A new {@link SewerSystem} with the pipes added through this builder.
      */
     public @NonNull SewerSystem<Input, Output> build() {
-      return new SewerSystem<>(pipes.toArray(new SewerPipe[0]));
+      final PipelineListener listener;
+      if (listeners.isEmpty()) {
+        listener = null;
+      } else if (listeners.size() == 1) {
+        listener = listeners.get(0);
+      } else {
+        listener = new CompositePipelineListener(listeners.toArray(new PipelineListener[0]));
+      }
+
+      return new SewerSystem<>(
+          pipes.toArray(new SewerPipe[0]),
+          blockingExecutor,
+          metrics,
+          listener,
+          coalescingKey == null ? null : new PumpCoalescer<>(coalescingKey),
+          timeout
+      );
     }
   }
 }
@@ -0,0 +1,141 @@
+package com.proximyst.sewer.cache;
+
+import java.util.concurrent.TimeUnit;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.dataflow.qual.Pure;
+
+/**
+ * A point-in-time snapshot of the statistics of a cache.
+ *
+ * @since 0.8.0
+ */
+public final class CacheStats {
+  private final long hits;
+  private final long misses;
+  private final long evictions;
+  private final long loads;
+  private final long loadFailures;
+  private final long totalLoadNanos;
+
+  /**
+   * @param hits      The amount of lookups which found a value.
+   * @param misses    The amount of lookups which found no value.
+   * @param evictions The amount of values evicted for size or expiry.
+   */
+  CacheStats(long hits, long misses, long evictions) {
+    this(hits, misses, evictions, 0L, 0L, 0L);
+  }
+
+  private CacheStats(long hits, long misses, long evictions, long loads, long loadFailures, long totalLoadNanos) {
+    this.hits = hits;
+    this.misses = misses;
+    this.evictions = evictions;
+    this.loads = loads;
+    this.loadFailures = loadFailures;
+    this.totalLoadNanos = totalLoadNanos;
+  }
+
+  /**
+   * Create a copy of these statistics with the given load statistics, for caches which load their own values.
+   *
+   * @param loads          The amount of completed loads.
+   * @param loadFailures   The amount of completed loads which threw.
+   * @param totalLoadNanos The total time spent loading, in nanoseconds.
+   * @return A copy of these statistics with the given load statistics.
+   */
+  @Pure
+  public @NonNull CacheStats withLoads(long loads, long loadFailures, long totalLoadNanos) {
+    return new CacheStats(this.hits, this.misses, this.evictions, loads, loadFailures, totalLoadNanos);
+  }
+
+  /**
+   * @return The amount of lookups which found a value.
+   */
+  @Pure
+  public long getHitCount() {
+    return this.hits;
+  }
+
+  /**
+   * @return The amount of lookups which found no value.
+   */
+  @Pure
+  public long getMissCount() {
+    return this.misses;
+  }
+
+  /**
+   * @return The amount of lookups.
+   */
+  @Pure
+  public long getRequestCount() {
+    return this.hits + this.misses;
+  }
+
+  /**
+   * @return The ratio of lookups which found a value, or {@code 1} if there were none.
+   */
+  @Pure
+  public double getHitRate() {
+    final long requests = this.getRequestCount();
+    return requests == 0 ? 1 : (double) this.hits / requests;
+  }
+
+  /**
+   * @return The amount of values evicted, either to make room for others or because they expired.
+   */
+  @Pure
+  public long getEvictionCount() {
+    return this.evictions;
+  }
+
+  /**
+   * @return The amount of completed loads, or {@code 0} if the cache does not load its own values.
+   */
+  @Pure
+  public long getLoadCount() {
+    return this.loads;
+  }
+
+  /**
+   * @return The amount of completed loads which threw.
+   */
+  @Pure
+  public long getLoadFailureCount() {
+    return this.loadFailures;
+  }
+
+  /**
+   * @param unit The unit to return the time in.
+   * @return The total time spent loading.
+   */
+  @Pure
+  public double getTotalLoadTime(@NonNull TimeUnit unit) {
+    return (double) this.totalLoadNanos / unit.toNanos(1);
+  }
+
+  /**
+   * @param unit The unit to return the time in.
+   * @return The mean time a load took, or {@code 0} if there were none.
+   */
+  @Pure
+  public double getAverageLoadPenalty(@NonNull TimeUnit unit) {
+    if (this.loads == 0) {
+      return 0;
+    }
+
+    return (double) this.totalLoadNanos / this.loads / unit.toNanos(1);
+  }
+
+  @Override
+  public String toString() {
+    return "CacheStats{" +
+        "hits=" + this.hits +
+        ", misses=" + this.misses +
+        ", evictions=" + this.evictions +
+        ", loads=" + this.loads +
+        ", loadFailures=" + this.loadFailures +
+        ", totalLoadNanos=" + this.totalLoadNanos +
+        '}';
+  }
+}
@@ -0,0 +1,428 @@
+package com.proximyst.sewer.cache;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntBiFunction;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.dataflow.qual.Pure;
+
+/**
+ * A bounded, concurrent cache evicting with a segmented LRU policy.
+ * <p>
+ * New values enter a probationary segment, and are only promoted to the protected segment once they are looked up
+ * again. Values are evicted from the probationary segment first, such that a burst of values which are only seen once
+ * cannot flush the values which are looked up repeatedly.
+ * <p>
+ * The cache is split into stripes by the hash of the key, each guarded by its own lock and holding its share of the
+ * maximum weight of values. By default every value weighs {@code 1}, such that the maximum weight is the maximum amount
+ * of values. Values may optionally expire a fixed time after they were put.
+ *
+ * @param <K> The type of keys. Keys may be {@code null}.
+ * @param <V> The type of values.
+ * @since 0.8.0
+ */
+public final class SegmentedLruCache<K, V> {
+  /**
+   * The maximum amount of stripes.
+   */
+  private static final int MAX_STRIPES = 16;
+
+  /**
+   * The minimum share of the maximum weight for every stripe to have before the cache is striped.
+   */
+  private static final long MIN_STRIPE_WEIGHT = 16;
+
+  private final @NonNull Stripe<K, V> @NonNull [] stripes;
+  private final @NonNull ToIntBiFunction<? super K, ? super V> weigher;
+  private final long ttlNanos;
+  private final @NonNull LongSupplier ticker;
+  private final @NonNull LongAdder hits = new LongAdder();
+  private final @NonNull LongAdder misses = new LongAdder();
+  private final @NonNull LongAdder evictions = new LongAdder();
+
+  /**
+   * Create a new cache.
+   *
+   * @param maxEntries The maximum amount of values in the cache.
+   * @param ttl        The time after which a value expires once put, or {@code null} if values never expire.
+   * @throws IllegalArgumentException If {@code maxEntries} is not positive, or {@code ttl} is not positive.
+   */
+  public SegmentedLruCache(int maxEntries, @Nullable Duration ttl) {
+    this(maxEntries, (key, value) -> 1, ttl);
+  }
+
+  /**
+   * Create a new cache bounded by the weight of its values.
+   * <p>
+   * A value is weighed when it is put. A value weighing more than a stripe's share of the maximum weight is evicted
+   * immediately.
+   *
+   * @param maxWeight The maximum total weight of values in the cache.
+   * @param weigher   The function to weigh a value by; weights must not be negative.
+   * @param ttl       The time after which a value expires once put, or {@code null} if values never expire.
+   * @throws IllegalArgumentException If {@code maxWeight} is not positive, or {@code ttl} is not positive.
+   */
+  public SegmentedLruCache(
+      long maxWeight,
+      @NonNull ToIntBiFunction<? super K, ? super V> weigher,
+      @Nullable Duration ttl
+  ) {
+    this(maxWeight, weigher, ttl, System::nanoTime);
+  }
+
+  /**
+   * @param maxWeight The maximum total weight of values in the cache.
+   * @param weigher   The function to weigh a value by.
+   * @param ttl       The time after which a value expires once put, or {@code null} if values never expire.
+   * @param ticker    The source of the current time, in nanoseconds.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  SegmentedLruCache(
+      long maxWeight,
+      @NonNull ToIntBiFunction<? super K, ? super V> weigher,
+      @Nullable Duration ttl,
+      @NonNull LongSupplier ticker
+  ) {
+    if (maxWeight < 1) {
+      throw new IllegalArgumentException("maximum weight must be positive, but is " + maxWeight);
+    }
+    if (ttl != null && (ttl.isNegative() || ttl.isZero())) {
+      throw new IllegalArgumentException("ttl must be positive, but is " + ttl);
+    }
+
+    this.weigher = weigher;
+    this.ttlNanos = ttl == null ? 0L : saturatedNanos(ttl);
+    this.ticker = ticker;
+
+    final int count = (int) Math.min(MAX_STRIPES, Long.highestOneBit(Math.max(1L, maxWeight / MIN_STRIPE_WEIGHT)));
+    this.stripes = new Stripe[count];
+    for (int i = 0; i < count; ++i) {
+      this.stripes[i] = new Stripe<>(maxWeight / count + (i < maxWeight % count ? 1 : 0));
+    }
+  }
+
+  /**
+   * Look up the value of a key.
+   * <p>
+   * A value which is found is promoted, making it less likely to be evicted.
+   *
+   * @param key The key to look up.
+   * @return The value of the key, or {@code null} if there is none or it has expired.
+   */
+  public @Nullable V getIfPresent(@Nullable K key) {
+    final Stripe<K, V> stripe = this.stripe(key);
+    final V value;
+    synchronized (stripe) {
+      value = stripe.get(key, this.now(), this.evictions);
+    }
+
+    if (value == null) {
+      this.misses.increment();
+    } else {
+      this.hits.increment();
+    }
+    return value;
+  }
+
+  /**
+   * Look up the value of a key, computing and putting it if there is none.
+   * <p>
+   * The function is called while the key's stripe is locked, and must therefore be short and must not use the cache.
+   *
+   * @param key      The key to look up.
+   * @param function The function to compute the value of the key with.
+   * @return The value of the key.
+   */
+  public @NonNull V get(@Nullable K key, @NonNull Function<? super K, ? extends @NonNull V> function) {
+    final Stripe<K, V> stripe = this.stripe(key);
+    V value;
+    synchronized (stripe) {
+      final long now = this.now();
+      value = stripe.get(key, now, this.evictions);
+      if (value == null) {
+        final V computed = function.apply(key);
+        stripe.put(key, computed, this.weigh(key, computed), this.expiresAt(now), this.evictions);
+        this.misses.increment();
+        return computed;
+      }
+    }
+
+    this.hits.increment();
+    return value;
+  }
+
+  /**
+   * Put the value of a key, replacing any existing value.
+   * <p>
+   * If the cache is full, the least recently used values in the probationary segment are evicted.
+   *
+   * @param key   The key to put.
+   * @param value The value of the key.
+   */
+  public void put(@Nullable K key, @NonNull V value) {
+    final int weight = this.weigh(key, value);
+    final Stripe<K, V> stripe = this.stripe(key);
+    synchronized (stripe) {
+      stripe.put(key, value, weight, this.expiresAt(this.now()), this.evictions);
+    }
+  }
+
+  /**
+   * Replace the value of a key, only if it is currently mapped to a given value.
+   * <p>
+   * The new value is weighed again, which may be used to update the weight of a value which has changed.
+   *
+   * @param key      The key to replace the value of.
+   * @param oldValue The value the key must currently be mapped to, compared by identity.
+   * @param newValue The new value of the key.
+   * @return Whether the value was replaced.
+   */
+  public boolean replace(@Nullable K key, @NonNull V oldValue, @NonNull V newValue) {
+    final int weight = this.weigh(key, newValue);
+    final Stripe<K, V> stripe = this.stripe(key);
+    synchronized (stripe) {
+      final Node<K, V> node = stripe.nodes.get(key);
+      if (node == null || node.value != oldValue) {
+        return false;
+      }
+
+      stripe.put(key, newValue, weight, this.expiresAt(this.now()), this.evictions);
+      return true;
+    }
+  }
+
+  /**
+   * Remove the value of a key, if any.
+   *
+   * @param key The key to remove.
+   */
+  public void invalidate(@Nullable K key) {
+    final Stripe<K, V> stripe = this.stripe(key);
+    synchronized (stripe) {
+      stripe.remove(key);
+    }
+  }
+
+  /**
+   * Remove every value.
+   */
+  public void invalidateAll() {
+    for (Stripe<K, V> stripe : this.stripes) {
+      synchronized (stripe) {
+        stripe.clear();
+      }
+    }
+  }
+
+  /**
+   * Get the amount of values in the cache, including those which have expired but are not yet removed.
+   *
+   * @return The amount of values in the cache.
+   */
+  public int size() {
+    int size = 0;
+    for (Stripe<K, V> stripe : this.stripes) {
+      synchronized (stripe) {
+        size += stripe.nodes.size();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Take a snapshot of the statistics of the cache.
+   *
+   * @return A snapshot of the statistics.
+   */
+  public @NonNull CacheStats stats() {
+    return new CacheStats(this.hits.sum(), this.misses.sum(), this.evictions.sum());
+  }
+
+  private @NonNull Stripe<K, V> stripe(@Nullable K key) {
+    final int hash = key == null ? 0 : key.hashCode();
+    return this.stripes[(hash ^ (hash >>> 16)) & (this.stripes.length - 1)];
+  }
+
+  private long now() {
+    return this.ticker.getAsLong();
+  }
+
+  private long expiresAt(long now) {
+    return this.ttlNanos == 0L ? 0L : now + this.ttlNanos;
+  }
+
+  private int weigh(@Nullable K key, @NonNull V value) {
+    final int weight = this.weigher.applyAsInt(key, value);
+    if (weight < 0) {
+      throw new IllegalArgumentException("weight must not be negative, but is " + weight);
+    }
+    return weight;
+  }
+
+  @Pure
+  private static long saturatedNanos(@NonNull Duration duration) {
+    try {
+      return duration.toNanos();
+    } catch (ArithmeticException ex) {
+      return Long.MAX_VALUE / 2;
+    }
+  }
+
+  /**
+   * A stripe of the cache, holding a probationary and a protected segment.
+   * <p>
+   * Each segment is a doubly linked list from most to least recently used. This is guarded by its own monitor.
+   */
+  private static final class Stripe<K, V> {
+    private final @NonNull Map<K, @NonNull Node<K, V>> nodes = new HashMap<>();
+    private final long capacity;
+    private final long protectedCapacity;
+    private final @NonNull Node<K, V> probation = Node.sentinel();
+    private final @NonNull Node<K, V> protect = Node.sentinel();
+    private long weight;
+    private long protectedWeight;
+
+    private Stripe(long capacity) {
+      this.capacity = capacity;
+      // The protected segment may hold up to four fifths of the stripe.
+      this.protectedCapacity = Math.max(1L, capacity - capacity / 5);
+    }
+
+    private @Nullable V get(@Nullable K key, long now, @NonNull LongAdder evictions) {
+      final Node<K, V> node = this.nodes.get(key);
+      if (node == null) {
+        return null;
+      }
+      if (node.isExpired(now)) {
+        this.remove(node);
+        evictions.increment();
+        return null;
+      }
+
+      if (node.isProtected) {
+        node.unlink();
+        node.linkAfter(this.protect);
+        return node.value;
+      }
+
+      node.unlink();
+      node.isProtected = true;
+      node.linkAfter(this.protect);
+      this.protectedWeight += node.weight;
+      this.demote();
+      return node.value;
+    }
+
+    private void put(@Nullable K key, @NonNull V value, int weight, long expiresAt, @NonNull LongAdder evictions) {
+      Node<K, V> node = this.nodes.get(key);
+      if (node != null) {
+        this.weight += weight - node.weight;
+        if (node.isProtected) {
+          this.protectedWeight += weight - node.weight;
+        }
+        node.value = value;
+        node.weight = weight;
+        node.expiresAt = expiresAt;
+        this.demote();
+      } else {
+        node = new Node<>(key, value, expiresAt);
+        node.weight = weight;
+        this.nodes.put(key, node);
+        this.weight += weight;
+        node.linkAfter(this.probation);
+      }
+
+      while (this.weight > this.capacity) {
+        this.remove(this.probation.prev != this.probation ? this.probation.prev : this.protect.prev);
+        evictions.increment();
+      }
+    }
+
+    /**
+     * Demote the least recently used values of the protected segment until it fits its capacity.
+     */
+    private void demote() {
+      while (this.protectedWeight > this.protectedCapacity && this.protect.prev != this.protect) {
+        final Node<K, V> demoted = this.protect.prev;
+        demoted.unlink();
+        demoted.isProtected = false;
+        this.protectedWeight -= demoted.weight;
+        demoted.linkAfter(this.probation);
+      }
+    }
+
+    private void remove(@Nullable K key) {
+      final Node<K, V> node = this.nodes.get(key);
+      if (node != null) {
+        this.remove(node);
+      }
+    }
+
+    private void remove(@NonNull Node<K, V> node) {
+      this.nodes.remove(node.key);
+      node.unlink();
+      this.weight -= node.weight;
+      if (node.isProtected) {
+        this.protectedWeight -= node.weight;
+      }
+    }
+
+    private void clear() {
+      this.nodes.clear();
+      this.probation.prev = this.probation.next = this.probation;
+      this.protect.prev = this.protect.next = this.protect;
+      this.weight = 0L;
+      this.protectedWeight = 0L;
+    }
+  }
+
+  /**
+   * A value in a segment's linked list, or the sentinel of a segment.
+   */
+  private static final class Node<K, V> {
+    private final @Nullable K key;
+    private V value;
+
+    /**
+     * The time the value expires at, or {@code 0} if it never expires.
+     */
+    private long expiresAt;
+
+    private int weight;
+    private boolean isProtected;
+    private Node<K, V> prev = this;
+    private Node<K, V> next = this;
+
+    private Node(@Nullable K key, V value, long expiresAt) {
+      this.key = key;
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+
+    private static <K, V> @NonNull Node<K, V> sentinel() {
+      return new Node<>(null, null, 0L);
+    }
+
+    private boolean isExpired(long now) {
+      return this.expiresAt != 0L && now - this.expiresAt >= 0L;
+    }
+
+    private void linkAfter(@NonNull Node<K, V> head) {
+      this.prev = head;
+      this.next = head.next;
+      head.next.prev = this;
+      head.next = this;
+    }
+
+    private void unlink() {
+      this.prev.next = this.next;
+      this.next.prev = this.prev;
+      this.prev = this.next = this;
+    }
+  }
+}
@@ -0,0 +1,9 @@
+/**
+ * Cache types.
+ * <p>
+ * This defines the bounded {@link com.proximyst.sewer.cache.SegmentedLruCache SegmentedLruCache} backing cached
+ * modules, and the {@link com.proximyst.sewer.cache.CacheStats CacheStats} it records.
+ *
+ * @since 0.8.0
+ */
+package com.proximyst.sewer.cache;
@@ -0,0 +1,325 @@
+package com.proximyst.sewer.loadable;
+
+import com.proximyst.sewer.BatchModule;
+import com.proximyst.sewer.SewerSystem;
+import com.proximyst.sewer.piping.NamedPipeResult;
+import com.proximyst.sewer.piping.PipeResult;
+import com.proximyst.sewer.util.SewerInternalUtilTimer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.common.returnsreceiver.qual.This;
+
+/**
+ * A loader which collects the loads of many {@link Loadable}s into batches, and pumps each batch through a shared
+ * {@link SewerSystem} at once.
+ * <p>
+ * A batch is dispatched once it holds {@link Builder#maxBatchSize(int) enough keys}, or once the {@link
+ * Builder#maxDelay(Duration) window} since its first key has passed. Keys are de-duplicated within a batch, such that a
+ * key asked for several times in the same window is pumped once. Batches are pumped with {@link
+ * SewerSystem#pumpAll(List)}, so every {@link BatchModule} of the system is called once per batch.
+ *
+ * @param <K> The type of keys, which are the inputs to the system.
+ * @param <V> The type of loaded values.
+ * @since 0.8.0
+ */
+public final class BatchLoader<K, V> {
+  private final @NonNull SewerSystem<K, V> system;
+  private final int maxBatchSize;
+  private final long maxDelayNanos;
+  private final @NonNull Executor executor;
+  private final @NonNull LoadPolicy policy;
+
+  /**
+   * The system which loads a single key through this loader, for {@link Loadable}s to pump.
+   */
+  private final @NonNull SewerSystem<K, V> batchingSystem;
+
+  private final @NonNull Object lock = new Object();
+
+  /**
+   * The keys of the batch being collected and their futures, in the order they were first asked for. These futures are
+   * never handed out to callers.
+   * <p>
+   * This is guarded by {@link #lock}, and is {@code null} if no batch is being collected.
+   */
+  private @Nullable Map<K, @NonNull CompletableFuture<PipeResult<V>>> pending;
+
+  private final @NonNull LongAdder batches = new LongAdder();
+  private final @NonNull LongAdder loads = new LongAdder();
+
+  private BatchLoader(
+      @NonNull SewerSystem<K, V> system,
+      int maxBatchSize,
+      long maxDelayNanos,
+      @NonNull Executor executor,
+      @NonNull LoadPolicy policy
+  ) {
+    this.system = system;
+    this.maxBatchSize = maxBatchSize;
+    this.maxDelayNanos = maxDelayNanos;
+    this.executor = executor;
+    this.policy = policy;
+    this.batchingSystem = SewerSystem.builder("batch load", this::load).build();
+  }
+
+  /**
+   * Create a new builder for a {@link BatchLoader}.
+   *
+   * @param system The {@link SewerSystem} pipeline to pump every batch of keys through.
+   * @param <K>    The type of keys.
+   * @param <V>    The type of loaded values.
+   * @return A new {@link Builder}.
+   */
+  public static <K, V> @NonNull Builder<K, V> builder(@NonNull SewerSystem<K, V> system) {
+    return new Builder<>(system);
+  }
+
+  /**
+   * Create a new {@link Loadable} of a key, which loads its value as part of a batch.
+   * <p>
+   * This does not initiate loading.
+   *
+   * @param key The key to load the value of.
+   * @return A new loadable of the key, following the {@link LoadPolicy} of this loader.
+   */
+  public @NonNull Loadable<V> getLoadable(K key) {
+    return Loadable.of(this.batchingSystem, key, this.policy);
+  }
+
+  /**
+   * Get the system which loads a single key as part of a batch.
+   * <p>
+   * This may be used to load through this loader from other pipelines, such as a {@link LoadableCache}.
+   *
+   * @return The system loading through this loader.
+   */
+  public @NonNull SewerSystem<K, V> getSystem() {
+    return this.batchingSystem;
+  }
+
+  /**
+   * Add a key to the batch being collected, starting a new batch if there is none.
+   * <p>
+   * If the key is already in the batch, it is loaded once for every caller. Every caller gets a future of its own, such
+   * that no caller can complete or cancel the load of another. If the batch is full, it is dispatched on the calling
+   * thread.
+   *
+   * @param key The key to load.
+   * @return A future of the result of the key, completed once its batch has been pumped.
+   */
+  public @NonNull CompletableFuture<PipeResult<V>> load(K key) {
+    this.loads.increment();
+    final CompletableFuture<PipeResult<V>> future;
+    Map<K, CompletableFuture<PipeResult<V>>> full = null;
+    Map<K, CompletableFuture<PipeResult<V>>> started = null;
+    synchronized (this.lock) {
+      Map<K, CompletableFuture<PipeResult<V>>> batch = this.pending;
+      if (batch == null) {
+        batch = new LinkedHashMap<>();
+        this.pending = batch;
+        started = batch;
+      }
+
+      final CompletableFuture<PipeResult<V>> existing = batch.get(key);
+      if (existing != null) {
+        return existing.thenApply(Function.identity());
+      }
+
+      future = new CompletableFuture<>();
+      batch.put(key, future);
+      if (batch.size() >= this.maxBatchSize) {
+        this.pending = null;
+        full = batch;
+      }
+    }
+
+    if (full != null) {
+      this.pumpBatch(full);
+    } else if (started != null) {
+      this.schedule(started);
+    }
+    return future.thenApply(Function.identity());
+  }
+
+  /**
+   * Dispatch the batch being collected right away, if there is one.
+   * <p>
+   * The batch is pumped on the calling thread until some module completes asynchronously.
+   */
+  public void dispatch() {
+    final Map<K, CompletableFuture<PipeResult<V>>> batch;
+    synchronized (this.lock) {
+      batch = this.pending;
+      this.pending = null;
+    }
+
+    if (batch != null) {
+      this.pumpBatch(batch);
+    }
+  }
+
+  /**
+   * @return The amount of batches dispatched so far.
+   */
+  public long getDispatchedBatches() {
+    return this.batches.sum();
+  }
+
+  /**
+   * @return The amount of loads asked for so far, including those de-duplicated within their batch.
+   */
+  public long getRequestedLoads() {
+    return this.loads.sum();
+  }
+
+  /**
+   * Dispatch a batch once the window has passed, unless it has been dispatched already.
+   *
+   * @param batch The batch which was just started.
+   */
+  @SuppressWarnings("deprecation") // Internal class warning.
+  private void schedule(@NonNull Map<K, @NonNull CompletableFuture<PipeResult<V>>> batch) {
+    final Runnable dispatch = () -> {
+      synchronized (this.lock) {
+        if (this.pending != batch) {
+          return;
+        }
+        this.pending = null;
+      }
+      this.pumpBatch(batch);
+    };
+
+    SewerInternalUtilTimer.schedule(
+        () -> {
+          try {
+            this.executor.execute(dispatch);
+          } catch (RejectedExecutionException ex) {
+            dispatch.run();
+          }
+        },
+        this.maxDelayNanos,
+        TimeUnit.NANOSECONDS
+    );
+  }
+
+  /**
+   * Pump a batch through the system, and complete the future of every key with its own result.
+   *
+   * @param batch The batch to pump, which must no longer be collecting keys.
+   */
+  private void pumpBatch(@NonNull Map<K, @NonNull CompletableFuture<PipeResult<V>>> batch) {
+    this.batches.increment();
+    final List<K> keys = new ArrayList<>(batch.keySet());
+    final CompletableFuture<List<NamedPipeResult<V, ? extends PipeResult<V>>>> results;
+    try {
+      results = this.system.pumpAll(keys);
+    } catch (Throwable throwable) {
+      batch.values().forEach(future -> future.completeExceptionally(throwable));
+      return;
+    }
+
+    results.whenComplete((list, throwable) -> {
+      if (throwable != null) {
+        batch.values().forEach(future -> future.completeExceptionally(throwable));
+        return;
+      }
+
+      for (int i = 0; i < keys.size(); ++i) {
+        batch.get(keys.get(i)).complete(list.get(i));
+      }
+    });
+  }
+
+  /**
+   * A builder to create a new {@link BatchLoader}.
+   *
+   * @param <K> The type of keys.
+   * @param <V> The type of loaded values.
+   */
+  public static final class Builder<K, V> {
+    private final @NonNull SewerSystem<K, V> system;
+    private int maxBatchSize = 128;
+    private long maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(1L);
+    private @NonNull Executor executor = ForkJoinPool.commonPool();
+    private @NonNull LoadPolicy policy = LoadPolicy.eternal();
+
+    private Builder(@NonNull SewerSystem<K, V> system) {
+      this.system = system;
+    }
+
+    /**
+     * Set the maximum amount of distinct keys in a batch. This defaults to {@code 128}.
+     * <p>
+     * A batch which reaches this size is dispatched right away, on the thread adding the last key.
+     *
+     * @param maxBatchSize The maximum amount of keys in a batch.
+     * @return This builder for chaining.
+     * @throws IllegalArgumentException If the size is not positive.
+     */
+    public @NonNull @This Builder<K, V> maxBatchSize(int maxBatchSize) {
+      if (maxBatchSize < 1) {
+        throw new IllegalArgumentException("maxBatchSize must be positive, but is " + maxBatchSize);
+      }
+
+      this.maxBatchSize = maxBatchSize;
+      return this;
+    }
+
+    /**
+     * Set the window after the first key of a batch in which to collect more keys. This defaults to 1 millisecond.
+     *
+     * @param maxDelay The maximum time a key waits for its batch to be dispatched.
+     * @return This builder for chaining.
+     * @throws IllegalArgumentException If the delay is not positive.
+     */
+    public @NonNull @This Builder<K, V> maxDelay(@NonNull Duration maxDelay) {
+      this.maxDelayNanos = LoadPolicy.toNanos("maxDelay", maxDelay);
+      return this;
+    }
+
+    /**
+     * Set the executor to pump batches on once their window has passed. This defaults to the {@link
+     * ForkJoinPool#commonPool() common pool}.
+     *
+     * @param executor The executor to dispatch batches on.
+     * @return This builder for chaining.
+     */
+    public @NonNull @This Builder<K, V> executor(@NonNull Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    /**
+     * Set the policy for when the {@link Loadable}s of the loader load their value again. This defaults to {@link
+     * LoadPolicy#eternal()}.
+     *
+     * @param policy The policy for when values are loaded again.
+     * @return This builder for chaining.
+     */
+    public @NonNull @This Builder<K, V> policy(@NonNull LoadPolicy policy) {
+      this.policy = policy;
+      return this;
+    }
+
+    /**
+     * Build a new {@link BatchLoader}.
+     *
+     * @return A new {@link BatchLoader}.
+     */
+    public @NonNull BatchLoader<K, V> build() {
+      return new BatchLoader<>(this.system, this.maxBatchSize, this.maxDelayNanos, this.executor, this.policy);
+    }
+  }
+}
@@ -0,0 +1,252 @@
+package com.proximyst.sewer.loadable;
+
+import com.proximyst.sewer.util.SewerInternalUtilBackoff;
+import java.time.Duration;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.common.returnsreceiver.qual.This;
+import org.checkerframework.dataflow.qual.Pure;
+
+/**
+ * A policy for when a {@link Loadable} loads its value again.
+ * <p>
+ * By default, a value is loaded once and kept forever. A value may instead expire a fixed time after it was loaded,
+ * after which the next caller waits for it to load again; or be refreshed a fixed time after it was loaded, in which
+ * case callers keep getting the stale value while it is loaded again in the background.
+ * <p>
+ * Loads resulting in a {@link com.proximyst.sewer.piping.ThrowingResult ThrowingResult} may be retried with
+ * exponential backoff before the failure is given to callers, and may expire sooner than successful values.
+ *
+ * @since 0.8.0
+ */
+public final class LoadPolicy {
+  /**
+   * The amount of nanoseconds standing in for "never", chosen such that adding it to {@link System#nanoTime()} does not
+   * break overflow-safe comparisons of times.
+   */
+  static final long NEVER = Long.MAX_VALUE / 4;
+
+  /**
+   * The policy which loads a value once and keeps it forever.
+   */
+  private static final @NonNull LoadPolicy ETERNAL = new LoadPolicy(NEVER, NEVER, NEVER, 0, 0L, 0L);
+
+  private final long expireAfterWriteNanos;
+  private final long refreshAfterWriteNanos;
+  private final long expireFailuresAfterNanos;
+  private final int maxRetries;
+  private final long initialBackoffNanos;
+  private final long maxBackoffNanos;
+
+  private LoadPolicy(
+      long expireAfterWriteNanos,
+      long refreshAfterWriteNanos,
+      long expireFailuresAfterNanos,
+      int maxRetries,
+      long initialBackoffNanos,
+      long maxBackoffNanos
+  ) {
+    this.expireAfterWriteNanos = expireAfterWriteNanos;
+    this.refreshAfterWriteNanos = refreshAfterWriteNanos;
+    this.expireFailuresAfterNanos = expireFailuresAfterNanos;
+    this.maxRetries = maxRetries;
+    this.initialBackoffNanos = initialBackoffNanos;
+    this.maxBackoffNanos = maxBackoffNanos;
+  }
+
+  /**
+   * Get the policy which loads a value once and keeps it forever.
+   *
+   * @return The eternal policy.
+   */
+  @Pure
+  public static @NonNull LoadPolicy eternal() {
+    return ETERNAL;
+  }
+
+  /**
+   * Create a new builder for a {@link LoadPolicy}.
+   *
+   * @return A new {@link Builder}.
+   */
+  public static @NonNull Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * @return The time after which a loaded value expires, in nanoseconds, or {@link #NEVER}.
+   */
+  @Pure
+  long getExpireAfterWriteNanos() {
+    return this.expireAfterWriteNanos;
+  }
+
+  /**
+   * @return The time after which a loaded value is refreshed, in nanoseconds, or {@link #NEVER}.
+   */
+  @Pure
+  long getRefreshAfterWriteNanos() {
+    return this.refreshAfterWriteNanos;
+  }
+
+  /**
+   * @return The time after which a loaded failure expires, in nanoseconds, or {@link #NEVER}.
+   */
+  @Pure
+  long getExpireFailuresAfterNanos() {
+    return this.expireFailuresAfterNanos;
+  }
+
+  /**
+   * @return The maximum amount of times a failed load is retried before the failure is loaded.
+   */
+  @Pure
+  int getMaxRetries() {
+    return this.maxRetries;
+  }
+
+  /**
+   * Get the backoff before a retry.
+   *
+   * @param retry The retry, starting at {@code 0} for the first.
+   * @return The backoff before the retry, in nanoseconds.
+   */
+  @Pure
+  @SuppressWarnings("deprecation") // Internal class warning.
+  long getBackoffNanos(int retry) {
+    return SewerInternalUtilBackoff.exponential(this.initialBackoffNanos, this.maxBackoffNanos, retry);
+  }
+
+  /**
+   * @return Whether a loaded value may ever be loaded again.
+   */
+  @Pure
+  boolean isTimed() {
+    return this.expireAfterWriteNanos != NEVER
+        || this.refreshAfterWriteNanos != NEVER
+        || this.expireFailuresAfterNanos != NEVER;
+  }
+
+  /**
+   * Convert a duration to nanoseconds, capped at {@link #NEVER}.
+   *
+   * @param name     The name of the duration, for errors.
+   * @param duration The duration to convert.
+   * @return The duration in nanoseconds.
+   * @throws IllegalArgumentException If the duration is not positive.
+   */
+  static long toNanos(@NonNull String name, @NonNull Duration duration) {
+    if (duration.isNegative() || duration.isZero()) {
+      throw new IllegalArgumentException(name + " must be positive, but is " + duration);
+    }
+
+    try {
+      return Math.min(NEVER, duration.toNanos());
+    } catch (ArithmeticException ex) {
+      return NEVER;
+    }
+  }
+
+  /**
+   * A builder to create a new {@link LoadPolicy}.
+   */
+  public static final class Builder {
+    private long expireAfterWriteNanos = NEVER;
+    private long refreshAfterWriteNanos = NEVER;
+    private long expireFailuresAfterNanos = -1L;
+    private int maxRetries;
+    private long initialBackoffNanos;
+    private long maxBackoffNanos;
+
+    private Builder() {
+    }
+
+    /**
+     * Expire a loaded value a fixed time after it was loaded.
+     * <p>
+     * Once expired, the value is no longer served, and the next caller waits for it to load again.
+     *
+     * @param duration The time after which a loaded value expires.
+     * @return This builder for chaining.
+     * @throws IllegalArgumentException If the duration is not positive.
+     */
+    public @NonNull @This Builder expireAfterWrite(@NonNull Duration duration) {
+      this.expireAfterWriteNanos = toNanos("expireAfterWrite", duration);
+      return this;
+    }
+
+    /**
+     * Refresh a loaded value a fixed time after it was loaded.
+     * <p>
+     * The first caller after the refresh time starts loading the value again in the background. Until that load
+     * completes, every caller is served the stale value, which is then swapped for the new one. If the refresh throws,
+     * the stale value is kept and refreshed again after the same time.
+     *
+     * @param duration The time after which a loaded value is refreshed.
+     * @return This builder for chaining.
+     * @throws IllegalArgumentException If the duration is not positive.
+     */
+    public @NonNull @This Builder refreshAfterWrite(@NonNull Duration duration) {
+      this.refreshAfterWriteNanos = toNanos("refreshAfterWrite", duration);
+      return this;
+    }
+
+    /**
+     * Expire a loaded failure a fixed time after it was loaded.
+     * <p>
+     * Until it expires, the failure is served to every caller without loading again. By default, failures expire
+     * {@link #expireAfterWrite(Duration) like successful values}, and are never refreshed.
+     *
+     * @param duration The time after which a loaded failure expires.
+     * @return This builder for chaining.
+     * @throws IllegalArgumentException If the duration is not positive.
+     */
+    public @NonNull @This Builder expireFailuresAfter(@NonNull Duration duration) {
+      this.expireFailuresAfterNanos = toNanos("expireFailuresAfter", duration);
+      return this;
+    }
+
+    /**
+     * Retry failed loads with exponential backoff before the failure is loaded.
+     * <p>
+     * The backoff starts at {@code initialBackoff}, and doubles for every retry up to {@code maxBackoff}. Retries are
+     * scheduled on a shared timer thread, and callers waiting for the load keep waiting until it succeeds or every
+     * retry has failed.
+     *
+     * @param maxRetries     The maximum amount of retries.
+     * @param initialBackoff The backoff before the first retry.
+     * @param maxBackoff     The maximum backoff before any retry.
+     * @return This builder for chaining.
+     * @throws IllegalArgumentException If {@code maxRetries} is negative, or either backoff is not positive.
+     */
+    public @NonNull @This Builder retryFailures(
+        int maxRetries,
+        @NonNull Duration initialBackoff,
+        @NonNull Duration maxBackoff
+    ) {
+      if (maxRetries < 0) {
+        throw new IllegalArgumentException("maxRetries must not be negative, but is " + maxRetries);
+      }
+
+      this.maxRetries = maxRetries;
+      this.initialBackoffNanos = toNanos("initialBackoff", initialBackoff);
+      this.maxBackoffNanos = Math.max(this.initialBackoffNanos, toNanos("maxBackoff", maxBackoff));
+      return this;
+    }
+
+    /**
+     * Build a new {@link LoadPolicy}.
+     *
+     * @return A new {@link LoadPolicy}.
+     */
+    public @NonNull LoadPolicy build() {
+      return new LoadPolicy(
+          this.expireAfterWriteNanos,
+          this.refreshAfterWriteNanos,
+          this.expireFailuresAfterNanos < 0L ? this.expireAfterWriteNanos : this.expireFailuresAfterNanos,
+          this.maxRetries,
+          this.initialBackoffNanos,
+          this.maxBackoffNanos
+      );
+    }
+  }
+}
@@ -5,12 +5,18 @@ import com.proximyst.sewer.piping.NamedPipeResult;
 import com.proximyst.sewer.piping.PipeResult;
 import com.proximyst.sewer.piping.SuccessfulResult;
 import com.proximyst.sewer.piping.ThrowingResult;
+import com.proximyst.sewer.util.SewerInternalUtilTimer;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
-import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.ObjLongConsumer;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.dataflow.qual.Pure;
 import org.checkerframework.dataflow.qual.SideEffectFree;
 
 /**
@@ -24,9 +30,11 @@ import org.checkerframework.dataflow.qual.SideEffectFree;
  */
 public class Loadable<T> {
   /**
-   * The lock to the inner state.
+   * The updater to atomically transition the {@link #state}.
    */
-  private final @NonNull Object lock = new Object();
+  @SuppressWarnings("rawtypes")
+  private static final @NonNull AtomicReferenceFieldUpdater<Loadable, LoadableState> STATE =
+      AtomicReferenceFieldUpdater.newUpdater(Loadable.class, LoadableState.class, "state");
 
   /**
    * The pipeline to load a {@link T}.
@@ -42,26 +50,56 @@ public class Loadable<T> {
   private final @Nullable Object object;
 
   /**
-   * The local state of the loadable value.
-   * <p>
-   * This is locked by the {@link #lock}.
+   * The policy for when the value is loaded again.
    */
-  private volatile @NonNull LoadableState state = LoadableState.Unloaded.getInstance();
+  private final @NonNull LoadPolicy policy;
 
   /**
-   * The {@link CompletableFuture} for the state.
+   * The listener to every completed load and refresh with the time it took in nanoseconds, if any.
+   */
+  private final @Nullable ObjLongConsumer<@NonNull PipeResult<T>> loadListener;
+
+  /**
+   * The local state of the loadable value.
    * <p>
-   * If this is {@code null}, it will only be modified by one caller as the rest are locked by the {@link #lock} using a
-   * {@code synchronized} block.
+   * This only ever moves between immutable states through {@link #STATE}: from {@link LoadableState.Unloaded} to
+   * {@link LoadableState.Loading}, from there to {@link LoadableState.Loaded}, and back as the {@link #policy} loads
+   * the value again. Whoever wins the transition to {@link LoadableState.Loading} is the only one to pump.
    */
-  private @MonotonicNonNull CompletableFuture<@NonNull PipeResult<T>> resultFuture = null;
+  private volatile @NonNull LoadableState state = LoadableState.Unloaded.getInstance();
 
   private Loadable(
       @NonNull SewerSystem<?, T> pipeline,
       @Nullable Object object
+  ) {
+    this(pipeline, object, LoadPolicy.eternal());
+  }
+
+  private Loadable(
+      @NonNull SewerSystem<?, T> pipeline,
+      @Nullable Object object,
+      @NonNull LoadPolicy policy
+  ) {
+    this(pipeline, object, policy, null);
+  }
+
+  /**
+   * @param pipeline     The pipeline to load a {@link T}.
+   * @param object       The input value to load a {@link T}.
+   * @param policy       The policy for when the value is loaded again.
+   * @param loadListener The listener to every completed load and refresh with the time it took in nanoseconds, if any.
+   * @since 0.8.0
+   */
+  Loadable(
+      @NonNull SewerSystem<?, T> pipeline,
+      @Nullable Object object,
+      @NonNull LoadPolicy policy,
+      @Nullable ObjLongConsumer<@NonNull PipeResult<T>> loadListener
   ) {
     this.pipeline = pipeline;
     this.object = object;
+    this.policy = policy;
+    this.loadListener = loadListener;
   }
 
   /**
@@ -109,6 +147,26 @@ public class Loadable<T> {
     );
   }
 
+  /**
+   * Create a new {@link Loadable} which loads its value again according to a {@link LoadPolicy}.
+   *
+   * @param system   The {@link SewerSystem} pipeline to use for loading the value.
+   * @param input    The {@link Input} value for loading the value.
+   * @param policy   The policy for when the value is loaded again.
+   * @param <Input>  The input to accept to load the value. This is not set to {@code null} and is therefore not
+   *                 recommended to be a large value one wants garbage collected.
+   * @param <Output> The type of the {@link Loadable}.
+   * @return A new {@link Loadable}.
+   * @since 0.8.0
+   */
+  public static <Input, Output> @NonNull Loadable<Output> of(
+      @NonNull SewerSystem<Input, Output> system,
+      Input input,
+      @NonNull LoadPolicy policy
+  ) {
+    return new Loadable<>(system, input, policy);
+  }
+
   /**
    * Create a new builder.
    *
@@ -188,8 +246,9 @@ public class Loadable<T> {
   @SuppressWarnings("unchecked")
   @SideEffectFree
   public @NonNull Optional<@NonNull PipeResult<T>> getResultIfPresent() {
-    if (isLoaded()) {
-      return Optional.of(((LoadableState.Loaded<PipeResult<T>>) state).getItem());
+    final LoadableState current = this.state;
+    if (current instanceof LoadableState.Loaded) {
+      return Optional.of(((LoadableState.Loaded<PipeResult<T>>) current).getItem());
     }
 
     return Optional.empty();
@@ -221,33 +280,307 @@ public class Loadable<T> {
    * <p>
    * If this has no loaded value, it will initiate one and fill a {@link CompletableFuture} with it. If it is already
    * loaded, an existing, cached {@link CompletableFuture} will be returned instead.
+   * <p>
+   * If the {@link LoadPolicy} of this has expired the value, a new one is loaded; if it is due to be refreshed, a
+   * refresh is started in the background while the stale value is returned.
    *
    * @return A future with the {@link PipeResult} of the loading process.
    * @see #isLoaded()
    * @see #getOrLoad()
    */
-  // There is no clean way to avoid an input type for the loadable without unchecked casts.
   @SuppressWarnings("unchecked")
   public @NonNull CompletableFuture<@NonNull PipeResult<T>> getOrLoadResult() {
-    if (this.resultFuture != null) {
-      return this.resultFuture;
+    final LoadableState current = this.state;
+    if (current instanceof LoadableState.Loaded) {
+      if (!(current instanceof LoadableState.TimedLoaded)
+          || System.nanoTime() - ((LoadableState.TimedLoaded<?>) current).getStaleAt() < 0) {
+        return ((LoadableState.Loaded<PipeResult<T>>) current).getFuture();
+      }
+    } else if (current instanceof LoadableState.Loading) {
+      return ((LoadableState.Loading<PipeResult<T>>) current).getFuture();
     }
 
-    synchronized (lock) {
-      if (this.resultFuture != null) {
-        return this.resultFuture;
+    return this.transition();
+  }
+
+  /**
+   * Move out of the current state if it has no value to serve, or its value is stale, and return the future to serve.
+   * <p>
+   * Every transition is a compare-and-set of the {@link #state}, retried if another caller transitioned first.
+   *
+   * @return The future to serve.
+   */
+  @SuppressWarnings("unchecked")
+  private @NonNull CompletableFuture<@NonNull PipeResult<T>> transition() {
+    for (; ; ) {
+      final LoadableState current = this.state;
+      if (current instanceof LoadableState.Loading) {
+        return ((LoadableState.Loading<PipeResult<T>>) current).getFuture();
+      }
+      if (!(current instanceof LoadableState.Loaded)) {
+        final LoadableState.Loading<PipeResult<T>> loading = new LoadableState.Loading<>(new CompletableFuture<>());
+        if (STATE.compareAndSet(this, current, loading)) {
+          this.load(loading.getFuture());
+          return loading.getFuture();
+        }
+        continue;
+      }
+
+      if (!(current instanceof LoadableState.TimedLoaded)) {
+        return ((LoadableState.Loaded<PipeResult<T>>) current).getFuture();
+      }
+
+      final LoadableState.TimedLoaded<PipeResult<T>> loaded = (LoadableState.TimedLoaded<PipeResult<T>>) current;
+      final long now = System.nanoTime();
+      if (now - loaded.getStaleAt() < 0) {
+        return loaded.getFuture();
+      }
+
+      final long expireAfter = isThrowing(loaded.getItem())
+          ? this.policy.getExpireFailuresAfterNanos()
+          : this.policy.getExpireAfterWriteNanos();
+      if (now - loaded.getLoadedAt() >= expireAfter) {
+        // The value may no longer be served; wait for the refresh in flight, or load anew.
+        final CompletableFuture<PipeResult<T>> refresh = loaded.getRefresh();
+        final LoadableState.Loading<PipeResult<T>> loading =
+            new LoadableState.Loading<>(refresh != null ? refresh : new CompletableFuture<>());
+        if (STATE.compareAndSet(this, current, loading)) {
+          if (refresh == null) {
+            this.load(loading.getFuture());
+          }
+          return loading.getFuture();
+        }
+        continue;
       }
 
-      this.resultFuture = ((SewerSystem<Object, T>) this.pipeline).pump(this.object)
-          .thenApply(res -> {
-            synchronized (this.lock) {
-              this.state = new LoadableState.Loaded<>(res);
+      if (loaded.getRefresh() != null) {
+        return loaded.getFuture();
+      }
+
+      // Until the refresh is done, the value only needs checking again once it expires.
+      final CompletableFuture<PipeResult<T>> refresh = new CompletableFuture<>();
+      final LoadableState.TimedLoaded<PipeResult<T>> refreshing = loaded.withRefresh(
+          loaded.getLoadedAt() + expireAfter,
+          refresh
+      );
+      if (STATE.compareAndSet(this, current, refreshing)) {
+        this.refresh(refresh);
+        return loaded.getFuture();
+      }
+    }
+  }
+
+  /**
+   * Load the value, moving out of the {@link LoadableState.Loading} state of the future once done.
+   * <p>
+   * This must only be called by the caller which moved into that state.
+   *
+   * @param future The future of the {@link LoadableState.Loading} state.
+   */
+  private void load(@NonNull CompletableFuture<@NonNull PipeResult<T>> future) {
+    final long start = System.nanoTime();
+    this.pump().whenComplete((loaded, throwable) -> {
+      final PipeResult<T> res = throwable == null ? loaded : new ThrowingResult<>(throwable);
+      // Callers are served first, such that nothing after can leave them waiting.
+      future.complete(res);
+      // Only the loader moves out of its loading state.
+      this.state = this.loaded(res, future);
+      this.notifyLoaded(res, start);
+    });
+  }
+
+  /**
+   * Load the value in the background, keeping the current value until it is done.
+   * <p>
+   * This must only be called by the caller which moved into a {@link LoadableState.Loaded} state with the refresh.
+   *
+   * @param future The future of the refresh.
+   */
+  @SuppressWarnings("unchecked")
+  private void refresh(@NonNull CompletableFuture<@NonNull PipeResult<T>> future) {
+    final long start = System.nanoTime();
+    this.pump().whenComplete((loaded, throwable) -> {
+      final PipeResult<T> res = throwable == null ? loaded : new ThrowingResult<>(throwable);
+      future.complete(res);
+      for (; ; ) {
+        final LoadableState current = this.state;
+        final LoadableState next;
+        if (current instanceof LoadableState.Loaded
+            && ((LoadableState.Loaded<PipeResult<T>>) current).getRefresh() == future) {
+          // Only timed states have a refresh in flight.
+          final LoadableState.TimedLoaded<PipeResult<T>> stale = (LoadableState.TimedLoaded<PipeResult<T>>) current;
+          if (isThrowing(res) && !isThrowing(stale.getItem())) {
+            // Keep serving the stale value, and try again later.
+            final long retryAt = System.nanoTime() + this.policy.getRefreshAfterWriteNanos();
+            final long expireAt = stale.getLoadedAt() + this.policy.getExpireAfterWriteNanos();
+            next = stale.withRefresh(retryAt - expireAt < 0 ? retryAt : expireAt, null);
+          } else {
+            next = this.loaded(res, future);
+          }
+        } else if (current instanceof LoadableState.Loading
+            && ((LoadableState.Loading<PipeResult<T>>) current).getFuture() == future) {
+          next = this.loaded(res, future);
+        } else {
+          break;
+        }
+
+        if (STATE.compareAndSet(this, current, next)) {
+          break;
+        }
+      }
+
+      this.notifyLoaded(res, start);
+    });
+  }
+
+  /**
+   * Create the state of a newly loaded value.
+   * <p>
+   * Values which are never loaded again by the {@link #policy} get a state without any timing.
+   *
+   * @param res    The loaded value.
+   * @param future The future which has been completed with the value.
+   * @return The loaded state.
+   */
+  private LoadableState.@NonNull Loaded<@NonNull PipeResult<T>> loaded(
+      @NonNull PipeResult<T> res,
+      @NonNull CompletableFuture<@NonNull PipeResult<T>> future
+  ) {
+    if (!this.policy.isTimed()) {
+      return new LoadableState.Loaded<>(future);
+    }
+
+    final long loadedAt = System.nanoTime();
+    final long staleAfter = isThrowing(res)
+        ? this.policy.getExpireFailuresAfterNanos()
+        : Math.min(this.policy.getExpireAfterWriteNanos(), this.policy.getRefreshAfterWriteNanos());
+    return new LoadableState.TimedLoaded<>(future, loadedAt, loadedAt + staleAfter, null);
+  }
+
+  /**
+   * Notify the {@link #loadListener} of a completed load, if there is one.
+   * <p>
+   * Anything thrown by the listener is ignored, such that it cannot break the loadable.
+   *
+   * @param res   The loaded value.
+   * @param start The time the load started at, per {@link System#nanoTime()}.
+   */
+  private void notifyLoaded(@NonNull PipeResult<T> res, long start) {
+    if (this.loadListener != null) {
+      try {
+        this.loadListener.accept(res, System.nanoTime() - start);
+      } catch (Throwable ignored) {
+      }
+    }
+  }
+
+  /**
+   * Pump the input through the pipeline, retrying failures as per the {@link #policy}.
+   *
+   * @return The future of the result, completed once it succeeds or every retry has failed.
+   */
+  private @NonNull CompletableFuture<@NonNull PipeResult<T>> pump() {
+    if (this.policy.getMaxRetries() == 0) {
+      return this.pumpOnce();
+    }
+
+    final CompletableFuture<PipeResult<T>> future = new CompletableFuture<>();
+    this.attempt(0, future);
+    return future;
+  }
+
+  /**
+   * Pump the input through the pipeline, and schedule a retry if it fails and retries remain.
+   *
+   * @param retry  The amount of retries done before this attempt.
+   * @param future The future to complete with the final result.
+   */
+  @SuppressWarnings("deprecation") // Internal class warning.
+  private void attempt(int retry, @NonNull CompletableFuture<@NonNull PipeResult<T>> future) {
+    this.pumpOnce().whenComplete((loaded, throwable) -> {
+      final PipeResult<T> res = throwable == null ? loaded : new ThrowingResult<>(throwable);
+      if (!isThrowing(res) || retry >= this.policy.getMaxRetries()) {
+        future.complete(res);
+        return;
+      }
+
+      // The timer thread must not pump, so the retry hops onto the common pool.
+      SewerInternalUtilTimer.schedule(
+          () -> {
+            try {
+              ForkJoinPool.commonPool().execute(() -> this.attempt(retry + 1, future));
+            } catch (RejectedExecutionException ex) {
+              future.complete(res);
             }
+          },
+          this.policy.getBackoffNanos(retry),
+          TimeUnit.NANOSECONDS
+      );
+    });
+  }
 
-            return res;
-          });
-      return this.resultFuture;
+  /**
+   * Pump the input through the pipeline once.
+   *
+   * @return The future of the result.
+   */
+  // There is no clean way to avoid an input type for the loadable without unchecked casts.
+  @SuppressWarnings("unchecked")
+  private @NonNull CompletableFuture<@NonNull PipeResult<T>> pumpOnce() {
+    return (CompletableFuture<PipeResult<T>>) (CompletableFuture<?>) ((SewerSystem<Object, T>) this.pipeline)
+        .pump(this.object);
+  }
+
+  /**
+   * Invalidate the loaded value, such that the next call to {@link #getOrLoadResult()} loads it again.
+   * <p>
+   * If a load is in flight, no second load is started; the invalidated value is replaced once the load in flight
+   * completes.
+   *
+   * @since 0.8.0
+   */
+  @SuppressWarnings("unchecked")
+  public void invalidate() {
+    for (; ; ) {
+      final LoadableState current = this.state;
+      if (!(current instanceof LoadableState.Loaded)) {
+        return;
+      }
+
+      final CompletableFuture<PipeResult<T>> refresh = ((LoadableState.Loaded<PipeResult<T>>) current).getRefresh();
+      final LoadableState next = refresh == null
+          ? LoadableState.Unloaded.getInstance()
+          : new LoadableState.Loading<>(refresh);
+      if (STATE.compareAndSet(this, current, next)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Look through any {@link NamedPipeResult} wrapping a result.
+   *
+   * @param res The result to unwrap.
+   * @return The innermost result.
+   */
+  @Pure
+  private static @Nullable PipeResult<?> unwrap(@Nullable PipeResult<?> res) {
+    PipeResult<?> inner = res;
+    while (inner instanceof NamedPipeResult) {
+      inner = ((NamedPipeResult<?, ?>) inner).getResult();
     }
+    return inner;
+  }
+
+  /**
+   * Check whether a result threw, looking through any {@link NamedPipeResult} wrapping it.
+   *
+   * @param res The result to check.
+   * @return Whether the result is a {@link ThrowingResult}.
+   */
+  @Pure
+  static boolean isThrowing(@Nullable PipeResult<?> res) {
+    return unwrap(res) instanceof ThrowingResult;
   }
 
   /**
@@ -270,9 +603,10 @@ public class Loadable<T> {
    */
   public @NonNull CompletableFuture<@NonNull Optional<@NonNull T>> getOrLoad() {
     return getOrLoadResult().thenCompose(res -> {
-      if (res instanceof ThrowingResult) {
+      final PipeResult<?> inner = unwrap(res);
+      if (inner instanceof ThrowingResult) {
         CompletableFuture<Optional<T>> future = new CompletableFuture<>();
-        future.completeExceptionally(((ThrowingResult<?>) res).getThrowable());
+        future.completeExceptionally(((ThrowingResult<?>) inner).getThrowable());
         return future;
       }
 
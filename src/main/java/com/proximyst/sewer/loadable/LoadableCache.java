@@ -0,0 +1,280 @@
+package com.proximyst.sewer.loadable;
+
+import com.proximyst.sewer.SewerSystem;
+import com.proximyst.sewer.cache.CacheStats;
+import com.proximyst.sewer.cache.SegmentedLruCache;
+import com.proximyst.sewer.piping.PipeResult;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ObjLongConsumer;
+import java.util.function.ToIntBiFunction;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.common.returnsreceiver.qual.This;
+
+/**
+ * A bounded cache of {@link Loadable}s, one per key, loading their values through a shared {@link SewerSystem}.
+ * <p>
+ * Loadables are created lazily the first time their key is looked up, and do not load until their value is asked for.
+ * The cache is bounded either by the amount of keys or by the total weight of the loaded values, and evicts with the
+ * policy of a {@link SegmentedLruCache}. Every loadable follows the same {@link LoadPolicy}.
+ *
+ * @param <K> The type of keys, which are the inputs to the system.
+ * @param <V> The type of loaded values.
+ * @since 0.8.0
+ */
+public final class LoadableCache<K, V> {
+  private final @NonNull SewerSystem<K, V> system;
+  private final @NonNull LoadPolicy policy;
+  private final @NonNull SegmentedLruCache<K, @NonNull Loadable<V>> cache;
+
+  /**
+   * Whether loadables are weighed by their loaded value, and must therefore be weighed again once they load.
+   */
+  private final boolean weighed;
+
+  private final @NonNull LongAdder loads = new LongAdder();
+  private final @NonNull LongAdder loadFailures = new LongAdder();
+  private final @NonNull LongAdder totalLoadNanos = new LongAdder();
+
+  private LoadableCache(
+      @NonNull SewerSystem<K, V> system,
+      @NonNull LoadPolicy policy,
+      long maxWeight,
+      @Nullable ToIntBiFunction<? super K, ? super V> weigher
+  ) {
+    this.system = system;
+    this.policy = policy;
+    this.weighed = weigher != null;
+    if (weigher == null) {
+      this.cache = new SegmentedLruCache<>(maxWeight, (key, loadable) -> 1, null);
+    } else {
+      this.cache = new SegmentedLruCache<>(
+          maxWeight,
+          (key, loadable) -> loadable.getIfPresent().map(value -> weigher.applyAsInt(key, value)).orElse(1),
+          null
+      );
+    }
+  }
+
+  /**
+   * Create a new builder for a {@link LoadableCache}.
+   *
+   * @param system The {@link SewerSystem} pipeline to load the value of every key with.
+   * @param <K>    The type of keys.
+   * @param <V>    The type of loaded values.
+   * @return A new {@link Builder}.
+   */
+  public static <K, V> @NonNull Builder<K, V> builder(@NonNull SewerSystem<K, V> system) {
+    return new Builder<>(system);
+  }
+
+  /**
+   * Get the {@link Loadable} of a key, creating it if there is none.
+   * <p>
+   * This does not initiate loading.
+   *
+   * @param key The key to get the loadable of.
+   * @return The loadable of the key.
+   */
+  public @NonNull Loadable<V> getLoadable(K key) {
+    return this.cache.get(key, this::create);
+  }
+
+  /**
+   * Get the result of a key, loading it if it is not yet loaded.
+   *
+   * @param key The key to get the result of.
+   * @return A future with the {@link PipeResult} of the key.
+   * @see Loadable#getOrLoadResult()
+   */
+  public @NonNull CompletableFuture<@NonNull PipeResult<V>> getResult(K key) {
+    return this.getLoadable(key).getOrLoadResult();
+  }
+
+  /**
+   * Get the value of a key, loading it if it is not yet loaded.
+   *
+   * @param key The key to get the value of.
+   * @return A future with the value of the key, completed exceptionally if its load threw.
+   * @see Loadable#getOrLoad()
+   */
+  public @NonNull CompletableFuture<@NonNull Optional<@NonNull V>> get(K key) {
+    return this.getLoadable(key).getOrLoad();
+  }
+
+  /**
+   * Get the results of several keys, loading those which are not yet loaded.
+   * <p>
+   * Keys which are not yet loaded all start loading before this returns, such that their loads run concurrently.
+   *
+   * @param keys The keys to get the results of.
+   * @return A future with an unmodifiable map of the {@link PipeResult} of every key, in the order of the keys.
+   */
+  public @NonNull CompletableFuture<@NonNull Map<K, @NonNull PipeResult<V>>> getAll(
+      @NonNull Iterable<? extends K> keys
+  ) {
+    final List<K> order = new ArrayList<>();
+    final List<CompletableFuture<PipeResult<V>>> futures = new ArrayList<>();
+    for (K key : keys) {
+      order.add(key);
+      futures.add(this.getResult(key));
+    }
+
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+      final Map<K, PipeResult<V>> results = new LinkedHashMap<>();
+      for (int i = 0; i < order.size(); ++i) {
+        results.put(order.get(i), futures.get(i).join());
+      }
+      return Collections.unmodifiableMap(results);
+    });
+  }
+
+  /**
+   * Get the value of a key if it is already loaded.
+   * <p>
+   * This does not initiate loading, nor create a {@link Loadable} for the key.
+   *
+   * @param key The key to get the value of.
+   * @return The value of the key if it is loaded successfully.
+   */
+  public @NonNull Optional<@NonNull V> getIfPresent(K key) {
+    final Loadable<V> loadable = this.cache.getIfPresent(key);
+    return loadable == null ? Optional.empty() : loadable.getIfPresent();
+  }
+
+  /**
+   * Remove the {@link Loadable} of a key, such that it is loaded again the next time it is asked for.
+   *
+   * @param key The key to remove.
+   */
+  public void invalidate(K key) {
+    this.cache.invalidate(key);
+  }
+
+  /**
+   * Remove every {@link Loadable}.
+   */
+  public void invalidateAll() {
+    this.cache.invalidateAll();
+  }
+
+  /**
+   * @return The amount of keys with a {@link Loadable} in the cache.
+   */
+  public int size() {
+    return this.cache.size();
+  }
+
+  /**
+   * Take a snapshot of the statistics of the cache.
+   * <p>
+   * A hit is a lookup of a key which already had a {@link Loadable}, whether or not it had loaded. Loads include
+   * refreshes and retries of the {@link LoadPolicy}, with a retried load counting once.
+   *
+   * @return A snapshot of the statistics.
+   */
+  public @NonNull CacheStats stats() {
+    return this.cache.stats().withLoads(this.loads.sum(), this.loadFailures.sum(), this.totalLoadNanos.sum());
+  }
+
+  /**
+   * Create the {@link Loadable} of a key.
+   *
+   * @param key The key to create the loadable of.
+   * @return A new loadable of the key.
+   */
+  private @NonNull Loadable<V> create(K key) {
+    final AtomicReference<Loadable<V>> created = new AtomicReference<>();
+    final ObjLongConsumer<PipeResult<V>> listener = (result, nanos) -> {
+      this.loads.increment();
+      this.totalLoadNanos.add(nanos);
+      if (Loadable.isThrowing(result)) {
+        this.loadFailures.increment();
+      }
+      if (this.weighed) {
+        final Loadable<V> loadable = created.get();
+        this.cache.replace(key, loadable, loadable);
+      }
+    };
+    final Loadable<V> loadable = new Loadable<>(this.system, key, this.policy, listener);
+    created.set(loadable);
+    return loadable;
+  }
+
+  /**
+   * A builder to create a new {@link LoadableCache}.
+   *
+   * @param <K> The type of keys.
+   * @param <V> The type of loaded values.
+   */
+  public static final class Builder<K, V> {
+    private final @NonNull SewerSystem<K, V> system;
+    private @NonNull LoadPolicy policy = LoadPolicy.eternal();
+    private long maxWeight = 1024;
+    private @Nullable ToIntBiFunction<? super K, ? super V> weigher;
+
+    private Builder(@NonNull SewerSystem<K, V> system) {
+      this.system = system;
+    }
+
+    /**
+     * Bound the cache by the amount of keys. This defaults to {@code 1024}.
+     *
+     * @param maximumSize The maximum amount of keys.
+     * @return This builder for chaining.
+     */
+    public @NonNull @This Builder<K, V> maximumSize(long maximumSize) {
+      this.maxWeight = maximumSize;
+      this.weigher = null;
+      return this;
+    }
+
+    /**
+     * Bound the cache by the total weight of the loaded values.
+     * <p>
+     * A value is weighed once it has loaded; until then, and if it failed to load, its key weighs {@code 1}.
+     *
+     * @param maximumWeight The maximum total weight.
+     * @param weigher       The function to weigh a loaded value by; weights must not be negative.
+     * @return This builder for chaining.
+     */
+    public @NonNull @This Builder<K, V> maximumWeight(
+        long maximumWeight,
+        @NonNull ToIntBiFunction<? super K, ? super V> weigher
+    ) {
+      this.maxWeight = maximumWeight;
+      this.weigher = weigher;
+      return this;
+    }
+
+    /**
+     * Set the policy for when every {@link Loadable} loads its value again. This defaults to {@link
+     * LoadPolicy#eternal()}.
+     *
+     * @param policy The policy for when values are loaded again.
+     * @return This builder for chaining.
+     */
+    public @NonNull @This Builder<K, V> policy(@NonNull LoadPolicy policy) {
+      this.policy = policy;
+      return this;
+    }
+
+    /**
+     * Build a new {@link LoadableCache}.
+     *
+     * @return A new {@link LoadableCache}.
+     * @throws IllegalArgumentException If the maximum size or weight is not positive.
+     */
+    public @NonNull LoadableCache<K, V> build() {
+      return new LoadableCache<>(this.system, this.policy, this.maxWeight, this.weigher);
+    }
+  }
+}
@@ -1,10 +1,14 @@
 package com.proximyst.sewer.loadable;
 
+import java.util.concurrent.CompletableFuture;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.dataflow.qual.Pure;
 
 /**
  * Internal state for {@link Loadable}s.
+ * <p>
+ * States are immutable; a {@link Loadable} moves between them by atomically swapping its state for a new one.
  *
  * @since 0.4.0
  */
@@ -35,21 +39,50 @@ class LoadableState {
   }
 
   /**
-   * A value that has been loaded.
+   * A value that is being loaded, with no value to serve in the meantime.
+   *
+   * @param <T> The type of the value being loaded.
+   * @since 0.8.0
+   */
+  public static class Loading<T> extends LoadableState {
+    /**
+     * The future completed with the value once it is loaded.
+     */
+    private final @NonNull CompletableFuture<T> future;
+
+    /**
+     * @param future The future completed with the value once it is loaded.
+     */
+    public Loading(@NonNull CompletableFuture<T> future) {
+      this.future = future;
+    }
+
+    /**
+     * @return The future completed with the value once it is loaded.
+     */
+    @Pure
+    public @NonNull CompletableFuture<T> getFuture() {
+      return this.future;
+    }
+  }
+
+  /**
+   * A value that has been loaded, which is never loaded again unless invalidated.
    *
    * @param <T> The type of the value contained.
    */
   public static class Loaded<T> extends LoadableState {
     /**
-     * The loaded item.
+     * The completed future of the loaded item, which also holds the item itself.
      */
-    private final T item;
+    private final @NonNull CompletableFuture<T> future;
 
     /**
-     * @param item The item to store in this state.
+     * @param future The future of the item to store in this state, which must already be completed with it.
+     * @since 0.8.0
      */
-    public Loaded(T item) {
-      this.item = item;
+    public Loaded(@NonNull CompletableFuture<T> future) {
+      this.future = future;
     }
 
     /**
@@ -58,7 +91,104 @@ class LoadableState {
      * @return The internal item.
      */
     public T getItem() {
-      return item;
+      return this.future.join();
+    }
+
+    /**
+     * @return The completed future of the loaded item.
+     * @since 0.8.0
+     */
+    @Pure
+    public @NonNull CompletableFuture<T> getFuture() {
+      return this.future;
+    }
+
+    /**
+     * @return The future of the refresh in flight, if any.
+     * @since 0.8.0
+     */
+    @Pure
+    public @Nullable CompletableFuture<T> getRefresh() {
+      return null;
+    }
+  }
+
+  /**
+   * A value that has been loaded, and which expires or is refreshed after some time.
+   * <p>
+   * Only loadables with a timed {@link LoadPolicy} use this state, such that others do not carry its timing.
+   *
+   * @param <T> The type of the value contained.
+   * @since 0.8.0
+   */
+  public static class TimedLoaded<T> extends Loaded<T> {
+    /**
+     * The time the item was loaded at, per {@link System#nanoTime()}.
+     */
+    private final long loadedAt;
+
+    /**
+     * The time after which the item must be checked for expiry or refresh, per {@link System#nanoTime()}.
+     */
+    private final long staleAt;
+
+    /**
+     * The future of the refresh in flight, if any.
+     */
+    private final @Nullable CompletableFuture<T> refresh;
+
+    /**
+     * @param future   The future of the item to store in this state, which must already be completed with it.
+     * @param loadedAt The time the item was loaded at.
+     * @param staleAt  The time after which the item must be checked for expiry or refresh.
+     * @param refresh  The future of the refresh in flight, if any.
+     */
+    public TimedLoaded(
+        @NonNull CompletableFuture<T> future,
+        long loadedAt,
+        long staleAt,
+        @Nullable CompletableFuture<T> refresh
+    ) {
+      super(future);
+      this.loadedAt = loadedAt;
+      this.staleAt = staleAt;
+      this.refresh = refresh;
+    }
+
+    /**
+     * @return The time the item was loaded at, per {@link System#nanoTime()}.
+     */
+    @Pure
+    public long getLoadedAt() {
+      return this.loadedAt;
+    }
+
+    /**
+     * @return The time after which the item must be checked for expiry or refresh, per {@link System#nanoTime()}.
+     */
+    @Pure
+    public long getStaleAt() {
+      return this.staleAt;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Pure
+    public @Nullable CompletableFuture<T> getRefresh() {
+      return this.refresh;
+    }
+
+    /**
+     * Create a copy of this state with a different refresh in flight and time to check the item again.
+     *
+     * @param staleAt The time after which the item must be checked for expiry or refresh.
+     * @param refresh The future of the refresh in flight, if any.
+     * @return A new state with the same item.
+     */
+    public @NonNull TimedLoaded<T> withRefresh(long staleAt, @Nullable CompletableFuture<T> refresh) {
+      return new TimedLoaded<>(this.getFuture(), this.loadedAt, staleAt, refresh);
     }
   }
 }
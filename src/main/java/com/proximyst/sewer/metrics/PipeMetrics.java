@@ -0,0 +1,254 @@
+package com.proximyst.sewer.metrics;
+
+import com.proximyst.sewer.piping.NamedPipeResult;
+import com.proximyst.sewer.piping.PipeResult;
+import com.proximyst.sewer.piping.RejectedResult;
+import com.proximyst.sewer.piping.ThrowingResult;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.dataflow.qual.Pure;
+
+/**
+ * The metrics of a single pipe.
+ * <p>
+ * Every counter is a {@link LongAdder}, such that concurrent flows through the same pipe do not contend. Latencies are
+ * recorded in a histogram of power-of-two nanosecond buckets.
+ *
+ * @since 0.8.0
+ */
+public final class PipeMetrics {
+  /**
+   * The amount of latency buckets; bucket {@code i} holds latencies below {@code 2^i} nanoseconds.
+   */
+  private static final int BUCKETS = 64;
+
+  private final @NonNull String pipeName;
+  private final @NonNull LongAdder successful = new LongAdder();
+  private final @NonNull LongAdder filtered = new LongAdder();
+  private final @NonNull LongAdder throwing = new LongAdder();
+  private final @NonNull LongAdder rejected = new LongAdder();
+  private final @NonNull LongAdder totalNanos = new LongAdder();
+  private final @NonNull LongAdder @NonNull [] latencies = new LongAdder[BUCKETS];
+
+  /**
+   * @param pipeName The name of the pipe.
+   */
+  PipeMetrics(@NonNull String pipeName) {
+    this.pipeName = pipeName;
+    for (int i = 0; i < BUCKETS; ++i) {
+      this.latencies[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * @return The name of the pipe.
+   */
+  @Pure
+  public @NonNull String getPipeName() {
+    return this.pipeName;
+  }
+
+  /**
+   * Record a flow through the pipe.
+   *
+   * @param result The result of the flow.
+   * @param nanos  The latency of the flow, in nanoseconds.
+   */
+  public void record(@NonNull PipeResult<?> result, long nanos) {
+    PipeResult<?> inner = result;
+    while (inner instanceof NamedPipeResult) {
+      inner = ((NamedPipeResult<?, ?>) inner).getResult();
+    }
+
+    if (inner.isSuccessful()) {
+      this.successful.increment();
+    } else if (inner instanceof ThrowingResult) {
+      this.throwing.increment();
+    } else if (inner instanceof RejectedResult) {
+      this.rejected.increment();
+    } else {
+      this.filtered.increment();
+    }
+
+    final long latency = Math.max(0L, nanos);
+    this.totalNanos.add(latency);
+    this.latencies[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(latency))].increment();
+  }
+
+  /**
+   * Take a snapshot of the metrics.
+   * <p>
+   * The snapshot is taken while the pipe may still be flowing, and is therefore not atomic.
+   *
+   * @return A snapshot of the metrics.
+   */
+  public @NonNull Snapshot snapshot() {
+    final long[] buckets = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; ++i) {
+      buckets[i] = this.latencies[i].sum();
+    }
+
+    return new Snapshot(
+        this.pipeName,
+        this.successful.sum(),
+        this.filtered.sum(),
+        this.throwing.sum(),
+        this.rejected.sum(),
+        this.totalNanos.sum(),
+        buckets
+    );
+  }
+
+  /**
+   * Reset every counter of the metrics.
+   */
+  public void reset() {
+    this.successful.reset();
+    this.filtered.reset();
+    this.throwing.reset();
+    this.rejected.reset();
+    this.totalNanos.reset();
+    for (LongAdder latency : this.latencies) {
+      latency.reset();
+    }
+  }
+
+  /**
+   * A point-in-time snapshot of {@link PipeMetrics}.
+   */
+  public static final class Snapshot {
+    private final @NonNull String pipeName;
+    private final long successful;
+    private final long filtered;
+    private final long throwing;
+    private final long rejected;
+    private final long totalNanos;
+    private final long @NonNull [] buckets;
+
+    private Snapshot(
+        @NonNull String pipeName,
+        long successful,
+        long filtered,
+        long throwing,
+        long rejected,
+        long totalNanos,
+        long @NonNull [] buckets
+    ) {
+      this.pipeName = pipeName;
+      this.successful = successful;
+      this.filtered = filtered;
+      this.throwing = throwing;
+      this.rejected = rejected;
+      this.totalNanos = totalNanos;
+      this.buckets = buckets;
+    }
+
+    /**
+     * @return The name of the pipe.
+     */
+    @Pure
+    public @NonNull String getPipeName() {
+      return this.pipeName;
+    }
+
+    /**
+     * @return The amount of flows through the pipe.
+     */
+    @Pure
+    public long getInvocations() {
+      return this.successful + this.filtered + this.throwing + this.rejected;
+    }
+
+    /**
+     * @return The amount of flows through the pipe which were successful.
+     */
+    @Pure
+    public long getSuccessful() {
+      return this.successful;
+    }
+
+    /**
+     * @return The amount of flows through the pipe which were filtered.
+     */
+    @Pure
+    public long getFiltered() {
+      return this.filtered;
+    }
+
+    /**
+     * @return The amount of flows through the pipe which threw.
+     */
+    @Pure
+    public long getThrowing() {
+      return this.throwing;
+    }
+
+    /**
+     * @return The amount of flows through the pipe which were rejected without being attempted, such as by a
+     * concurrency limit or circuit breaker.
+     * @see RejectedResult
+     */
+    @Pure
+    public long getRejected() {
+      return this.rejected;
+    }
+
+    /**
+     * @param unit The unit to return the latency in.
+     * @return The mean latency of flows through the pipe, or {@code 0} if there were none.
+     */
+    @Pure
+    public double getMeanLatency(@NonNull TimeUnit unit) {
+      final long invocations = this.getInvocations();
+      if (invocations == 0) {
+        return 0;
+      }
+
+      return (double) this.totalNanos / invocations / unit.toNanos(1);
+    }
+
+    /**
+     * Estimate a percentile of the latency of flows through the pipe.
+     * <p>
+     * The estimate is the upper bound of the power-of-two bucket the percentile falls within, and may therefore be up
+     * to twice the actual latency.
+     *
+     * @param percentile The percentile to estimate, between {@code 0} and {@code 1}.
+     * @param unit       The unit to return the latency in.
+     * @return The estimated latency, or {@code 0} if there were no flows.
+     */
+    @Pure
+    public double getLatencyPercentile(double percentile, @NonNull TimeUnit unit) {
+      final long invocations = this.getInvocations();
+      if (invocations == 0) {
+        return 0;
+      }
+
+      final long rank = (long) Math.ceil(Math.min(1.0, Math.max(0.0, percentile)) * invocations);
+      long seen = 0;
+      for (int i = 0; i < this.buckets.length; ++i) {
+        seen += this.buckets[i];
+        if (seen >= rank) {
+          return Math.scalb(1.0, i) / unit.toNanos(1);
+        }
+      }
+      return Math.scalb(1.0, this.buckets.length) / unit.toNanos(1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+      return "Snapshot{" +
+          "pipeName='" + this.pipeName + '\'' +
+          ", successful=" + this.successful +
+          ", filtered=" + this.filtered +
+          ", throwing=" + this.throwing +
+          ", rejected=" + this.rejected +
+          ", meanNanos=" + this.getMeanLatency(TimeUnit.NANOSECONDS) +
+          '}';
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package com.proximyst.sewer.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A registry of {@link PipeMetrics}, keyed by pipe name.
+ * <p>
+ * A registry is opt-in per {@link com.proximyst.sewer.SewerSystem SewerSystem} through {@link
+ * com.proximyst.sewer.SewerSystem.Builder#metrics(SewerMetrics)}, and may be shared between several systems. Pipes with
+ * the same name share the same metrics.
+ *
+ * @since 0.8.0
+ */
+public final class SewerMetrics {
+  /**
+   * The metrics of every pipe, keyed by pipe name.
+   */
+  private final @NonNull ConcurrentMap<@NonNull String, @NonNull PipeMetrics> pipes = new ConcurrentHashMap<>();
+
+  /**
+   * Get the metrics of a pipe, creating them if they do not yet exist.
+   *
+   * @param pipeName The name of the pipe.
+   * @return The metrics of the pipe.
+   */
+  public @NonNull PipeMetrics pipe(@NonNull String pipeName) {
+    return this.pipes.computeIfAbsent(pipeName, PipeMetrics::new);
+  }
+
+  /**
+   * Take a snapshot of the metrics of every pipe.
+   * <p>
+   * Each pipe's snapshot is taken separately while pipes may still be flowing, and is therefore not atomic.
+   *
+   * @return An unmodifiable map of snapshots, keyed by pipe name.
+   */
+  public @NonNull Map<@NonNull String, PipeMetrics.@NonNull Snapshot> snapshot() {
+    final Map<String, PipeMetrics.Snapshot> snapshots = new LinkedHashMap<>();
+    for (PipeMetrics metrics : this.pipes.values()) {
+      snapshots.put(metrics.getPipeName(), metrics.snapshot());
+    }
+    return Collections.unmodifiableMap(snapshots);
+  }
+
+  /**
+   * Reset the metrics of every pipe.
+   */
+  public void reset() {
+    for (PipeMetrics metrics : this.pipes.values()) {
+      metrics.reset();
+    }
+  }
+}
@@ -0,0 +1,9 @@
+/**
+ * Metrics types.
+ * <p>
+ * This defines the {@link com.proximyst.sewer.metrics.SewerMetrics SewerMetrics} registry, which records how often
+ * every pipe of a {@link com.proximyst.sewer.SewerSystem SewerSystem} flows, what it results in, and how long it takes.
+ *
+ * @since 0.8.0
+ */
+package com.proximyst.sewer.metrics;
@@ -25,13 +25,36 @@ public final class NamedPipeResult<T, PR extends PipeResult<T>> extends PipeResu
    */
   private final @NonNull PR result;
 
+  /**
+   * The amount of times the module the inner result originates from was attempted.
+   *
+   * @since 0.8.0
+   */
+  private final int attempts;
+
   /**
    * @param pipeName The name of the pipe this result originates from.
    * @param result   The wrapped result this represents.
    */
   public NamedPipeResult(@NonNull String pipeName, @NonNull PR result) {
+    this(pipeName, result, 1);
+  }
+
+  /**
+   * @param pipeName The name of the pipe this result originates from.
+   * @param result   The wrapped result this represents.
+   * @param attempts The amount of times the module the result originates from was attempted.
+   * @throws IllegalArgumentException If {@code attempts} is not positive.
+   * @since 0.8.0
+   */
+  public NamedPipeResult(@NonNull String pipeName, @NonNull PR result, int attempts) {
+    if (attempts < 1) {
+      throw new IllegalArgumentException("attempts must be positive, but is " + attempts);
+    }
+
     this.pipeName = pipeName;
     this.result = result;
+    this.attempts = attempts;
   }
 
   /**
@@ -77,6 +100,17 @@ public final class NamedPipeResult<T, PR extends PipeResult<T>> extends PipeResu
     return this.result;
   }
 
+  /**
+   * @return The amount of times the module the {@link #getResult() inner result} originates from was attempted, which
+   * is more than {@code 1} if it was {@link RetriedResult retried}. This only counts the attempts of the module which
+   * gave the result, and not those of any module before it which was retried and succeeded.
+   * @since 0.8.0
+   */
+  @Pure
+  public int getAttempts() {
+    return this.attempts;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -89,7 +123,8 @@ public final class NamedPipeResult<T, PR extends PipeResult<T>> extends PipeResu
       return false;
     }
     NamedPipeResult<?, ?> that = (NamedPipeResult<?, ?>) o;
-    return getPipeName().equals(that.getPipeName()) &&
+    return getAttempts() == that.getAttempts() &&
+        getPipeName().equals(that.getPipeName()) &&
         getResult().equals(that.getResult());
   }
 
@@ -98,7 +133,7 @@ public final class NamedPipeResult<T, PR extends PipeResult<T>> extends PipeResu
    */
   @Override
   public int hashCode() {
-    return Objects.hash(getPipeName(), getResult());
+    return Objects.hash(getPipeName(), getResult(), getAttempts());
   }
 
   /**
@@ -109,6 +144,7 @@ public final class NamedPipeResult<T, PR extends PipeResult<T>> extends PipeResu
     return "NamedPipeResult{" +
         "pipeName='" + pipeName + '\'' +
         ", result=" + result +
+        ", attempts=" + attempts +
         '}';
   }
 }
@@ -0,0 +1,82 @@
+package com.proximyst.sewer.piping;
+
+import java.util.Objects;
+import java.util.Optional;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.dataflow.qual.Pure;
+
+/**
+ * A result of a flow which was rejected without being attempted, such as one over the concurrency limit of its pipe.
+ * <p>
+ * Unlike a {@link ThrowingResult}, this holds no stack trace, so rejecting is cheap even when overloaded.
+ *
+ * @param <T> The output type.
+ * @since 0.8.0
+ */
+public final class RejectedResult<T> extends PipeResult<T> {
+  private final @NonNull String reason;
+
+  /**
+   * @param reason The reason the flow was rejected.
+   */
+  public RejectedResult(@NonNull String reason) {
+    this.reason = reason;
+  }
+
+  /**
+   * @return The reason the flow was rejected.
+   */
+  @Pure
+  public @NonNull String getReason() {
+    return this.reason;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isSuccessful() {
+    return false;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public @NonNull Optional<T> asOptional() {
+    return Optional.empty();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    RejectedResult<?> that = (RejectedResult<?>) o;
+    return getReason().equals(that.getReason());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int hashCode() {
+    return Objects.hash(getReason());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    return "RejectedResult{" +
+        "reason='" + reason + '\'' +
+        '}';
+  }
+}
@@ -0,0 +1,114 @@
+package com.proximyst.sewer.piping;
+
+import java.util.Objects;
+import java.util.Optional;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.dataflow.qual.Pure;
+import org.checkerframework.dataflow.qual.SideEffectFree;
+
+/**
+ * A wrapper {@link PipeResult} for the final result of a module which was attempted more than once.
+ * <p>
+ * Pipes unwrap this into a {@link NamedPipeResult} of the inner result, which records the {@link
+ * NamedPipeResult#getAttempts() attempt count}. A successful result which flows on into another module is unwrapped
+ * into its value, and its attempt count is dropped.
+ *
+ * @param <T> The output type.
+ * @since 0.8.0
+ */
+public final class RetriedResult<T> extends PipeResult<T> {
+  private final @NonNull PipeResult<T> result;
+  private final int attempts;
+
+  /**
+   * @param result   The result of the final attempt.
+   * @param attempts The amount of attempts made, including the first.
+   * @throws IllegalArgumentException If {@code attempts} is not positive.
+   */
+  public RetriedResult(@NonNull PipeResult<T> result, int attempts) {
+    if (attempts < 1) {
+      throw new IllegalArgumentException("attempts must be positive, but is " + attempts);
+    }
+
+    this.result = result;
+    this.attempts = attempts;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  @Pure
+  public boolean isSuccessful() {
+    return this.result.isSuccessful();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  @Pure
+  public boolean mayContinue() {
+    return this.result.mayContinue();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  @SideEffectFree
+  public @NonNull Optional<@NonNull T> asOptional() {
+    return this.result.asOptional();
+  }
+
+  /**
+   * @return The result of the final attempt.
+   */
+  @Pure
+  public @NonNull PipeResult<T> getResult() {
+    return this.result;
+  }
+
+  /**
+   * @return The amount of attempts made, including the first.
+   */
+  @Pure
+  public int getAttempts() {
+    return this.attempts;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    RetriedResult<?> that = (RetriedResult<?>) o;
+    return getAttempts() == that.getAttempts() &&
+        getResult().equals(that.getResult());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int hashCode() {
+    return Objects.hash(getResult(), getAttempts());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    return "RetriedResult{" +
+        "result=" + result +
+        ", attempts=" + attempts +
+        '}';
+  }
+}
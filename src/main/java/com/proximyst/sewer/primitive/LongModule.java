@@ -0,0 +1,58 @@
+package com.proximyst.sewer.primitive;
+
+import java.util.function.LongPredicate;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * A module for a {@link LongSewerSystem}, mapping a {@code long} to another {@code long} without boxing.
+ * <p>
+ * Before a module flows, its input is {@link #accepts(long) tested}; if it is not accepted, the system stops with a
+ * {@link LongPipeResult#FILTERED filtered} result.
+ *
+ * @see com.proximyst.sewer.Module
+ * @since 0.8.0
+ */
+@FunctionalInterface
+public interface LongModule {
+  /**
+   * Create a new {@link LongModule} that filters its input through a {@link LongPredicate}.
+   * <p>
+   * If the {@link LongPredicate} test succeeds, this passes its input on unchanged.
+   *
+   * @param predicate The predicate to use for filtering this input.
+   * @return A new {@link LongModule} filtering the input through a {@link LongPredicate}.
+   * @see com.proximyst.sewer.Module#filtering(java.util.function.Predicate)
+   */
+  static @NonNull LongModule filtering(@NonNull LongPredicate predicate) {
+    return new LongModule() {
+      @Override
+      public boolean accepts(long input) {
+        return predicate.test(input);
+      }
+
+      @Override
+      public long flow(long input) {
+        return input;
+      }
+    };
+  }
+
+  /**
+   * Test whether the input may flow through the module.
+   *
+   * @param input The input to this module.
+   * @return Whether the input may flow through the module. This defaults to accepting every input.
+   */
+  default boolean accepts(long input) {
+    return true;
+  }
+
+  /**
+   * Flow the input through the module.
+   *
+   * @param input The input to this module, which has been {@link #accepts(long) accepted}.
+   * @return The output of this module.
+   * @throws Throwable Any throwable the module may throw.
+   */
+  long flow(long input) throws Throwable;
+}
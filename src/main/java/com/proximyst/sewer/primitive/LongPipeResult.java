@@ -0,0 +1,188 @@
+package com.proximyst.sewer.primitive;
+
+import com.proximyst.sewer.piping.PipeResult;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.dataflow.qual.Pure;
+import org.checkerframework.dataflow.qual.SideEffectFree;
+
+/**
+ * The result of pumping a {@link LongSewerSystem}, holding the output as a primitive {@code long} along with a status
+ * code and the name of the pipe which stopped or finished the pump.
+ * <p>
+ * This is a {@link PipeResult} so it can be handled like any other result; only {@link #asOptional()} boxes the
+ * output.
+ *
+ * @since 0.8.0
+ */
+public final class LongPipeResult extends PipeResult<Long> {
+  /**
+   * The status of a pump which flowed through every pipe.
+   */
+  public static final int SUCCESSFUL = 0;
+
+  /**
+   * The status of a pump which was filtered out by some pipe.
+   */
+  public static final int FILTERED = 1;
+
+  /**
+   * The status of a pump in which some pipe threw.
+   */
+  public static final int THROWING = 2;
+
+  private final int status;
+  private final long value;
+  private final @NonNull String pipeName;
+  private final @Nullable Throwable throwable;
+
+  private LongPipeResult(int status, long value, @NonNull String pipeName, @Nullable Throwable throwable) {
+    this.status = status;
+    this.value = value;
+    this.pipeName = pipeName;
+    this.throwable = throwable;
+  }
+
+  /**
+   * Create a successful result.
+   *
+   * @param pipeName The name of the last pipe.
+   * @param value    The output of the last pipe.
+   * @return A new successful result.
+   */
+  public static @NonNull LongPipeResult successful(@NonNull String pipeName, long value) {
+    return new LongPipeResult(SUCCESSFUL, value, pipeName, null);
+  }
+
+  /**
+   * Create a filtered result.
+   *
+   * @param pipeName The name of the pipe which filtered the input out.
+   * @return A new filtered result.
+   */
+  public static @NonNull LongPipeResult filtered(@NonNull String pipeName) {
+    return new LongPipeResult(FILTERED, 0L, pipeName, null);
+  }
+
+  /**
+   * Create a throwing result.
+   *
+   * @param pipeName  The name of the pipe which threw.
+   * @param throwable The {@link Throwable} the pipe threw.
+   * @return A new throwing result.
+   */
+  public static @NonNull LongPipeResult throwing(@NonNull String pipeName, @NonNull Throwable throwable) {
+    return new LongPipeResult(THROWING, 0L, pipeName, throwable);
+  }
+
+  /**
+   * @return The status of the pump; one of {@link #SUCCESSFUL}, {@link #FILTERED} and {@link #THROWING}.
+   */
+  @Pure
+  public int getStatus() {
+    return this.status;
+  }
+
+  /**
+   * @return The name of the pipe which stopped or finished the pump.
+   */
+  @Pure
+  public @NonNull String getPipeName() {
+    return this.pipeName;
+  }
+
+  /**
+   * @return The {@link Throwable} thrown in the pump, if the status is {@link #THROWING}.
+   */
+  @Pure
+  public @Nullable Throwable getThrowable() {
+    return this.throwable;
+  }
+
+  /**
+   * Get the output of the pump without boxing it.
+   *
+   * @return The output of the pump.
+   * @throws NoSuchElementException If the pump was not {@link #isSuccessful() successful}.
+   */
+  @Pure
+  public long getAsLong() {
+    if (this.status != SUCCESSFUL) {
+      throw new NoSuchElementException("No value present; the pump was " + this);
+    }
+    return this.value;
+  }
+
+  /**
+   * Get the output of the pump without boxing it, or another value if it was not successful.
+   *
+   * @param other The value to return if the pump was not {@link #isSuccessful() successful}.
+   * @return The output of the pump, or {@code other}.
+   */
+  @Pure
+  public long orElse(long other) {
+    return this.status == SUCCESSFUL ? this.value : other;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  @Pure
+  public boolean isSuccessful() {
+    return this.status == SUCCESSFUL;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * This boxes the output; use {@link #getAsLong()} or {@link #orElse(long)} to avoid it.
+   */
+  @Override
+  @SideEffectFree
+  public @NonNull Optional<@NonNull Long> asOptional() {
+    return this.status == SUCCESSFUL ? Optional.of(this.value) : Optional.empty();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    LongPipeResult that = (LongPipeResult) o;
+    return this.status == that.status
+        && this.value == that.value
+        && this.pipeName.equals(that.pipeName)
+        && Objects.equals(this.throwable, that.throwable);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int hashCode() {
+    return Objects.hash(this.status, this.value, this.pipeName, this.throwable);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    return "LongPipeResult{" +
+        "status=" + this.status +
+        ", value=" + this.value +
+        ", pipeName='" + this.pipeName + '\'' +
+        ", throwable=" + this.throwable +
+        '}';
+  }
+}
@@ -0,0 +1,226 @@
+package com.proximyst.sewer.primitive;
+
+import com.proximyst.sewer.ImmediateModule;
+import com.proximyst.sewer.Module;
+import com.proximyst.sewer.piping.FilteredResult;
+import com.proximyst.sewer.piping.PipeResult;
+import com.proximyst.sewer.piping.SuccessfulResult;
+import com.proximyst.sewer.piping.ThrowingResult;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.checkerframework.common.returnsreceiver.qual.This;
+import org.checkerframework.common.value.qual.MinLen;
+
+/**
+ * A system of pipes pumping a primitive {@code long} through {@link LongModule}s.
+ * <p>
+ * This is the primitive counterpart of a {@link com.proximyst.sewer.SewerSystem SewerSystem} of {@link Long}s. Every
+ * pipe consists of a single module, and pumps run as plain method calls on the calling thread: the value is never boxed
+ * between modules, and the only allocation per pump is the final {@link LongPipeResult}, if any.
+ *
+ * @since 0.8.0
+ */
+public final class LongSewerSystem {
+  /**
+   * The names of the pipes in this system.
+   */
+  private final @NonNull @MinLen(1) String @NonNull [] names;
+
+  /**
+   * The modules of the pipes in this system, in the same order as {@link #names}.
+   */
+  private final @NonNull @MinLen(1) LongModule @NonNull [] modules;
+
+  /**
+   * The filtered result of every pipe, in the same order as {@link #names}.
+   * <p>
+   * Filtered results hold no value, so they are shared between every pump.
+   */
+  private final @NonNull @MinLen(1) LongPipeResult @NonNull [] filtered;
+
+  private LongSewerSystem(@NonNull String @NonNull [] names, @NonNull LongModule @NonNull [] modules) {
+    this.names = names;
+    this.modules = modules;
+    this.filtered = new LongPipeResult[names.length];
+    for (int i = 0; i < names.length; ++i) {
+      this.filtered[i] = LongPipeResult.filtered(names[i]);
+    }
+  }
+
+  /**
+   * Create a new builder to build an instance of {@link LongSewerSystem}.
+   *
+   * @param pipeName The name of the first pipe to add to the system.
+   * @param module   The single module the first pipe of the system shall consist of.
+   * @return A new {@link Builder} to create a new {@link LongSewerSystem}.
+   */
+  public static @NonNull Builder builder(@NonNull @MinLen(1) String pipeName, @NonNull LongModule module) {
+    return new Builder(pipeName, module);
+  }
+
+  /**
+   * Pump a {@code long} through this system's pipes, returning the result directly.
+   *
+   * @param input The input to flow through this system.
+   * @return The result of the pump, naming the pipe which stopped or finished it.
+   */
+  public @NonNull LongPipeResult pumpSync(long input) {
+    long value = input;
+    for (int i = 0; i < this.modules.length; ++i) {
+      final LongModule module = this.modules[i];
+      try {
+        if (!module.accepts(value)) {
+          return this.filtered[i];
+        }
+        value = module.flow(value);
+      } catch (Throwable throwable) {
+        return LongPipeResult.throwing(this.names[i], throwable);
+      }
+    }
+
+    return LongPipeResult.successful(this.names[this.names.length - 1], value);
+  }
+
+  /**
+   * Pump a {@code long} through this system's pipes.
+   * <p>
+   * The pump runs on the calling thread, so this always returns a {@link CompletableFuture#completedFuture completed
+   * future}.
+   *
+   * @param input The input to flow through this system.
+   * @return A completed future of the result of the pump.
+   * @see #pumpSync(long)
+   */
+  public @NonNull CompletableFuture<@NonNull LongPipeResult> pump(long input) {
+    return CompletableFuture.completedFuture(this.pumpSync(input));
+  }
+
+  /**
+   * Pump every {@code long} of an array through this system's pipes, writing the outputs into another array.
+   * <p>
+   * Inputs which are filtered out or throw leave their output untouched. If {@code outputs} is the same array as
+   * {@code inputs}, use {@link #pumpAll(long[], long[], int[])} to tell outputs apart from such inputs.
+   *
+   * @param inputs  The inputs to flow through this system.
+   * @param outputs The array to write the output of every successful input to, at the index of the input. This may be
+   *                the same array as {@code inputs}.
+   * @return The amount of inputs which were successful.
+   * @throws IllegalArgumentException If {@code outputs} is shorter than {@code inputs}.
+   */
+  public int pumpAll(long @NonNull [] inputs, long @NonNull [] outputs) {
+    return this.pumpAll(inputs, outputs, null);
+  }
+
+  /**
+   * Pump every {@code long} of an array through this system's pipes, writing the outputs and the status of every input
+   * into other arrays.
+   * <p>
+   * Inputs which are filtered out or throw leave their output untouched, so their status tells whether an output was
+   * written.
+   *
+   * @param inputs   The inputs to flow through this system.
+   * @param outputs  The array to write the output of every successful input to, at the index of the input. This may be
+   *                 the same array as {@code inputs}.
+   * @param statuses The array to write the {@link LongPipeResult#getStatus() status} of every input to, at the index
+   *                 of the input, or {@code null} to only count the successful inputs.
+   * @return The amount of inputs which were successful.
+   * @throws IllegalArgumentException If {@code outputs} or {@code statuses} is shorter than {@code inputs}.
+   */
+  public int pumpAll(long @NonNull [] inputs, long @NonNull [] outputs, int @Nullable [] statuses) {
+    if (outputs.length < inputs.length) {
+      throw new IllegalArgumentException("outputs has " + outputs.length + " slots for " + inputs.length + " inputs");
+    }
+    if (statuses != null && statuses.length < inputs.length) {
+      throw new IllegalArgumentException("statuses has " + statuses.length + " slots for " + inputs.length + " inputs");
+    }
+
+    int successful = 0;
+    for (int i = 0; i < inputs.length; ++i) {
+      long value = inputs[i];
+      int status = LongPipeResult.SUCCESSFUL;
+      for (LongModule module : this.modules) {
+        try {
+          if (!module.accepts(value)) {
+            status = LongPipeResult.FILTERED;
+            break;
+          }
+          value = module.flow(value);
+        } catch (Throwable throwable) {
+          status = LongPipeResult.THROWING;
+          break;
+        }
+      }
+
+      if (statuses != null) {
+        statuses[i] = status;
+      }
+      if (status == LongPipeResult.SUCCESSFUL) {
+        outputs[i] = value;
+        ++successful;
+      }
+    }
+    return successful;
+  }
+
+  /**
+   * Create a {@link Module} pumping its input through this system, to use this as a pipe of a boxed system.
+   * <p>
+   * The input is unboxed once, and the output is boxed once.
+   *
+   * @return A new {@link ImmediateModule} pumping through this system.
+   */
+  public @NonNull ImmediateModule<@NonNull Long, @NonNull Long> asModule() {
+    return in -> {
+      final LongPipeResult result = this.pumpSync(in);
+      switch (result.getStatus()) {
+        case LongPipeResult.SUCCESSFUL:
+          return new SuccessfulResult<>(result.getAsLong());
+        case LongPipeResult.FILTERED:
+          return new FilteredResult<>();
+        default:
+          final Throwable throwable = result.getThrowable();
+          return new ThrowingResult<>(throwable == null ? new IllegalStateException(result.toString()) : throwable);
+      }
+    };
+  }
+
+  /**
+   * A builder to create a new {@link LongSewerSystem}.
+   */
+  public static final class Builder {
+    private final @NonNull List<@NonNull String> names = new ArrayList<>();
+    private final @NonNull List<@NonNull LongModule> modules = new ArrayList<>();
+
+    private Builder(@NonNull String pipeName, @NonNull LongModule module) {
+      this.module(pipeName, module);
+    }
+
+    /**
+     * Add a pipe consisting of a single module to the system.
+     *
+     * @param name   The name of the new pipe to add.
+     * @param module The single module the pipe shall consist of.
+     * @return This builder for chaining.
+     */
+    public @NonNull @This Builder module(@NonNull @MinLen(1) String name, @NonNull LongModule module) {
+      this.names.add(name);
+      this.modules.add(module);
+      return this;
+    }
+
+    /**
+     * Build a new {@link LongSewerSystem}.
+     *
+     * @return A new {@link LongSewerSystem} with the pipes of this builder.
+     */
+    public @NonNull LongSewerSystem build() {
+      return new LongSewerSystem(
+          this.names.toArray(new String[0]),
+          this.modules.toArray(new LongModule[0])
+      );
+    }
+  }
+}
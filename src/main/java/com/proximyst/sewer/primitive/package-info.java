@@ -0,0 +1,10 @@
+/**
+ * Primitive-specialized pipeline types.
+ * <p>
+ * This defines the {@link com.proximyst.sewer.primitive.LongSewerSystem LongSewerSystem}, which pumps {@code long}s
+ * through {@link com.proximyst.sewer.primitive.LongModule LongModule}s without boxing them or allocating a result per
+ * module.
+ *
+ * @since 0.8.0
+ */
+package com.proximyst.sewer.primitive;
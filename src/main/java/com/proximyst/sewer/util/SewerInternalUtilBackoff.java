@@ -0,0 +1,33 @@
+package com.proximyst.sewer.util;
+
+/**
+ * An internal class for sewer to compute exponential backoffs.
+ *
+ * @since 0.8.0
+ * @deprecated This is an internal class and should not be used.
+ */
+@SuppressWarnings("DeprecatedIsStillUsed") // Only deprecated to warn users.
+@Deprecated
+public final class SewerInternalUtilBackoff {
+  private SewerInternalUtilBackoff() throws IllegalAccessException {
+    throw new IllegalAccessException(getClass().getSimpleName() + " cannot be instantiated.");
+  }
+
+  /**
+   * Get the backoff before a retry, doubling from the initial backoff for every retry up to the maximum backoff.
+   * <p>
+   * Retries past the point where doubling would overflow get the maximum backoff, rather than shifting into the sign
+   * bit.
+   *
+   * @param initialNanos The backoff before the first retry, in nanoseconds, which must be positive.
+   * @param maxNanos     The maximum backoff before any retry, in nanoseconds.
+   * @param retry        The retry, starting at {@code 0} for the first.
+   * @return The backoff before the retry, in nanoseconds.
+   */
+  public static long exponential(long initialNanos, long maxNanos, int retry) {
+    if (retry >= Long.numberOfLeadingZeros(initialNanos) - 1) {
+      return maxNanos;
+    }
+    return Math.min(maxNanos, initialNanos << retry);
+  }
+}
@@ -0,0 +1,284 @@
+package com.proximyst.sewer.util;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * An internal class for sewer to run delayed tasks on a single shared hashed-wheel timer.
+ * <p>
+ * Scheduling a task costs an allocation and an enqueue onto a lock-free queue, and cancelling it a compare-and-set, so
+ * timeouts which almost never fire are cheap to arm and disarm by the million. The timer thread wakes up every {@link
+ * #TICK_NANOS tick}, moves newly scheduled tasks into the bucket of the wheel they expire in, and runs the expired
+ * tasks of the current bucket. Tasks therefore run up to a tick late.
+ * <p>
+ * Tasks run on the timer thread itself, and must therefore be short and never block.
+ *
+ * @since 0.8.0
+ * @deprecated This is an internal class and should not be used.
+ */
+@SuppressWarnings("DeprecatedIsStillUsed") // Only deprecated to warn users.
+@Deprecated
+public final class SewerInternalUtilTimer {
+  /**
+   * The duration of a tick of the wheel, in nanoseconds.
+   */
+  static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(1L);
+
+  /**
+   * The amount of buckets in the wheel. This must be a power of two.
+   */
+  static final int WHEEL_SIZE = 512;
+
+  /**
+   * The maximum amount of newly scheduled tasks moved into the wheel per tick, such that a flood of scheduling cannot
+   * starve expiry.
+   */
+  private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+  private SewerInternalUtilTimer() throws IllegalAccessException {
+    throw new IllegalAccessException(getClass().getSimpleName() + " cannot be instantiated.");
+  }
+
+  /**
+   * Schedule a task to run once after a delay.
+   *
+   * @param task  The task to run.
+   * @param delay The delay before running the task.
+   * @param unit  The unit of the delay.
+   * @return A handle of the scheduled task, which may be used to cancel it.
+   */
+  public static @NonNull Timeout schedule(@NonNull Runnable task, long delay, @NonNull TimeUnit unit) {
+    return Holder.INSTANCE.schedule(task, unit.toNanos(delay));
+  }
+
+  /**
+   * A task scheduled on the timer.
+   */
+  public static final class Timeout {
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private static final @NonNull AtomicIntegerFieldUpdater<Timeout> STATE =
+        AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+    /**
+     * The task to run, or {@code null} once cancelled.
+     * <p>
+     * A cancelled task stays in its bucket until the timer next visits it, up to a full turn of the wheel later, so
+     * this is cleared on cancellation to not keep whatever the task captures reachable until then. It is only read
+     * after winning the transition to {@link #EXPIRED}, which a cancellation having cleared it never does.
+     */
+    private @Nullable Runnable task;
+
+    /**
+     * The time the task expires at, relative to the start of the {@link Wheel}.
+     */
+    private final long deadline;
+
+    private volatile int state = PENDING;
+
+    /**
+     * The amount of full turns of the wheel left before the task expires. This is only used by the timer thread.
+     */
+    private long remainingRounds;
+
+    /**
+     * The neighbours of the task in its bucket. These are only used by the timer thread.
+     */
+    private @Nullable Timeout previous;
+    private @Nullable Timeout next;
+
+    private Timeout(@NonNull Runnable task, long deadline) {
+      this.task = task;
+      this.deadline = deadline;
+    }
+
+    /**
+     * Cancel the task, unless it has already run.
+     *
+     * @return Whether the task was cancelled by this call.
+     */
+    public boolean cancel() {
+      if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+        return false;
+      }
+
+      this.task = null;
+      return true;
+    }
+
+    /**
+     * @return Whether the task was cancelled before it ran.
+     */
+    public boolean isCancelled() {
+      return this.state == CANCELLED;
+    }
+
+    /**
+     * @return Whether the task has run, or is running.
+     */
+    public boolean isExpired() {
+      return this.state == EXPIRED;
+    }
+
+    /**
+     * Run the task, unless it was cancelled.
+     */
+    private void expire() {
+      if (!STATE.compareAndSet(this, PENDING, EXPIRED)) {
+        return;
+      }
+
+      final Runnable task = this.task;
+      this.task = null;
+      try {
+        if (task != null) {
+          task.run();
+        }
+      } catch (Throwable ignored) {
+        // The timer thread must survive any task.
+      }
+    }
+  }
+
+  /**
+   * The wheel of buckets, and the thread turning it.
+   */
+  private static final class Wheel implements Runnable {
+    private final long startTime = System.nanoTime();
+
+    /**
+     * Newly scheduled tasks, waiting to be moved into their bucket by the timer thread.
+     */
+    private final @NonNull ConcurrentLinkedQueue<@NonNull Timeout> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The first and last task of every bucket. These are only used by the timer thread.
+     */
+    private final @Nullable Timeout @NonNull [] heads = new Timeout[WHEEL_SIZE];
+    private final @Nullable Timeout @NonNull [] tails = new Timeout[WHEEL_SIZE];
+
+    /**
+     * The tick the timer thread is at. This is only used by the timer thread.
+     */
+    private long tick;
+
+    @NonNull Timeout schedule(@NonNull Runnable task, long delayNanos) {
+      final long now = System.nanoTime() - this.startTime;
+      // Guard against overflow for delays far in the future.
+      final long deadline = delayNanos > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + Math.max(0L, delayNanos);
+      final Timeout timeout = new Timeout(task, deadline);
+      this.pending.add(timeout);
+      return timeout;
+    }
+
+    @Override
+    public void run() {
+      for (; ; ) {
+        this.waitForNextTick();
+        this.transferPending();
+        this.expireBucket((int) (this.tick & (WHEEL_SIZE - 1)));
+        ++this.tick;
+      }
+    }
+
+    /**
+     * Sleep until the current tick has passed.
+     */
+    private void waitForNextTick() {
+      final long tickEnd = (this.tick + 1) * TICK_NANOS;
+      for (; ; ) {
+        final long sleep = tickEnd - (System.nanoTime() - this.startTime);
+        if (sleep <= 0L) {
+          return;
+        }
+        LockSupport.parkNanos(this, sleep);
+      }
+    }
+
+    /**
+     * Move newly scheduled tasks into the bucket they expire in.
+     */
+    private void transferPending() {
+      for (int i = 0; i < MAX_TRANSFERS_PER_TICK; ++i) {
+        final Timeout timeout = this.pending.poll();
+        if (timeout == null) {
+          return;
+        }
+        if (timeout.isCancelled()) {
+          continue;
+        }
+
+        // Tasks whose deadline has passed go into the current bucket, and expire this tick.
+        final long expiryTick = Math.max(timeout.deadline / TICK_NANOS, this.tick);
+        timeout.remainingRounds = (expiryTick - this.tick) / WHEEL_SIZE;
+        this.append((int) (expiryTick & (WHEEL_SIZE - 1)), timeout);
+      }
+    }
+
+    /**
+     * Run every task of a bucket which expires on this turn of the wheel, and drop cancelled tasks.
+     *
+     * @param bucket The index of the bucket.
+     */
+    private void expireBucket(int bucket) {
+      Timeout timeout = this.heads[bucket];
+      while (timeout != null) {
+        final Timeout next = timeout.next;
+        if (timeout.isCancelled()) {
+          this.remove(bucket, timeout);
+        } else if (timeout.remainingRounds <= 0L) {
+          this.remove(bucket, timeout);
+          timeout.expire();
+        } else {
+          --timeout.remainingRounds;
+        }
+        timeout = next;
+      }
+    }
+
+    private void append(int bucket, @NonNull Timeout timeout) {
+      final Timeout tail = this.tails[bucket];
+      timeout.previous = tail;
+      if (tail == null) {
+        this.heads[bucket] = timeout;
+      } else {
+        tail.next = timeout;
+      }
+      this.tails[bucket] = timeout;
+    }
+
+    private void remove(int bucket, @NonNull Timeout timeout) {
+      if (timeout.previous == null) {
+        this.heads[bucket] = timeout.next;
+      } else {
+        timeout.previous.next = timeout.next;
+      }
+      if (timeout.next == null) {
+        this.tails[bucket] = timeout.previous;
+      } else {
+        timeout.next.previous = timeout.previous;
+      }
+      timeout.previous = null;
+      timeout.next = null;
+    }
+  }
+
+  /**
+   * Lazily creates and starts the timer on first use.
+   */
+  private static final class Holder {
+    private static final Wheel INSTANCE = new Wheel();
+
+    static {
+      final Thread thread = new Thread(INSTANCE, "sewer-timer");
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+}
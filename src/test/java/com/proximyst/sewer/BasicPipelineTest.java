@@ -1,11 +1,29 @@
 package com.proximyst.sewer;
 
+import com.proximyst.sewer.metrics.PipeMetrics;
+import com.proximyst.sewer.metrics.SewerMetrics;
 import com.proximyst.sewer.piping.NamedPipeResult;
 import com.proximyst.sewer.piping.PipeResult;
+import com.proximyst.sewer.piping.RejectedResult;
 import com.proximyst.sewer.piping.SuccessfulResult;
+import com.proximyst.sewer.piping.ThrowingResult;
+import com.proximyst.sewer.primitive.LongModule;
+import com.proximyst.sewer.primitive.LongPipeResult;
+import com.proximyst.sewer.primitive.LongSewerSystem;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.junit.Assert;
 import org.junit.Test;
@@ -26,6 +44,38 @@ public class BasicPipelineTest {
     Assert.assertFalse(pipeline.pump(5_000L).join().asOptional().isPresent());
   }
 
+  @Test
+  public void longMaths() {
+    LongSewerSystem pipeline = LongSewerSystem
+        .builder("multiply", in -> in * 7)
+        .module("max amount", LongModule.filtering(in -> in < 10_000L))
+        .module("divide", in -> 3 / (in % 3))
+        .build();
+    Assert.assertEquals(pipeline.pumpSync(124L).getAsLong(), 3L);
+    Assert.assertTrue(pipeline.pumpSync(124L).isSuccessful());
+    Assert.assertEquals(pipeline.pumpSync(5_000L).getStatus(), LongPipeResult.FILTERED);
+    Assert.assertEquals(pipeline.pumpSync(5_000L).getPipeName(), "max amount");
+    Assert.assertFalse(pipeline.pumpSync(5_000L).asOptional().isPresent());
+    Assert.assertEquals(pipeline.pumpSync(123L).getStatus(), LongPipeResult.THROWING);
+    Assert.assertTrue(pipeline.pumpSync(123L).getThrowable() instanceof ArithmeticException);
+
+    long[] values = {124L, 5_000L, 123L, 1L};
+    Assert.assertEquals(pipeline.pumpAll(values, values), 2);
+    Assert.assertArrayEquals(values, new long[]{3L, 5_000L, 123L, 3L});
+
+    // Statuses tell outputs apart from the inputs left in place.
+    values = new long[]{124L, 5_000L, 123L, 1L};
+    int[] statuses = new int[values.length];
+    Assert.assertEquals(pipeline.pumpAll(values, values, statuses), 2);
+    Assert.assertArrayEquals(statuses, new int[]{
+        LongPipeResult.SUCCESSFUL, LongPipeResult.FILTERED, LongPipeResult.THROWING, LongPipeResult.SUCCESSFUL
+    });
+
+    SewerSystem<Long, Long> boxed = SewerSystem.builder("long system", pipeline.asModule()).build();
+    Assert.assertEquals(boxed.pumpSync(124L).asOptional().get(), Long.valueOf(3L));
+    Assert.assertFalse(boxed.pumpSync(5_000L).mayContinue());
+  }
+
   @Test
   public void sleeping() {
     Executor executor = Executors.newSingleThreadExecutor();
@@ -46,4 +96,748 @@ public class BasicPipelineTest {
     Assert.assertEquals(future.join().asOptional().get(), Long.valueOf(123L));
     Assert.assertTrue(future.isDone()); // Post-join
   }
+
+  @Test
+  public void synchronousPump() {
+    SewerSystem<Long, Long> pipeline = SewerSystem
+        .<Long, Long>builder("multiply", Module.immediatelyWrapping(in -> in * 7))
+        .module("max amount", Module.filtering(in -> in < 10_000L))
+        .module("modulo", Module.immediatelyWrapping(in -> in % 3))
+        .build();
+    Assert.assertTrue(pipeline.pump(123L).isDone());
+    Assert.assertEquals(pipeline.pumpSync(123L).asOptional().get(), Long.valueOf(0L));
+    Assert.assertEquals(pipeline.pumpSync(5_000L).getPipeName(), "max amount");
+    Assert.assertEquals(pipeline.pumpSync(246L), pipeline.pump(246L).join());
+  }
+
+  @Test
+  public void synchronousPumpFallsBack() {
+    Executor executor = Executors.newSingleThreadExecutor();
+    SewerSystem<Long, Long> pipeline = SewerSystem
+        .<Long, Long>builder("multiply", Module.immediatelyWrapping(in -> in * 7))
+        .module("async identity", in -> CompletableFuture.supplyAsync(() -> new SuccessfulResult<>(in), executor))
+        .module("divide", Module.immediatelyWrapping(in -> 7 / in))
+        .build();
+    Assert.assertEquals(pipeline.pumpSync(1L).asOptional().get(), Long.valueOf(1L));
+    NamedPipeResult<Long, ? extends PipeResult<Long>> result = pipeline.pumpSync(0L);
+    Assert.assertEquals(result.getPipeName(), "divide");
+    Assert.assertTrue(result.getResult() instanceof ThrowingResult);
+  }
+
+  @Test
+  public void pipeExecutor() {
+    Executor executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "parse thread"));
+    SewerSystem<String, String> pipeline = SewerSystem
+        .<String, Integer>builder("parse", Module.immediatelyWrapping(Integer::parseInt))
+        .pipe(SewerPipe
+            .<Integer, String>builder("thread name", Module.immediatelyWrapping(in -> Thread.currentThread().getName()))
+            .executor(executor)
+            .build())
+        .module("same thread", Module.immediatelyWrapping(in -> in + " & " + Thread.currentThread().getName()))
+        .build();
+    Assert.assertEquals(pipeline.pumpSync("1").asOptional().get(), "parse thread & parse thread");
+  }
+
+  @Test
+  public void pipeExecutorAfterAsyncModule() {
+    Executor io = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "io thread"));
+    Executor parse = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "parse thread"));
+    Module<String, String> read = in -> CompletableFuture.supplyAsync(() -> {
+      try {
+        Thread.sleep(10L);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      return new SuccessfulResult<>(in);
+    }, io);
+    Module<String, String> threadName = Module.immediatelyWrapping(in -> in + Thread.currentThread().getName());
+
+    // Pipes bound to an executor run on it, even after a module completed on another thread.
+    SewerSystem<String, String> pipeline = SewerSystem
+        .builder(SewerPipe.<String, String>builder("read", read).executor(parse).build())
+        .pipe(SewerPipe.<String, String>builder("parse", threadName).executor(parse).build())
+        .build();
+    Assert.assertEquals(pipeline.pump("").join().asOptional().get(), "parse thread");
+    Assert.assertEquals(pipeline.pumpAll(Arrays.asList("")).join().get(0).asOptional().get(), "parse thread");
+
+    // So do later modules within the same pipe.
+    SewerSystem<String, String> modules = SewerSystem
+        .builder(SewerPipe.<String, String>builder("read", read).pipe(threadName).executor(parse).build())
+        .build();
+    Assert.assertEquals(modules.pump("").join().asOptional().get(), "parse thread");
+    Assert.assertEquals(modules.pumpAll(Arrays.asList("")).join().get(0).asOptional().get(), "parse thread");
+  }
+
+  @Test
+  public void throwingPipeExecutor() {
+    SewerPipe<Long, Long> throwing = SewerPipe
+        .<Long, Long>builder("identity", Module.immediatelyWrapping(in -> in))
+        .executor(runnable -> {
+          throw new IllegalStateException("executor is shut down");
+        })
+        .build();
+    SewerSystem<Long, Long> first = SewerSystem.builder(throwing).build();
+    SewerSystem<Long, Long> later = SewerSystem
+        .<Long, Long>builder("multiply", Module.immediatelyWrapping(in -> in * 7))
+        .pipe(throwing)
+        .build();
+
+    // An executor failing with anything, not only a rejection, fails the pipe rather than the caller.
+    for (NamedPipeResult<Long, ? extends PipeResult<Long>> result : Arrays.asList(
+        throwing.flow(1L).join(),
+        first.pump(1L).join(),
+        first.pumpSync(1L),
+        later.pump(1L).join(),
+        later.pumpSync(1L)
+    )) {
+      Assert.assertEquals(result.getPipeName(), "identity");
+      Assert.assertTrue(result.getResult() instanceof ThrowingResult);
+      Assert.assertTrue(((ThrowingResult<Long>) result.getResult()).getThrowable() instanceof IllegalStateException);
+    }
+  }
+
+  @Test
+  public void blockingModule() {
+    Executor executor = Executors.newCachedThreadPool(runnable -> new Thread(runnable, "blocking thread"));
+    SewerSystem<Long, String> pipeline = SewerSystem
+        .<Long, Long>builder("sleep", Module.blocking(in -> {
+          Thread.sleep(in);
+          return in;
+        }))
+        .module("thread name", Module.immediatelyWrapping(in -> Thread.currentThread().getName()))
+        .blockingExecutor(executor)
+        .build();
+    CompletableFuture<@NonNull NamedPipeResult<String, ? extends PipeResult<String>>> future = pipeline.pump(100L);
+    Assert.assertFalse(future.isDone());
+    Assert.assertEquals(future.join().asOptional().get(), "blocking thread");
+  }
+
+  @Test
+  public void metrics() {
+    SewerMetrics metrics = new SewerMetrics();
+    SewerSystem<Long, Long> pipeline = SewerSystem
+        .<Long, Long>builder("multiply", Module.immediatelyWrapping(in -> in * 7))
+        .module("max amount", Module.filtering(in -> in < 10_000L))
+        .module("divide", Module.immediatelyWrapping(in -> 7 / in))
+        .metrics(metrics)
+        .build();
+    pipeline.pumpSync(1L);
+    pipeline.pumpSync(0L);
+    pipeline.pumpSync(5_000L);
+
+    Map<String, PipeMetrics.Snapshot> snapshot = metrics.snapshot();
+    Assert.assertEquals(snapshot.get("multiply").getInvocations(), 3L);
+    Assert.assertEquals(snapshot.get("max amount").getFiltered(), 1L);
+    Assert.assertEquals(snapshot.get("divide").getInvocations(), 2L);
+    Assert.assertEquals(snapshot.get("divide").getSuccessful(), 1L);
+    Assert.assertEquals(snapshot.get("divide").getThrowing(), 1L);
+  }
+
+  @Test
+  public void listener() {
+    List<String> events = new ArrayList<>();
+    SewerSystem<Long, Long> pipeline = SewerSystem
+        .<Long, Long>builder("multiply", Module.immediatelyWrapping(in -> in * 7))
+        .module("max amount", Module.filtering(in -> in < 10_000L))
+        .listener(new PipelineListener() {
+          @Override
+          public Object onPumpStart(Object input) {
+            return "pump " + input;
+          }
+
+          @Override
+          public void onPipeEnd(Object token, String pipeName, NamedPipeResult<?, ?> result, long nanos) {
+            events.add(token + ": " + pipeName);
+          }
+
+          @Override
+          public void onPumpEnd(Object token, NamedPipeResult<?, ?> result, long nanos) {
+            events.add(token + ": " + (result.mayContinue() ? "done" : "stopped"));
+          }
+        })
+        .build();
+    pipeline.pumpSync(1L);
+    pipeline.pumpSync(5_000L);
+    Assert.assertEquals(events, Arrays.asList(
+        "pump 1: multiply", "pump 1: max amount", "pump 1: done",
+        "pump 5000: multiply", "pump 5000: max amount", "pump 5000: stopped"
+    ));
+  }
+
+  @Test
+  public void listenerTimeout() throws Exception {
+    List<String> events = new CopyOnWriteArrayList<>();
+    CompletableFuture<PipeResult<Long>> stubborn = new CompletableFuture<PipeResult<Long>>() {
+      @Override
+      public boolean cancel(boolean mayInterruptIfRunning) {
+        return false;
+      }
+    };
+    SewerSystem<Long, Long> pipeline = SewerSystem
+        .<Long, Long>builder("stubborn", in -> stubborn)
+        .timeout(Duration.ofMillis(20))
+        .listener(new PipelineListener() {
+          @Override
+          public void onModuleEnd(Object token, String pipeName, int moduleIndex, PipeResult<?> result, long nanos) {
+            events.add("module " + pipeName);
+          }
+
+          @Override
+          public void onPumpEnd(Object token, NamedPipeResult<?, ?> result, long nanos) {
+            events.add("pump");
+          }
+        })
+        .build();
+    Assert.assertFalse(pipeline.pump(1L).get(1L, TimeUnit.SECONDS).isSuccessful());
+
+    // The module ending after the pump timed out is not reported any more.
+    stubborn.complete(new SuccessfulResult<>(2L));
+    Assert.assertEquals(events, Arrays.asList("pump"));
+  }
+
+  @Test
+  public void fanOut() {
+    CompletableFuture<PipeResult<Long>> slow = new CompletableFuture<>();
+    Module<Long, Long> failing = Module.immediately(in -> {
+      throw new IllegalStateException("branch");
+    });
+    Module<Long, Long> doubling = Module.immediatelyWrapping(in -> in * 2);
+
+    SewerSystem<Long, List<Long>> all = SewerSystem
+        .builder("all", Module.parallel(doubling, Module.immediatelyWrapping(in -> in + 1)))
+        .build();
+    Assert.assertEquals(all.pumpSync(3L).asOptional().get(), Arrays.asList(6L, 4L));
+
+    SewerSystem<Long, Long> first = SewerSystem
+        .builder("first", Module.fanOut(FanOutJoin.<Long>firstSuccess(), in -> slow, failing, doubling))
+        .build();
+    Assert.assertEquals(first.pump(3L).join().asOptional().get(), Long.valueOf(6L));
+
+    SewerSystem<Long, List<Long>> quorum = SewerSystem
+        .builder("quorum", Module.fanOut(FanOutJoin.<Long>quorum(2), failing, in -> slow, doubling))
+        .build();
+    CompletableFuture<NamedPipeResult<List<Long>, ? extends PipeResult<List<Long>>>> waiting = quorum.pump(3L);
+    Assert.assertFalse(waiting.isDone());
+    slow.complete(new SuccessfulResult<>(1L));
+    Assert.assertEquals(waiting.join().asOptional().get(), Arrays.asList(1L, 6L));
+
+    PipeResult<?> failed = SewerSystem
+        .builder("failing", Module.parallel(doubling, failing))
+        .build()
+        .pumpSync(3L)
+        .getResult();
+    Assert.assertTrue(failed instanceof ThrowingResult);
+    FanOutException exception = (FanOutException) ((ThrowingResult<?>) failed).getThrowable();
+    Assert.assertTrue(exception.getBranchResults().get(0).isSuccessful());
+    Assert.assertTrue(exception.getBranchResults().get(1) instanceof ThrowingResult);
+    Assert.assertEquals(exception.getSuppressed().length, 1);
+
+    SewerSystem<Long, Integer> combined = SewerSystem
+        .builder("combined", Module.fanOut(FanOutJoin.<Long, Integer>combining(results -> {
+          int succeeded = 0;
+          for (PipeResult<Long> result : results) {
+            succeeded += result.isSuccessful() ? 1 : 0;
+          }
+          return new SuccessfulResult<>(succeeded);
+        }), doubling, failing, doubling))
+        .build();
+    Assert.assertEquals(combined.pumpSync(3L).asOptional().get(), Integer.valueOf(2));
+  }
+
+  @Test
+  public void routing() {
+    SewerSystem<Long, String> pipeline = SewerSystem
+        .<Long, Long>builder("identity", Module.immediatelyWrapping(in -> in))
+        .route("by remainder", RoutingModule.<Long, Long, String>byKey(in -> in % 3)
+            .route(0L, SewerSystem.builder("zero", Module.immediatelyWrapping((Long in) -> "zero " + in)).build())
+            .route(1L, SewerPipe.builder("one", Module.immediatelyWrapping((Long in) -> "one " + in)).build())
+            .when(
+                in -> in > 100L,
+                SewerPipe.builder("big", Module.immediatelyWrapping((Long in) -> "big " + in)).build()
+            )
+            .build())
+        .build();
+    Assert.assertEquals(pipeline.pumpSync(6L).asOptional().get(), "zero 6");
+    Assert.assertEquals(pipeline.pumpSync(7L).asOptional().get(), "one 7");
+    Assert.assertEquals(pipeline.pumpSync(101L).asOptional().get(), "big 101");
+    Assert.assertFalse(pipeline.pumpSync(5L).mayContinue());
+
+    NamedPipeResult<String, ? extends PipeResult<String>> result = pipeline.pumpSync(7L);
+    Assert.assertEquals(result.getPipeName(), "by remainder");
+    Assert.assertEquals(((NamedPipeResult<?, ?>) result.getResult()).getPipeName(), "one");
+
+    SewerPipe<TimeUnit, Long> seconds = SewerPipe.builder("seconds", Module.immediatelyWrapping((TimeUnit in) -> 1L))
+        .build();
+    SewerPipe<TimeUnit, Long> other = SewerPipe
+        .builder("other", Module.immediatelyWrapping((TimeUnit in) -> in.toSeconds(60L)))
+        .build();
+    SewerSystem<TimeUnit, Long> enumRouted = SewerSystem
+        .builder("unit", RoutingModule.<TimeUnit, TimeUnit, Long>byKey(Function.identity())
+            .route(TimeUnit.SECONDS, seconds)
+            .otherwise(other)
+            .build())
+        .build();
+    Assert.assertEquals(enumRouted.pumpSync(TimeUnit.SECONDS).asOptional().get(), Long.valueOf(1L));
+    Assert.assertEquals(enumRouted.pumpSync(TimeUnit.MINUTES).asOptional().get(), Long.valueOf(3600L));
+
+    // Cancelling the pump reaches the modules of routed pipes and the pumps of routed systems.
+    List<CancellationToken> tokens = new ArrayList<>();
+    CompletableFuture<PipeResult<String>> hanging = new CompletableFuture<>();
+    CompletableFuture<PipeResult<String>> nested = new CompletableFuture<>();
+    SewerSystem<Long, String> cancellable = SewerSystem
+        .builder("by parity", RoutingModule.<Long, Long, String>byKey(in -> in % 2)
+            .route(0L, SewerPipe.builder("even", (CancellableModule<Long, String>) (in, token) -> {
+              tokens.add(token);
+              return hanging;
+            }).build())
+            .route(1L, SewerSystem.builder("odd", (Long in) -> nested).build())
+            .build())
+        .build();
+    CompletableFuture<NamedPipeResult<String, ? extends PipeResult<String>>> even = cancellable.pump(2L);
+    Assert.assertFalse(tokens.get(0).isCancelled());
+    Assert.assertTrue(even.cancel(true));
+    Assert.assertTrue(tokens.get(0).isCancelled());
+    Assert.assertTrue(hanging.isCancelled());
+    Assert.assertTrue(cancellable.pump(3L).cancel(true));
+    Assert.assertTrue(nested.isCancelled());
+  }
+
+  @Test
+  public void timeouts() {
+    SewerSystem<Long, Long> pipeTimeout = SewerSystem
+        .builder(SewerPipe
+            .<Long, Long>builder("hanging", in -> new CompletableFuture<>())
+            .timeout(Duration.ofMillis(20))
+            .build())
+        .build();
+    NamedPipeResult<Long, ? extends PipeResult<Long>> result = pipeTimeout.pump(1L).join();
+    Assert.assertEquals(result.getPipeName(), "hanging");
+    Assert.assertTrue(((ThrowingResult<?>) result.getResult()).getThrowable() instanceof PipeTimeoutException);
+
+    SewerSystem<Long, Long> systemTimeout = SewerSystem
+        .<Long, Long>builder("immediate", Module.immediatelyWrapping(in -> in + 1))
+        .<Long>module("hanging", in -> new CompletableFuture<>())
+        .timeout(Duration.ofMillis(20))
+        .build();
+    result = systemTimeout.pump(1L).join();
+    Assert.assertFalse(result.isSuccessful());
+    PipeTimeoutException timeout = (PipeTimeoutException) ((ThrowingResult<?>) result.getResult()).getThrowable();
+    Assert.assertEquals(timeout.getPipeName(), "hanging");
+    Assert.assertEquals(timeout.getTimeout(), Duration.ofMillis(20));
+
+    // Flows completing in time are untouched.
+    CompletableFuture<PipeResult<Long>> late = new CompletableFuture<>();
+    SewerSystem<Long, Long> inTime = SewerSystem
+        .<Long, Long>builder("late", in -> late)
+        .timeout(Duration.ofSeconds(10))
+        .build();
+    CompletableFuture<NamedPipeResult<Long, ? extends PipeResult<Long>>> pending = inTime.pump(1L);
+    late.complete(new SuccessfulResult<>(2L));
+    Assert.assertEquals(pending.join().asOptional().get(), Long.valueOf(2L));
+  }
+
+  @Test
+  public void cancellation() throws Exception {
+    AtomicInteger laterFlows = new AtomicInteger();
+    AtomicInteger callbacks = new AtomicInteger();
+    List<CancellationToken> tokens = new ArrayList<>();
+    CompletableFuture<PipeResult<Long>> hanging = new CompletableFuture<>();
+    SewerSystem<Long, Integer> pipeline = SewerSystem
+        .<Long, Long>builder("immediate", Module.immediatelyWrapping(in -> in + 1))
+        .module("hanging", (CancellableModule<Long, Long>) (in, token) -> {
+          tokens.add(token);
+          token.onCancel(callbacks::incrementAndGet);
+          return hanging;
+        })
+        .module("later", Module.immediatelyWrapping(in -> laterFlows.incrementAndGet()))
+        .build();
+    CompletableFuture<NamedPipeResult<Integer, ? extends PipeResult<Integer>>> pump = pipeline.pump(1L);
+    Assert.assertFalse(tokens.get(0).isCancelled());
+    Assert.assertTrue(pump.cancel(true));
+    Assert.assertTrue(tokens.get(0).isCancelled());
+    Assert.assertTrue(hanging.isCancelled());
+    Assert.assertEquals(callbacks.get(), 1);
+    Assert.assertEquals(laterFlows.get(), 0);
+
+    // Modules ignoring the cancellation do not get their output flowed any further.
+    CompletableFuture<PipeResult<Long>> stubborn = new CompletableFuture<PipeResult<Long>>() {
+      @Override
+      public boolean cancel(boolean mayInterruptIfRunning) {
+        return false;
+      }
+    };
+    SewerSystem<Long, Integer> ignoring = SewerSystem
+        .<Long, Long>builder("stubborn", in -> stubborn)
+        .module("later", Module.immediatelyWrapping(in -> laterFlows.incrementAndGet()))
+        .build();
+    ignoring.pump(1L).cancel(true);
+    stubborn.complete(new SuccessfulResult<>(2L));
+    Assert.assertEquals(laterFlows.get(), 0);
+
+    // Timeouts cancel the module in flight.
+    CompletableFuture<PipeResult<Long>> timingOut = new CompletableFuture<>();
+    SewerSystem<Long, Long> timed = SewerSystem
+        .<Long, Long>builder("timing out", in -> timingOut)
+        .timeout(Duration.ofMillis(20))
+        .build();
+    Assert.assertFalse(timed.pump(1L).join().isSuccessful());
+    try {
+      // The pump is cancelled right after its result is completed.
+      timingOut.get(1L, TimeUnit.SECONDS);
+      Assert.fail("the module should be cancelled");
+    } catch (CancellationException expected) {
+      Assert.assertTrue(timingOut.isCancelled());
+    }
+  }
+
+  @Test
+  public void retrying() {
+    AtomicInteger invocations = new AtomicInteger();
+    RetryPolicy policy = RetryPolicy.builder()
+        .maxAttempts(3)
+        .backoff(Duration.ofMillis(1), Duration.ofMillis(5))
+        .budget(RetryBudget.unlimited())
+        .build();
+    SewerSystem<Integer, Integer> flaky = SewerSystem
+        .builder("flaky", Module.retrying(Module.<Integer, Integer>immediatelyWrapping(in -> {
+          if (invocations.incrementAndGet() < in) {
+            throw new IllegalStateException("flaky");
+          }
+          return invocations.get();
+        }), policy))
+        .build();
+    NamedPipeResult<Integer, ? extends PipeResult<Integer>> result = flaky.pump(3).join();
+    Assert.assertEquals(result.asOptional().get(), Integer.valueOf(3));
+    Assert.assertEquals(result.getAttempts(), 3);
+
+    invocations.set(0);
+    result = flaky.pump(5).join();
+    Assert.assertTrue(result.getResult() instanceof ThrowingResult);
+    Assert.assertEquals(result.getAttempts(), 3);
+
+    // Results which are not retried are returned as they are.
+    invocations.set(0);
+    Assert.assertEquals(flaky.pumpSync(1).getAttempts(), 1);
+
+    // Only the attempts of the module giving the final result are reported.
+    invocations.set(0);
+    SewerSystem<Integer, Integer> followed = SewerSystem
+        .builder("flaky", Module.retrying(Module.<Integer, Integer>immediatelyWrapping(in -> {
+          if (invocations.incrementAndGet() < in) {
+            throw new IllegalStateException("flaky");
+          }
+          return invocations.get();
+        }), policy))
+        .module("identity", Module.immediatelyWrapping(in -> in))
+        .build();
+    result = followed.pump(3).join();
+    Assert.assertEquals(result.asOptional().get(), Integer.valueOf(3));
+    Assert.assertEquals(result.getAttempts(), 1);
+
+    // An exhausted budget stops retries.
+    RetryBudget budget = RetryBudget.ratio(0.0, 1);
+    SewerSystem<Integer, Integer> budgeted = SewerSystem
+        .builder("failing", Module.retrying(Module.<Integer, Integer>immediatelyWrapping(in -> {
+          throw new IllegalStateException("failing");
+        }), RetryPolicy.builder().backoff(Duration.ofMillis(1), Duration.ofMillis(1)).budget(budget).build()))
+        .build();
+    Assert.assertEquals(budgeted.pump(1).join().getAttempts(), 2);
+    Assert.assertEquals(budgeted.pump(1).join().getAttempts(), 1);
+    Assert.assertEquals(budget.getAvailableRetries(), 0L);
+    Assert.assertEquals(budget.getExhaustedRetries(), 2L);
+
+    // Policies without a budget of their own share a single one.
+    Assert.assertSame(RetryPolicy.builder().build().getBudget(), RetryBudget.shared());
+    Assert.assertSame(RetryPolicy.builder().build().getBudget(), RetryPolicy.builder().build().getBudget());
+  }
+
+  @Test
+  public void concurrencyLimit() {
+    SewerMetrics metrics = new SewerMetrics();
+    List<CompletableFuture<PipeResult<Long>>> flows = new ArrayList<>();
+    ConcurrencyLimit limit = ConcurrencyLimit.builder()
+        .limits(2, 1, 2)
+        .maxQueued(1)
+        .build();
+    SewerSystem<Long, Long> limited = SewerSystem
+        .builder(SewerPipe
+            .<Long, Long>builder("limited", in -> {
+              CompletableFuture<PipeResult<Long>> flow = new CompletableFuture<>();
+              flows.add(flow);
+              return flow;
+            })
+            .concurrencyLimit(limit)
+            .build())
+        .metrics(metrics)
+        .build();
+    List<CompletableFuture<NamedPipeResult<Long, ? extends PipeResult<Long>>>> pumps = new ArrayList<>();
+    for (long i = 0; i < 3; ++i) {
+      pumps.add(limited.pump(i));
+    }
+    Assert.assertEquals(flows.size(), 2);
+    Assert.assertEquals(limit.getInFlight(), 2);
+    Assert.assertEquals(limit.getQueued(), 1);
+
+    // Flows over both the limit and the queue are rejected right away.
+    NamedPipeResult<Long, ? extends PipeResult<Long>> rejected = limited.pump(3L).join();
+    Assert.assertEquals(rejected.getPipeName(), "limited");
+    Assert.assertTrue(rejected.getResult() instanceof RejectedResult);
+    Assert.assertEquals(limit.getRejected(), 1L);
+
+    // Returning a permit starts the queued flow.
+    flows.get(0).complete(new SuccessfulResult<>(0L));
+    Assert.assertEquals(flows.size(), 3);
+    Assert.assertEquals(limit.getQueued(), 0);
+    flows.get(1).complete(new SuccessfulResult<>(1L));
+    flows.get(2).complete(new SuccessfulResult<>(2L));
+    for (int i = 0; i < 3; ++i) {
+      Assert.assertEquals(pumps.get(i).join().asOptional().get(), Long.valueOf(i));
+    }
+    Assert.assertEquals(limit.getInFlight(), 0);
+
+    // Rejected flows are counted apart from filtered ones.
+    PipeMetrics.Snapshot snapshot = metrics.snapshot().get("limited");
+    Assert.assertEquals(snapshot.getInvocations(), 4L);
+    Assert.assertEquals(snapshot.getSuccessful(), 3L);
+    Assert.assertEquals(snapshot.getRejected(), 1L);
+    Assert.assertEquals(snapshot.getFiltered(), 0L);
+  }
+
+  @Test
+  public void concurrencyLimitTimeout() throws Exception {
+    ConcurrencyLimit limit = ConcurrencyLimit.builder()
+        .limits(1, 1, 1)
+        .build();
+    RoutingModule<Long, Long> routing = RoutingModule.<Long, Long, Long>byKey(in -> 0L)
+        .route(0L, SewerPipe
+            .<Long, Long>builder("hanging", in -> new CompletableFuture<>())
+            .concurrencyLimit(limit)
+            .timeout(Duration.ofMillis(20))
+            .build())
+        .build();
+
+    // Flowing outside of a pump, nothing cancels the module, yet the flow timing out still returns its permit.
+    Assert.assertFalse(routing.flow(1L).get(1L, TimeUnit.SECONDS).isSuccessful());
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1L);
+    while (limit.getInFlight() != 0 && System.nanoTime() < deadline) {
+      Thread.sleep(1L);
+    }
+    Assert.assertEquals(limit.getInFlight(), 0);
+  }
+
+  @Test
+  public void circuitBreaker() throws InterruptedException {
+    AtomicInteger flows = new AtomicInteger();
+    AtomicInteger failing = new AtomicInteger(1);
+    CircuitBreaker breaker = CircuitBreaker.builder()
+        .minimumFlows(2)
+        .openDuration(Duration.ofMillis(20))
+        .probes(1)
+        .build();
+    SewerSystem<Long, Long> guarded = SewerSystem
+        .builder(SewerPipe
+            .<Long, Long>builder("guarded", Module.immediately(in -> {
+              flows.incrementAndGet();
+              return failing.get() == 0 ? new SuccessfulResult<>(in) : new ThrowingResult<>(new RuntimeException());
+            }))
+            .circuitBreaker(breaker)
+            .build())
+        .build();
+    Assert.assertFalse(guarded.pump(1L).join().isSuccessful());
+    Assert.assertEquals(breaker.getState(), CircuitBreaker.State.CLOSED);
+    Assert.assertFalse(guarded.pump(2L).join().isSuccessful());
+    Assert.assertEquals(breaker.getState(), CircuitBreaker.State.OPEN);
+
+    // Open breakers reject flows without flowing.
+    NamedPipeResult<Long, ? extends PipeResult<Long>> rejected = guarded.pump(3L).join();
+    Assert.assertEquals(rejected.getPipeName(), "guarded");
+    Assert.assertTrue(rejected.getResult() instanceof RejectedResult);
+    Assert.assertEquals(flows.get(), 2);
+    Assert.assertEquals(breaker.getShortCircuited(), 1L);
+
+    // A failing probe opens the breaker again, and a succeeding one closes it.
+    Thread.sleep(40L);
+    Assert.assertEquals(breaker.getState(), CircuitBreaker.State.HALF_OPEN);
+    Assert.assertFalse(guarded.pump(4L).join().isSuccessful());
+    Assert.assertEquals(breaker.getState(), CircuitBreaker.State.OPEN);
+    Thread.sleep(40L);
+    failing.set(0);
+    Assert.assertEquals(guarded.pump(5L).join().asOptional().get(), Long.valueOf(5L));
+    Assert.assertEquals(breaker.getState(), CircuitBreaker.State.CLOSED);
+    Assert.assertEquals(breaker.getFailureRate(), 0.0, 0.0);
+    Assert.assertEquals(flows.get(), 4);
+
+    // Modules can be guarded on their own too.
+    CircuitBreakingModule<Long, Long> module = Module.circuitBreaking(
+        in -> CompletableFuture.completedFuture(new ThrowingResult<>(new RuntimeException())),
+        CircuitBreaker.builder().minimumFlows(1).build()
+    );
+    Assert.assertTrue(module.flow(1L).join() instanceof ThrowingResult);
+    Assert.assertTrue(module.flow(2L).join() instanceof RejectedResult);
+
+    // Probes which never complete are given up on after the open duration.
+    List<CompletableFuture<PipeResult<Long>>> probes = new ArrayList<>();
+    CircuitBreaker stuck = CircuitBreaker.builder()
+        .minimumFlows(1)
+        .openDuration(Duration.ofMillis(20))
+        .probes(1)
+        .build();
+    CircuitBreakingModule<Long, Long> hanging = Module.circuitBreaking(in -> {
+      if (in == 0L) {
+        return CompletableFuture.completedFuture(new ThrowingResult<>(new RuntimeException()));
+      }
+      CompletableFuture<PipeResult<Long>> probe = new CompletableFuture<>();
+      probes.add(probe);
+      return probe;
+    }, stuck);
+    Assert.assertTrue(hanging.flow(0L).join() instanceof ThrowingResult);
+    Thread.sleep(40L);
+    Assert.assertFalse(hanging.flow(1L).isDone());
+    Assert.assertEquals(stuck.getState(), CircuitBreaker.State.HALF_OPEN);
+    Assert.assertTrue(hanging.flow(2L).join() instanceof RejectedResult);
+    Thread.sleep(40L);
+    Assert.assertEquals(stuck.getState(), CircuitBreaker.State.OPEN);
+    Assert.assertTrue(hanging.flow(3L).join() instanceof RejectedResult);
+    Thread.sleep(40L);
+    Assert.assertFalse(hanging.flow(4L).isDone());
+    Assert.assertEquals(probes.size(), 2);
+    probes.get(1).complete(new SuccessfulResult<>(4L));
+    Assert.assertEquals(stuck.getState(), CircuitBreaker.State.CLOSED);
+  }
+
+  @Test
+  public void microBatched() {
+    List<Integer> sizes = new CopyOnWriteArrayList<>();
+    BatchModule<Long, Long> doubling = BatchModule.immediatelyWrapping(inputs -> {
+      sizes.add(inputs.size());
+      List<Long> outputs = new ArrayList<>(inputs.size());
+      for (Long input : inputs) {
+        outputs.add(input * 2);
+      }
+      return outputs;
+    });
+
+    // Full batches are flushed by the flow filling them.
+    SewerSystem<Long, Long> bySize = SewerSystem
+        .builder("by size", Module.microBatched(doubling, 3, Duration.ofSeconds(10)))
+        .build();
+    List<CompletableFuture<NamedPipeResult<Long, ? extends PipeResult<Long>>>> pumps = new ArrayList<>();
+    for (long i = 0; i < 3; ++i) {
+      pumps.add(bySize.pump(i));
+    }
+    for (int i = 0; i < 3; ++i) {
+      Assert.assertEquals(pumps.get(i).join().asOptional().get(), Long.valueOf(i * 2));
+    }
+    Assert.assertEquals(sizes, Arrays.asList(3));
+
+    // Others are flushed once their delay has passed.
+    SewerSystem<Long, Long> byDelay = SewerSystem
+        .builder("by delay", Module.microBatched(doubling, 100, Duration.ofMillis(20)))
+        .build();
+    CompletableFuture<NamedPipeResult<Long, ? extends PipeResult<Long>>> first = byDelay.pump(5L);
+    CompletableFuture<NamedPipeResult<Long, ? extends PipeResult<Long>>> second = byDelay.pump(6L);
+    Assert.assertEquals(first.join().asOptional().get(), Long.valueOf(10L));
+    Assert.assertEquals(second.join().asOptional().get(), Long.valueOf(12L));
+    Assert.assertEquals(sizes, Arrays.asList(3, 2));
+
+    // Concurrent flows each get their own result, and every input is flushed exactly once.
+    sizes.clear();
+    MicroBatchingModule<Long, Long> concurrent = Module.microBatched(doubling, 16, Duration.ofMillis(1));
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<CompletableFuture<PipeResult<Long>>> flows = new ArrayList<>();
+      for (long i = 0; i < 1_000; ++i) {
+        final long input = i;
+        flows.add(CompletableFuture.supplyAsync(() -> concurrent.flow(input), executor).thenCompose(f -> f));
+      }
+      for (int i = 0; i < flows.size(); ++i) {
+        Assert.assertEquals(flows.get(i).join().asOptional().get(), Long.valueOf(i * 2L));
+      }
+    } finally {
+      executor.shutdown();
+    }
+    Assert.assertEquals(sizes.stream().mapToInt(Integer::intValue).sum(), 1_000);
+    Assert.assertEquals(concurrent.getFlushedBatches(), sizes.size());
+  }
+
+  @Test
+  public void cached() {
+    AtomicInteger invocations = new AtomicInteger();
+    CachedModule<String, Integer> parse = Module.cached(Module.immediatelyWrapping(in -> {
+      invocations.incrementAndGet();
+      return Integer.parseInt(in);
+    }), 16, null);
+    SewerSystem<String, Integer> pipeline = SewerSystem
+        .builder("parse", parse)
+        .build();
+    Assert.assertEquals(pipeline.pumpSync("1").asOptional().get(), Integer.valueOf(1));
+    Assert.assertEquals(pipeline.pumpSync("1").asOptional().get(), Integer.valueOf(1));
+    Assert.assertTrue(pipeline.pumpSync("one").getResult() instanceof ThrowingResult);
+    Assert.assertTrue(pipeline.pumpSync("one").getResult() instanceof ThrowingResult);
+    Assert.assertEquals(invocations.get(), 3);
+    Assert.assertEquals(parse.getStats().getHitCount(), 1L);
+    Assert.assertEquals(parse.getStats().getMissCount(), 3L);
+
+    // Caching an immediate module keeps the pipe immediate.
+    Assert.assertTrue(parse instanceof ImmediateModule);
+    Assert.assertTrue(SewerPipe.builder("parse", parse).build().isImmediate());
+  }
+
+  @Test
+  public void cachedCancellation() throws Exception {
+    AtomicInteger invocations = new AtomicInteger();
+    CompletableFuture<PipeResult<Integer>> parsed = new CompletableFuture<>();
+    CachedModule<String, Integer> parse = CachedModule
+        .<String, Integer>builder(in -> {
+          invocations.incrementAndGet();
+          return parsed;
+        })
+        .cacheThrowing(true)
+        .build();
+    SewerSystem<String, Integer> pipeline = SewerSystem
+        .builder("parse", parse)
+        .build();
+
+    // Cancelling one pump neither cancels the module nor caches the cancellation for later pumps.
+    Assert.assertTrue(pipeline.pump("1").cancel(true));
+    Assert.assertFalse(parsed.isDone());
+    parsed.complete(new SuccessfulResult<>(1));
+    Assert.assertEquals(pipeline.pump("1").get(1L, TimeUnit.SECONDS).asOptional().get(), Integer.valueOf(1));
+    Assert.assertEquals(invocations.get(), 1);
+  }
+
+  @Test
+  public void coalescing() {
+    AtomicInteger invocations = new AtomicInteger();
+    CompletableFuture<Void> gate = new CompletableFuture<>();
+    SewerSystem<String, Integer> pipeline = SewerSystem
+        .<String, Integer>builder("slow parse", in -> {
+          invocations.incrementAndGet();
+          return gate.thenApply(ignored -> new SuccessfulResult<>(Integer.parseInt(in.trim())));
+        })
+        .coalescing(String::trim)
+        .build();
+    CompletableFuture<@NonNull NamedPipeResult<Integer, ? extends PipeResult<Integer>>> first = pipeline.pump("1");
+    CompletableFuture<@NonNull NamedPipeResult<Integer, ? extends PipeResult<Integer>>> second = pipeline.pump(" 1 ");
+    CompletableFuture<@NonNull NamedPipeResult<Integer, ? extends PipeResult<Integer>>> third = pipeline.pump("1 ");
+    Assert.assertNotSame(first, second);
+    Assert.assertEquals(pipeline.getCoalescedPumps(), 2L);
+
+    // Callers cancelling their own future do not affect the others.
+    Assert.assertTrue(first.cancel(true));
+    Assert.assertFalse(pipeline.pump("1").isDone());
+    Assert.assertEquals(invocations.get(), 1);
+
+    gate.complete(null);
+    Assert.assertEquals(second.join().asOptional().get(), Integer.valueOf(1));
+    Assert.assertEquals(third.join().asOptional().get(), Integer.valueOf(1));
+    Assert.assertEquals(pipeline.pumpSync("1").asOptional().get(), Integer.valueOf(1));
+    Assert.assertEquals(invocations.get(), 2);
+
+    // Inputs whose key cannot be extracted fail the first pipe rather than the caller.
+    NamedPipeResult<Integer, ? extends PipeResult<Integer>> unkeyed = pipeline.pump(null).join();
+    Assert.assertEquals(unkeyed.getPipeName(), "slow parse");
+    Assert.assertTrue(((ThrowingResult<Integer>) unkeyed.getResult()).getThrowable() instanceof NullPointerException);
+    Assert.assertEquals(invocations.get(), 2);
+  }
 }
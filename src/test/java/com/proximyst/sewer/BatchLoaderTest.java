@@ -0,0 +1,90 @@
+package com.proximyst.sewer;
+
+import com.proximyst.sewer.loadable.BatchLoader;
+import com.proximyst.sewer.loadable.Loadable;
+import com.proximyst.sewer.piping.PipeResult;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BatchLoaderTest {
+  @Test
+  public void batchesDistinctKeys() {
+    List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+    BatchLoader<Integer, String> loader = BatchLoader
+        .builder(SewerSystem
+            .builder("toString", BatchModule.immediatelyWrapping((List<Integer> in) -> {
+              batches.add(new ArrayList<>(in));
+              return in.stream().map(Integer::toBinaryString).collect(Collectors.toList());
+            }))
+            .build())
+        .maxDelay(Duration.ofHours(1))
+        .build();
+
+    List<Loadable<String>> loadables = new ArrayList<>();
+    List<CompletableFuture<?>> futures = new ArrayList<>();
+    for (int i = 0; i < 10; ++i) {
+      Loadable<String> loadable = loader.getLoadable(i % 5);
+      loadables.add(loadable);
+      futures.add(loadable.getOrLoad());
+    }
+    Assert.assertTrue(batches.isEmpty());
+
+    loader.dispatch();
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+    Assert.assertEquals(batches.size(), 1);
+    Assert.assertEquals(batches.get(0).size(), 5);
+    for (int i = 0; i < 10; ++i) {
+      Assert.assertEquals(loadables.get(i).getIfPresent().get(), Integer.toBinaryString(i % 5));
+    }
+    Assert.assertEquals(loader.getDispatchedBatches(), 1L);
+    Assert.assertEquals(loader.getRequestedLoads(), 10L);
+  }
+
+  @Test
+  public void cancelledDuplicateKey() throws Exception {
+    BatchLoader<Integer, Integer> loader = BatchLoader
+        .builder(SewerSystem
+            .builder("negate", BatchModule.immediatelyWrapping((List<Integer> in) ->
+                in.stream().map(i -> -i).collect(Collectors.toList())))
+            .build())
+        .maxDelay(Duration.ofHours(1))
+        .build();
+
+    // Cancelling one load of a key leaves the other loads of it in the same batch untouched.
+    CompletableFuture<PipeResult<Integer>> first = loader.load(1);
+    CompletableFuture<PipeResult<Integer>> second = loader.load(1);
+    Assert.assertTrue(first.cancel(true));
+    loader.dispatch();
+    Assert.assertEquals(second.get(1L, TimeUnit.SECONDS).asOptional().get(), Integer.valueOf(-1));
+  }
+
+  @Test
+  public void dispatchesOnSizeAndWindow() {
+    List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+    BatchLoader<Integer, Integer> loader = BatchLoader
+        .builder(SewerSystem
+            .builder("negate", BatchModule.immediatelyWrapping((List<Integer> in) -> {
+              batches.add(new ArrayList<>(in));
+              return in.stream().map(i -> -i).collect(Collectors.toList());
+            }))
+            .build())
+        .maxBatchSize(2)
+        .maxDelay(Duration.ofMillis(5))
+        .build();
+
+    // The first two keys fill a batch; the third waits for the window to pass.
+    CompletableFuture<?> first = loader.getLoadable(1).getOrLoad();
+    CompletableFuture<?> second = loader.getLoadable(2).getOrLoad();
+    Assert.assertTrue(first.isDone());
+    Assert.assertTrue(second.isDone());
+    Assert.assertEquals(loader.getLoadable(3).getOrLoad().join().get(), Integer.valueOf(-3));
+    Assert.assertEquals(batches.size(), 2);
+  }
+}
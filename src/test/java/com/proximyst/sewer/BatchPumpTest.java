@@ -0,0 +1,85 @@
+package com.proximyst.sewer;
+
+import com.proximyst.sewer.piping.NamedPipeResult;
+import com.proximyst.sewer.piping.PipeResult;
+import com.proximyst.sewer.piping.RejectedResult;
+import com.proximyst.sewer.piping.SuccessfulResult;
+import com.proximyst.sewer.piping.ThrowingResult;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BatchPumpTest {
+  @Test
+  public void batchedMaths() {
+    List<List<Long>> batches = new ArrayList<>();
+    SewerSystem<Long, Long> pipeline = SewerSystem
+        .<Long, Long>builder("multiply", Module.immediatelyWrapping(in -> in * 7))
+        .module("max amount", Module.filtering(in -> in < 10_000L))
+        .module("divide", Module.immediatelyWrapping(in -> 700 / in))
+        .module("modulo", BatchModule.<Long, Long>immediatelyWrapping(in -> {
+          batches.add(in);
+          return in.stream().map(i -> i % 3).collect(Collectors.toList());
+        }))
+        .build();
+
+    List<NamedPipeResult<Long, ? extends PipeResult<Long>>> results = pipeline
+        .pumpAll(Arrays.asList(1L, 5_000L, 0L, 2L))
+        .join();
+    Assert.assertEquals(results.size(), 4);
+    Assert.assertEquals(results.get(0).asOptional().get(), Long.valueOf(1L));
+    Assert.assertEquals(results.get(1).getPipeName(), "max amount");
+    Assert.assertEquals(results.get(2).getPipeName(), "divide");
+    Assert.assertEquals(results.get(3).asOptional().get(), Long.valueOf(2L));
+    Assert.assertEquals(results.get(3).getPipeName(), "modulo");
+
+    // Only the surviving inputs reach the batch module, and only once.
+    Assert.assertEquals(batches, Arrays.asList(Arrays.asList(100L, 50L)));
+    Assert.assertEquals(pipeline.pumpSync(2L).asOptional().get(), Long.valueOf(2L));
+  }
+
+  @Test
+  public void batchBypassesPerPumpFeatures() throws InterruptedException, ExecutionException, TimeoutException {
+    CircuitBreaker breaker = CircuitBreaker.builder()
+        .minimumFlows(1)
+        .build();
+    SewerSystem<Long, Long> pipeline = SewerSystem
+        .builder(SewerPipe
+            .<Long, Long>builder("slow", in -> {
+              if (in == 0L) {
+                return CompletableFuture.completedFuture(new ThrowingResult<>(new RuntimeException()));
+              }
+              return CompletableFuture.supplyAsync(() -> {
+                try {
+                  Thread.sleep(30L);
+                } catch (InterruptedException ignored) {
+                }
+                return new SuccessfulResult<>(in);
+              });
+            })
+            .timeout(Duration.ofMillis(10))
+            .concurrencyLimit(ConcurrencyLimit.builder().limits(1, 1, 1).build())
+            .circuitBreaker(breaker)
+            .build())
+        .build();
+    Assert.assertFalse(pipeline.pumpSync(0L).isSuccessful());
+    Assert.assertTrue(pipeline.pumpSync(1L).getResult() instanceof RejectedResult);
+
+    // Batches ignore the open breaker, the concurrency limit, and the timeout, as documented on pumpAll.
+    List<NamedPipeResult<Long, ? extends PipeResult<Long>>> results = pipeline
+        .pumpAll(Arrays.asList(1L, 2L, 3L))
+        .get(1L, TimeUnit.SECONDS);
+    for (int i = 0; i < results.size(); ++i) {
+      Assert.assertEquals(results.get(i).asOptional().get(), Long.valueOf(i + 1L));
+    }
+    Assert.assertEquals(breaker.getState(), CircuitBreaker.State.OPEN);
+  }
+}
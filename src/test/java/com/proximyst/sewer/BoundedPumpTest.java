@@ -0,0 +1,66 @@
+package com.proximyst.sewer;
+
+import com.proximyst.sewer.piping.SuccessfulResult;
+import com.proximyst.sewer.piping.ThrowingResult;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BoundedPumpTest {
+  @Test
+  public void boundedInFlight() {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxSeen = new AtomicInteger();
+    SewerSystem<Long, Long> pipeline = SewerSystem
+        .<Long, Long>builder("sleep & identity", in -> {
+          maxSeen.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+          return CompletableFuture.supplyAsync(() -> {
+            try {
+              Thread.sleep(2L);
+            } catch (InterruptedException ignored) {
+            }
+            inFlight.decrementAndGet();
+            return new SuccessfulResult<>(in);
+          }, executor);
+        })
+        .build();
+
+    Set<Long> results = ConcurrentHashMap.newKeySet();
+    pipeline.pumpEach(LongStream.range(0, 200).boxed(), 3, res -> results.add(res.asOptional().get())).join();
+    executor.shutdown();
+    Assert.assertEquals(results.size(), 200);
+    Assert.assertTrue("at most 3 pumps in flight", maxSeen.get() <= 3);
+  }
+
+  @Test
+  public void throwingPump() throws InterruptedException, ExecutionException, TimeoutException {
+    SewerSystem<Long, Long> pipeline = SewerSystem
+        .builder(SewerPipe
+            .<Long, Long>builder("identity", Module.immediatelyWrapping(in -> in))
+            .executor(runnable -> {
+              throw new IllegalStateException("executor is shut down");
+            })
+            .build())
+        .build();
+
+    // Pumps failing on their executor still make room for the next.
+    List<ThrowingResult<?>> results = new CopyOnWriteArrayList<>();
+    pipeline
+        .pumpEach(LongStream.range(0, 5).boxed(), 2, res -> results.add((ThrowingResult<?>) res.getResult()))
+        .get(1L, TimeUnit.SECONDS);
+    Assert.assertEquals(results.size(), 5);
+    Assert.assertTrue(results.get(0).getThrowable() instanceof IllegalStateException);
+  }
+}
@@ -0,0 +1,76 @@
+package com.proximyst.sewer;
+
+import com.proximyst.sewer.cache.CacheStats;
+import com.proximyst.sewer.loadable.LoadableCache;
+import com.proximyst.sewer.piping.PipeResult;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LoadableCacheTest {
+  @Test
+  public void loadsOncePerKey() {
+    AtomicInteger loads = new AtomicInteger();
+    LoadableCache<Integer, String> cache = LoadableCache
+        .builder(SewerSystem
+            .<Integer, String>builder("toString", Module.immediatelyWrapping(in -> {
+              loads.incrementAndGet();
+              return Integer.toBinaryString(in);
+            }))
+            .build())
+        .maximumSize(16)
+        .build();
+    Assert.assertEquals(cache.get(7).join().get(), "111");
+    Map<Integer, PipeResult<String>> all = cache.getAll(Arrays.asList(7, 8)).join();
+    Assert.assertEquals(all.get(7).asOptional().get(), "111");
+    Assert.assertEquals(all.get(8).asOptional().get(), "1000");
+    Assert.assertEquals(loads.get(), 2);
+
+    CacheStats stats = cache.stats();
+    Assert.assertEquals(stats.getHitCount(), 1L);
+    Assert.assertEquals(stats.getMissCount(), 2L);
+    Assert.assertEquals(stats.getLoadCount(), 2L);
+  }
+
+  @Test
+  public void boundedByWeight() {
+    LoadableCache<Integer, String> cache = LoadableCache
+        .builder(SewerSystem
+            .builder("repeat", Module.immediatelyWrapping(
+                (Integer in) -> String.join("", Collections.nCopies(in, "x"))
+            ))
+            .build())
+        .maximumWeight(10, (key, value) -> value.length())
+        .build();
+    cache.get(4).join();
+    cache.get(4).join();
+    cache.get(5).join();
+    Assert.assertEquals(cache.size(), 2);
+
+    cache.get(6).join();
+    Assert.assertTrue(cache.getIfPresent(4).isPresent());
+    Assert.assertFalse(cache.getIfPresent(5).isPresent());
+    Assert.assertEquals(cache.stats().getEvictionCount(), 1L);
+  }
+
+  @Test
+  public void badWeigher() throws Exception {
+    LoadableCache<Integer, String> cache = LoadableCache
+        .builder(SewerSystem
+            .builder("repeat", Module.immediatelyWrapping(
+                (Integer in) -> String.join("", Collections.nCopies(in, "x"))
+            ))
+            .build())
+        .maximumWeight(10, (key, value) -> -value.length())
+        .build();
+
+    // A weigher failing once the value has loaded does not keep anyone waiting for it.
+    Assert.assertEquals(cache.get(3).get(1L, TimeUnit.SECONDS).get(), "xxx");
+    Assert.assertEquals(cache.get(3).get(1L, TimeUnit.SECONDS).get(), "xxx");
+    Assert.assertEquals(cache.stats().getLoadCount(), 1L);
+  }
+}
@@ -1,6 +1,18 @@
 package com.proximyst.sewer;
 
+import com.proximyst.sewer.loadable.LoadPolicy;
 import com.proximyst.sewer.loadable.Loadable;
+import com.proximyst.sewer.piping.NamedPipeResult;
+import com.proximyst.sewer.piping.PipeResult;
+import com.proximyst.sewer.piping.SuccessfulResult;
+import com.proximyst.sewer.piping.ThrowingResult;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -20,4 +32,142 @@ public class LoadableTest {
     Assert.assertTrue(loadable.getIfPresent().isPresent());
     Assert.assertTrue(loadable.getOrLoad().isDone());
   }
+
+  @Test
+  public void refreshingLoadable() throws InterruptedException {
+    AtomicInteger loads = new AtomicInteger();
+    CompletableFuture<Void> gate = new CompletableFuture<>();
+    Loadable<Integer> loadable = Loadable.of(
+        SewerSystem
+            .<Integer, Integer>builder("count", in -> {
+              final int load = loads.incrementAndGet();
+              if (load == 1) {
+                return CompletableFuture.completedFuture(new SuccessfulResult<>(load));
+              }
+              return gate.thenApply(ignored -> new SuccessfulResult<>(load));
+            })
+            .build(),
+        0,
+        LoadPolicy.builder().refreshAfterWrite(Duration.ofMillis(20)).build()
+    );
+    Assert.assertEquals(loadable.getOrLoad().join().get(), Integer.valueOf(1));
+    Thread.sleep(50L);
+
+    // The refresh is in flight, so the stale value is served without waiting.
+    Assert.assertEquals(loadable.getOrLoad().join().get(), Integer.valueOf(1));
+    Assert.assertEquals(loadable.getOrLoad().join().get(), Integer.valueOf(1));
+    Assert.assertEquals(loads.get(), 2);
+
+    gate.complete(null);
+    Assert.assertEquals(loadable.getOrLoad().join().get(), Integer.valueOf(2));
+  }
+
+  @Test
+  public void expiringLoadable() throws InterruptedException {
+    AtomicInteger loads = new AtomicInteger();
+    Loadable<Integer> loadable = Loadable.of(
+        SewerSystem
+            .builder("count", Module.immediatelyWrapping(in -> loads.incrementAndGet()))
+            .build(),
+        0,
+        LoadPolicy.builder().expireAfterWrite(Duration.ofMillis(20)).build()
+    );
+    Assert.assertEquals(loadable.getOrLoad().join().get(), Integer.valueOf(1));
+    Assert.assertEquals(loadable.getOrLoad().join().get(), Integer.valueOf(1));
+    Thread.sleep(50L);
+    Assert.assertEquals(loadable.getOrLoad().join().get(), Integer.valueOf(2));
+  }
+
+  @Test
+  public void failingLoadable() throws InterruptedException {
+    AtomicInteger loads = new AtomicInteger();
+    Loadable<Integer> loadable = Loadable.of(
+        SewerSystem
+            .builder("flaky", Module.immediatelyWrapping(in -> {
+              if (loads.incrementAndGet() <= 2) {
+                throw new IllegalStateException("flaky");
+              }
+              return loads.get();
+            }))
+            .build(),
+        0,
+        LoadPolicy.builder()
+            .retryFailures(1, Duration.ofMillis(1), Duration.ofMillis(1))
+            .expireFailuresAfter(Duration.ofMillis(20))
+            .build()
+    );
+    try {
+      loadable.getOrLoad().join();
+      Assert.fail("the load should fail after a retry");
+    } catch (CompletionException ex) {
+      Assert.assertTrue(ex.getCause() instanceof IllegalStateException);
+    }
+    Assert.assertEquals(loads.get(), 2);
+
+    // The failure is served until it expires.
+    Assert.assertTrue(loadable.getOrLoad().isCompletedExceptionally());
+    Thread.sleep(50L);
+    Assert.assertEquals(loadable.getOrLoad().join().get(), Integer.valueOf(3));
+
+    loadable.invalidate();
+    Assert.assertFalse(loadable.isLoaded());
+    Assert.assertEquals(loadable.getOrLoad().join().get(), Integer.valueOf(4));
+  }
+
+  @Test
+  public void throwingPumpLoadable() throws InterruptedException, ExecutionException, TimeoutException {
+    AtomicInteger loads = new AtomicInteger();
+    Loadable<Integer> loadable = Loadable.of(
+        SewerSystem
+            .builder(SewerPipe
+                .<Integer, Integer>builder("count", Module.immediatelyWrapping(in -> loads.incrementAndGet()))
+                .executor(runnable -> {
+                  throw new IllegalStateException("executor is shut down");
+                })
+                .build())
+            .build(),
+        0
+    );
+
+    // The pump fails on its executor, yet the load must still complete.
+    PipeResult<Integer> result = loadable.getOrLoadResult().get(1L, TimeUnit.SECONDS);
+    Assert.assertTrue(((NamedPipeResult<?, ?>) result).getResult() instanceof ThrowingResult);
+    Assert.assertTrue(loadable.isLoaded());
+    Assert.assertEquals(loads.get(), 0);
+  }
+
+  @Test
+  public void contendedLoadable() throws InterruptedException {
+    AtomicInteger loads = new AtomicInteger();
+    CompletableFuture<Void> gate = new CompletableFuture<>();
+    Loadable<Integer> loadable = Loadable.of(
+        SewerSystem
+            .<Integer, Integer>builder("count", in -> {
+              final int load = loads.incrementAndGet();
+              return gate.thenApply(ignored -> new SuccessfulResult<>(load));
+            })
+            .build(),
+        0
+    );
+
+    final Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; ++i) {
+      threads[i] = new Thread(() -> {
+        for (int j = 0; j < 1000; ++j) {
+          loadable.getOrLoadResult();
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    // Only the first caller to leave the unloaded state pumps.
+    Assert.assertEquals(loads.get(), 1);
+    Assert.assertFalse(loadable.isLoaded());
+    gate.complete(null);
+    Assert.assertEquals(loadable.getOrLoad().join().get(), Integer.valueOf(1));
+    Assert.assertTrue(loadable.isLoaded());
+  }
 }
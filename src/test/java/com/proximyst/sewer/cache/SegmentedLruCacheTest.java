@@ -0,0 +1,38 @@
+package com.proximyst.sewer.cache;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SegmentedLruCacheTest {
+  @Test
+  public void protectsRepeatedKeys() {
+    SegmentedLruCache<Integer, String> cache = new SegmentedLruCache<>(4, null);
+    cache.put(0, "zero");
+    Assert.assertEquals(cache.getIfPresent(0), "zero");
+    for (int i = 1; i <= 10; ++i) {
+      cache.put(i, "scan");
+    }
+
+    Assert.assertEquals(cache.getIfPresent(0), "zero");
+    Assert.assertNull(cache.getIfPresent(1));
+    Assert.assertEquals(cache.size(), 4);
+    Assert.assertEquals(cache.stats().getEvictionCount(), 7L);
+    Assert.assertEquals(cache.stats().getHitCount(), 2L);
+    Assert.assertEquals(cache.stats().getMissCount(), 1L);
+  }
+
+  @Test
+  public void expires() {
+    AtomicLong now = new AtomicLong();
+    SegmentedLruCache<String, String> cache = new SegmentedLruCache<>(16, (key, value) -> 1, Duration.ofSeconds(1), now::get);
+    cache.put("key", "value");
+    now.addAndGet(Duration.ofMillis(999).toNanos());
+    Assert.assertEquals(cache.getIfPresent("key"), "value");
+    now.addAndGet(Duration.ofMillis(1).toNanos());
+    Assert.assertNull(cache.getIfPresent("key"));
+    Assert.assertEquals(cache.size(), 0);
+    Assert.assertEquals(cache.stats().getEvictionCount(), 1L);
+  }
+}